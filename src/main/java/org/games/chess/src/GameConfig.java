@@ -2,6 +2,7 @@ package org.games.chess.src;
 
 import GDK.engine.Vector2;
 import javafx.scene.paint.Color;
+import org.games.chess.src.search.Difficulty;
 
 /**
  * Класс конфигурации игры, содержащий все основные параметры и настройки.
@@ -68,6 +69,48 @@ public class GameConfig {
      */
     public static final Vector2 CENTER_POS = new Vector2(WIDTH/2, HEIGHT/2);
 
+    // ПОИСК
+
+    /**
+     * Размер таблицы транспозиций по умолчанию в мегабайтах (в игре - у каждой компьютерной команды своя)
+     */
+    public static final int TT_SIZE_MB = 64;
+
+    /**
+     * Время на партию для каждой команды в миллисекундах (часы уровней HARD и MASTER)
+     */
+    public static final long TEAM_CLOCK_MS = 300_000;
+
+    /**
+     * Добавка времени команде после каждого ее хода в миллисекундах
+     */
+    public static final long TEAM_CLOCK_INCREMENT_MS = 2_000;
+
+    /**
+     * Команды, за которые играет компьютер (пустой массив - все команды управляются людьми)
+     */
+    public static final int[] AI_TEAMS = {};
+
+    /**
+     * Уровень сложности компьютерных команд из AI_TEAMS
+     */
+    public static final Difficulty AI_DIFFICULTY = Difficulty.NORMAL;
+
+    /**
+     * Файл дебютной книги компьютерных команд относительно папки проекта (если файла нет, книга не используется)
+     */
+    public static final String OPENING_BOOK = "res\\opening_book.bin";
+
+    /**
+     * Папка таблиц эндшпиля компьютерных команд относительно папки проекта (если папки нет, таблицы не используются)
+     */
+    public static final String TABLEBASES = "res\\tablebases";
+
+    /**
+     * Файл записи партий относительно папки проекта (GameRecord; партии дописываются в конец по мере игры)
+     */
+    public static final String GAME_RECORDS = "res\\games.rec";
+
     // ЦВЕТА
 
     /**
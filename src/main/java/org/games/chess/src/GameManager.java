@@ -56,13 +56,15 @@ public class GameManager extends ScriptControl {
 
     /**
      * Завершает игру с указанием победившей команды.
-     * Блокирует фигуры, ставит игру на паузу и показывает панель победы.
+     * Блокирует фигуры, ставит игру на паузу, останавливает поиск и размышления компьютерных
+     * команд и показывает панель победы.
      *
      * @param winTeam номер команды-победителя (1-4)
      */
     public void endGame(int winTeam) {
         Figure.block = true;
         gameOnPause= true;
+        figureManager.getAiController().cancel();
         UIPanel.activeTimer(false);
         Board.getInstance().disableMark();
 
@@ -79,16 +81,18 @@ public class GameManager extends ScriptControl {
 
     /**
      * Перезапускает игру, сбрасывая все состояния.
-     * Уничтожает все фигуры, очищает таймер и снимает игру с паузы.
+     * Останавливает поиск компьютерного хода, уничтожает все фигуры, очищает таймер и снимает игру с паузы.
+     * Пауза снимается до расстановки фигур, чтобы initDefaultBoard запустил поиск хода,
+     * если первой ходит компьютерная команда.
      */
     public void restartGame(){
+        figureManager.getAiController().cancel();
         Figure.block = false;
         figureManager.DestroyAllFiguresAndClearList();
+        gameOnPause = false;
         figureManager.initDefaultBoard();
 
         UIPanel.clearTimer();
         UIPanel.activeTimer(true);
-
-        gameOnPause = false;
     }
 }
\ No newline at end of file
@@ -7,6 +7,9 @@ import javafx.scene.paint.Color;
 import org.games.chess.src.GameConfig;
 import org.games.chess.src.figure.Figure;
 import org.games.chess.src.figure.FigureManager;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
 
 /**
  * Класс игровой доски.
@@ -34,6 +37,16 @@ public class Board {
      */
     private final WallController wallController;
 
+    /**
+     * Примитивное представление позиции, синхронизируемое с матрицей клеток
+     */
+    private final BoardState state;
+
+    /**
+     * Генератор ходов по примитивному представлению позиции
+     */
+    private final MoveGenerator moveGenerator;
+
     /**
      * Статический экземпляр доски для реализации Singleton
      */
@@ -48,6 +61,25 @@ public class Board {
         return instance;
     }
 
+    /**
+     * Возвращает примитивное представление текущей позиции.
+     * Обновляется при каждом изменении значения клетки матрицы.
+     *
+     * @return позиция для генерации ходов и анализа
+     */
+    public BoardState getState() {
+        return state;
+    }
+
+    /**
+     * Возвращает генератор ходов, учитывающий стены этой доски.
+     *
+     * @return генератор ходов
+     */
+    public MoveGenerator getMoveGenerator() {
+        return moveGenerator;
+    }
+
     /**
      * Конструктор доски.
      * Инициализирует canvas, матрицу клеток и контроллер стен.
@@ -57,9 +89,12 @@ public class Board {
         canvas = CanvasRenderer.createCanvasObject("canvas", Vector2.toVec(GameConfig.PADDING), 99);
         canvasCurrentTeamMark = CanvasRenderer.createCanvasObject("canvasCurrentTeamMark", Vector2.toVec(GameConfig.PADDING), 88);
         matrix = new Matrix<>(this::onUpdateCell);
+        state = new BoardState();
+        matrix.setOnValueChangeHandler(this::onCellValueChanged);
 
         // Инициализируем контроллер стен вместо прямого создания стен
         wallController = new WallController();
+        moveGenerator = new MoveGenerator(wallController);
     }
 
     /**
@@ -104,6 +139,18 @@ public class Board {
         }
     }
 
+    /**
+     * Обработчик изменения значения клетки.
+     * Переносит изменение в примитивное представление позиции.
+     *
+     * @param cell клетка, значение которой изменилось
+     */
+    private void onCellValueChanged(Cell<Figure> cell) {
+        Figure figure = cell.getValue();
+        int sq = BoardState.square(cell.getPos().xInt(), cell.getPos().yInt());
+        state.setPiece(sq, figure == null ? Piece.EMPTY : figure.getPieceCode());
+    }
+
     /**
      * Отключает отображение маркера текущей команды.
      * Используется при окончании игры или паузе.
@@ -32,6 +32,11 @@ public class Cell<T> {
      */
     private CellEventHandler<T> onUpdate;
 
+    /**
+     * Обработчик событий изменения значения клетки
+     */
+    private CellEventHandler<T> onValueChange;
+
     /**
      * Создает новую клетку с указанной активностью.
      *
@@ -74,6 +79,26 @@ public class Cell<T> {
         this.onUpdate = handler;
     }
 
+    /**
+     * Устанавливает обработчик изменения значения клетки.
+     * Обработчик вызывается при каждой установке или очистке значения.
+     *
+     * @param handler обработчик событий клетки
+     */
+    public void setOnValueChangeHandler(CellEventHandler<T> handler) {
+        this.onValueChange = handler;
+    }
+
+    /**
+     * Вызывает обработчик изменения значения клетки.
+     * Используется, когда изменилось состояние самого значения (например, флаг первого хода фигуры).
+     */
+    public void notifyValueChanged() {
+        if (onValueChange != null) {
+            onValueChange.handle(this);
+        }
+    }
+
     /**
      * Вызывает обработчик обновления клетки.
      * Используется для перерисовки клетки при изменениях.
@@ -115,6 +140,7 @@ public class Cell<T> {
      */
     public void setValue(T value) {
         this.value = value;
+        notifyValueChanged();
     }
 
     /**
@@ -149,6 +175,7 @@ public class Cell<T> {
      */
     public void clear() {
         this.value = null;
+        notifyValueChanged();
     }
 
     /**
@@ -83,14 +83,17 @@ public class Matrix<T> {
     /**
      * Проверяет, является ли позиция активной частью основной доски.
      * Основная доска - это область внутри границ (margin).
+     * Статический, чтобы примитивная доска BoardState строила ту же маску активных клеток.
      *
      * @param x координата X
      * @param y координата Y
      * @return true если позиция активна на основной доске, false в противном случае
      */
-    private boolean isPositionActiveBoard(int x, int y) {
-        return x > margin - 1 && x < size.xInt() - margin &&
-                y > margin - 1 && y < size.yInt() - margin;
+    public static boolean isPositionActiveBoard(int x, int y) {
+        int size = GameConfig.BOARD_SIZE_IN_CELL;
+        int margin = GameConfig.BOARD_MARGIN;
+        return x > margin - 1 && x < size - margin &&
+                y > margin - 1 && y < size - margin;
     }
 
     /**
@@ -101,24 +104,27 @@ public class Matrix<T> {
      * @param y координата Y
      * @return true если позиция находится в крепости, false в противном случае
      */
-    private boolean isPositionActiveFortress(int x, int y) {
+    public static boolean isPositionActiveFortress(int x, int y) {
+        int size = GameConfig.BOARD_SIZE_IN_CELL;
+        int fortressSize = GameConfig.FORTRESS_SIZE_IN_CELL;
+
         // Проверяем, не находимся ли мы в левой верхней крепости
-        if (x < fortressSize.x && y < fortressSize.y) {
+        if (x < fortressSize && y < fortressSize) {
             return true;
         }
 
         // Проверяем, не находимся ли мы в правой верхней крепости
-        if (x >= size.x - fortressSize.x && y < fortressSize.y) {
+        if (x >= size - fortressSize && y < fortressSize) {
             return true;
         }
 
         // Проверяем, не находимся ли мы в левой нижней крепости
-        if (x < fortressSize.x && y >= size.y - fortressSize.y) {
+        if (x < fortressSize && y >= size - fortressSize) {
             return true;
         }
 
         // Проверяем, не находимся ли мы в правой нижней крепости
-        return x >= size.x - fortressSize.x && y >= size.y - fortressSize.y;
+        return x >= size - fortressSize && y >= size - fortressSize;
     }
 
     /**
@@ -136,6 +142,19 @@ public class Matrix<T> {
     }
 
 
+    /**
+     * Устанавливает обработчик изменения значения для всех клеток матрицы.
+     *
+     * @param handler обработчик изменения значения клетки
+     */
+    public void setOnValueChangeHandler(CellEventHandler<T> handler) {
+        for (Cell<T>[] column : elements) {
+            for (Cell<T> cell : column) {
+                cell.setOnValueChangeHandler(handler);
+            }
+        }
+    }
+
     /**
      * Возвращает клетку по указанным координатам.
      *
@@ -2,6 +2,9 @@ package org.games.chess.src.board;
 
 import GDK.engine.Vector2;
 import org.games.chess.src.GameConfig;
+import org.games.chess.src.rules.AttackTables;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.MoveGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -9,8 +12,10 @@ import java.util.List;
 /**
  * Контроллер для управления стенами на игровом поле.
  * Обеспечивает создание, хранение и проверку пересечения с стенами.
+ * Стены компилируются в таблицы блокировки по клеткам и направлениям, поэтому проверка хода
+ * сводится к одному обращению к массиву. Таблицы перестраиваются только при изменении набора стен.
  */
-public class WallController {
+public final class WallController {
 
     /**
      * Статический экземпляр контроллера для реализации Singleton
@@ -22,6 +27,28 @@ public class WallController {
      */
     private final List<Wall> walls = new ArrayList<>();
 
+    /**
+     * Маски блокировки шага на соседнюю клетку: бит d установлен, если шаг с клетки
+     * в направлении d (MoveGenerator.DIRECTION_DX/DY) пересекает стену
+     */
+    private final byte[] stepBlocked = new byte[BoardState.SQUARES];
+
+    /**
+     * Маски блокировки прыжков коня: бит k установлен, если прыжок с клетки
+     * на смещение k (MoveGenerator.KNIGHT_DX/DY) пересекает стену
+     */
+    private final byte[] knightBlocked = new byte[BoardState.SQUARES];
+
+    /**
+     * Таблицы ходов по клеткам, построенные с учетом текущих стен
+     */
+    private AttackTables attackTables;
+
+    /**
+     * Счетчик изменений набора стен (увеличивается при каждой перестройке таблиц)
+     */
+    private int version;
+
     /**
      * Возвращает единственный экземпляр WallController.
      *
@@ -38,6 +65,7 @@ public class WallController {
     public WallController() {
         instance = this;
         initializeWalls();
+        rebuildTables();
     }
 
     /**
@@ -55,15 +83,137 @@ public class WallController {
     }
 
     /**
-     * Преобразует координаты клетки в координаты ее центра на экране.
+     * Перестраивает таблицы блокировки шагов и прыжков коня по текущему списку стен,
+     * а затем таблицы ходов AttackTables.
+     * Для каждой клетки и каждого смещения выполняется точная геометрическая проверка
+     * doesChessPathCrossWall, поэтому результат совпадает с проверкой отрезков.
+     */
+    private void rebuildTables() {
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int x = BoardState.fileOf(sq), y = BoardState.rankOf(sq);
+            stepBlocked[sq] = (byte) buildBlockMask(x, y, MoveGenerator.DIRECTION_DX, MoveGenerator.DIRECTION_DY);
+            knightBlocked[sq] = (byte) buildBlockMask(x, y, MoveGenerator.KNIGHT_DX, MoveGenerator.KNIGHT_DY);
+        }
+        attackTables = new AttackTables(this);
+        version++;
+    }
+
+    /**
+     * Строит маску смещений с клетки, путь по которым пересекает стену.
+     *
+     * @param x координата X клетки
+     * @param y координата Y клетки
+     * @param offsetsX смещения по X
+     * @param offsetsY смещения по Y
+     * @return битовая маска заблокированных смещений
+     */
+    private int buildBlockMask(int x, int y, int[] offsetsX, int[] offsetsY) {
+        int mask = 0;
+        for (int i = 0; i < offsetsX.length; i++) {
+            if (doesChessPathCrossWall(x, y, x + offsetsX[i], y + offsetsY[i])) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Проверяет, пересекает ли стену шаг с клетки на соседнюю в заданном направлении.
+     *
+     * @param sq индекс клетки отправления
+     * @param dir направление (индекс в MoveGenerator.DIRECTION_DX/DY)
+     * @return true если шаг пересекает стену
+     */
+    public boolean isStepBlocked(int sq, int dir) {
+        return (stepBlocked[sq] >>> dir & 1) != 0;
+    }
+
+    /**
+     * Возвращает маску заблокированных стенами шагов с клетки.
      *
-     * @param cellPos позиция клетки в координатах доски
-     * @return координаты центра клетки на экране
+     * @param sq индекс клетки
+     * @return битовая маска по направлениям MoveGenerator.DIRECTION_DX/DY
      */
-    private Vector2 getCellCenter(Vector2 cellPos) {
-        return cellPos.increaseVector(GameConfig.CELL_SIZE)
-                .addVector(GameConfig.PADDING)
-                .addVector(new Vector2(GameConfig.CELL_SIZE / 2, GameConfig.CELL_SIZE / 2));
+    public int getStepBlockMask(int sq) {
+        return stepBlocked[sq] & 0xFF;
+    }
+
+    /**
+     * Возвращает маску заблокированных стенами прыжков коня с клетки.
+     *
+     * @param sq индекс клетки
+     * @return битовая маска по смещениям MoveGenerator.KNIGHT_DX/DY
+     */
+    public int getKnightBlockMask(int sq) {
+        return knightBlocked[sq] & 0xFF;
+    }
+
+    /**
+     * Возвращает таблицы ходов по клеткам для текущего набора стен.
+     * После addWall/clearWalls возвращается новый объект таблиц.
+     *
+     * @return таблицы ходов
+     */
+    public AttackTables getAttackTables() {
+        return attackTables;
+    }
+
+    /**
+     * Возвращает счетчик изменений набора стен.
+     * Позволяет зависимым таблицам понять, что их нужно перестроить.
+     *
+     * @return номер версии набора стен
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Проверяет, пересекает ли путь между двумя клетками стену, используя таблицы блокировки.
+     * Прямые и диагональные пути проверяются пошагово, прыжки коня - одной маской.
+     * Прочие пути и пути за пределами доски проверяются геометрически.
+     *
+     * @param startX координата X начальной клетки
+     * @param startY координата Y начальной клетки
+     * @param endX координата X конечной клетки
+     * @param endY координата Y конечной клетки
+     * @return true если путь пересекает стену, false в противном случае
+     */
+    public boolean isPathBlocked(int startX, int startY, int endX, int endY) {
+        if (!BoardState.isOnBoard(startX, startY) || !BoardState.isOnBoard(endX, endY)) {
+            return doesChessPathCrossWall(startX, startY, endX, endY);
+        }
+
+        int dx = endX - startX, dy = endY - startY;
+        int sq = BoardState.square(startX, startY);
+
+        int dir = MoveGenerator.directionOf(dx, dy);
+        if (dir >= 0) {
+            int steps = Math.max(Math.abs(dx), Math.abs(dy));
+            int delta = BoardState.square(MoveGenerator.DIRECTION_DX[dir], MoveGenerator.DIRECTION_DY[dir]);
+            for (int step = 0; step < steps; step++, sq += delta) {
+                if (isStepBlocked(sq, dir)) return true;
+            }
+            return false;
+        }
+
+        for (int k = 0; k < MoveGenerator.KNIGHT_DX.length; k++) {
+            if (MoveGenerator.KNIGHT_DX[k] == dx && MoveGenerator.KNIGHT_DY[k] == dy) {
+                return (knightBlocked[sq] >>> k & 1) != 0;
+            }
+        }
+        return doesChessPathCrossWall(startX, startY, endX, endY);
+    }
+
+    /**
+     * Преобразует координату клетки в координату ее центра на экране.
+     *
+     * @param cell координата клетки на доске
+     * @param padding отступ доски по этой оси
+     * @return координата центра клетки на экране
+     */
+    private static double getCellCenter(int cell, double padding) {
+        return cell * GameConfig.CELL_SIZE + padding + GameConfig.CELL_SIZE / 2;
     }
 
 
@@ -76,11 +226,28 @@ public class WallController {
      * @return true если путь пересекает стену, false в противном случае
      */
     public boolean doesChessPathCrossWall(Vector2 startCell, Vector2 endCell) {
-        Vector2 startCenter = getCellCenter(startCell);
-        Vector2 endCenter = getCellCenter(endCell);
+        return doesChessPathCrossWall(startCell.xInt(), startCell.yInt(), endCell.xInt(), endCell.yInt());
+    }
+
+    /**
+     * Проверяет, пересекает ли путь между двумя клетками стену, не создавая промежуточных векторов.
+     * Используется генератором ходов.
+     *
+     * @param startX координата X начальной клетки
+     * @param startY координата Y начальной клетки
+     * @param endX координата X конечной клетки
+     * @param endY координата Y конечной клетки
+     * @return true если путь пересекает стену, false в противном случае
+     */
+    public boolean doesChessPathCrossWall(int startX, int startY, int endX, int endY) {
+        double padX = GameConfig.PADDING.x, padY = GameConfig.PADDING.y;
+        double cx = getCellCenter(startX, padX), cy = getCellCenter(startY, padY);
+        double dx = getCellCenter(endX, padX), dy = getCellCenter(endY, padY);
 
-        for (Wall wall : walls) {
-            if (segmentsIntersect(wall.startPos.addVector(GameConfig.PADDING), wall.endPos.addVector(GameConfig.PADDING), startCenter, endCenter)) {
+        for (int i = 0; i < walls.size(); i++) {
+            Wall wall = walls.get(i);
+            if (segmentsIntersect(wall.startPos.x + padX, wall.startPos.y + padY,
+                    wall.endPos.x + padX, wall.endPos.y + padY, cx, cy, dx, dy)) {
                 return true;
             }
         }
@@ -98,29 +265,50 @@ public class WallController {
      * @return true если отрезки пересекаются, false в противном случае
      */
     public static boolean segmentsIntersect(Vector2 a, Vector2 b, Vector2 c, Vector2 d) {
-        double cross1 = (b.x - a.x) * (c.y - a.y) - (b.y - a.y) * (c.x - a.x);
-        double cross2 = (b.x - a.x) * (d.y - a.y) - (b.y - a.y) * (d.x - a.x);
-        double cross3 = (d.x - c.x) * (a.y - c.y) - (d.y - c.y) * (a.x - c.x);
-        double cross4 = (d.x - c.x) * (b.y - c.y) - (d.y - c.y) * (b.x - c.x);
+        return segmentsIntersect(a.x, a.y, b.x, b.y, c.x, c.y, d.x, d.y);
+    }
+
+    /**
+     * Проверяет пересечение отрезков AB и CD, заданных координатами.
+     *
+     * @param ax координата X точки A
+     * @param ay координата Y точки A
+     * @param bx координата X точки B
+     * @param by координата Y точки B
+     * @param cx координата X точки C
+     * @param cy координата Y точки C
+     * @param dx координата X точки D
+     * @param dy координата Y точки D
+     * @return true если отрезки пересекаются, false в противном случае
+     */
+    public static boolean segmentsIntersect(double ax, double ay, double bx, double by,
+                                            double cx, double cy, double dx, double dy) {
+        double cross1 = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+        double cross2 = (bx - ax) * (dy - ay) - (by - ay) * (dx - ax);
+        double cross3 = (dx - cx) * (ay - cy) - (dy - cy) * (ax - cx);
+        double cross4 = (dx - cx) * (by - cy) - (dy - cy) * (bx - cx);
 
         if (cross1 * cross2 < 0 && cross3 * cross4 < 0) return true;
 
         // Проверка особых случаев (концы отрезков совпадают)
-        return cross1 == 0 && onSegment(a, b, c) || cross2 == 0 && onSegment(a, b, d) ||
-                cross3 == 0 && onSegment(c, d, a) || cross4 == 0 && onSegment(c, d, b);
+        return cross1 == 0 && onSegment(ax, ay, bx, by, cx, cy) || cross2 == 0 && onSegment(ax, ay, bx, by, dx, dy) ||
+                cross3 == 0 && onSegment(cx, cy, dx, dy, ax, ay) || cross4 == 0 && onSegment(cx, cy, dx, dy, bx, by);
     }
 
     /**
-     * Проверяет, лежит ли точка C на отрезке AB.
+     * Проверяет, лежит ли точка C на отрезке AB (при условии, что точки коллинеарны).
      *
-     * @param a начальная точка отрезка
-     * @param b конечная точка отрезка
-     * @param c точка для проверки
+     * @param ax координата X начала отрезка
+     * @param ay координата Y начала отрезка
+     * @param bx координата X конца отрезка
+     * @param by координата Y конца отрезка
+     * @param cx координата X точки для проверки
+     * @param cy координата Y точки для проверки
      * @return true если точка лежит на отрезке, false в противном случае
      */
-    private static boolean onSegment(Vector2 a, Vector2 b, Vector2 c) {
-        return c.x >= Math.min(a.x, b.x) && c.x <= Math.max(a.x, b.x) &&
-                c.y >= Math.min(a.y, b.y) && c.y <= Math.max(a.y, b.y);
+    private static boolean onSegment(double ax, double ay, double bx, double by, double cx, double cy) {
+        return cx >= Math.min(ax, bx) && cx <= Math.max(ax, bx) &&
+                cy >= Math.min(ay, by) && cy <= Math.max(ay, by);
     }
 
     /**
@@ -139,6 +327,7 @@ public class WallController {
      */
     public void addWall(Wall wall) {
         walls.add(wall);
+        rebuildTables();
     }
 
     /**
@@ -146,5 +335,6 @@ public class WallController {
      */
     public void clearWalls() {
         walls.clear();
+        rebuildTables();
     }
 }
\ No newline at end of file
@@ -0,0 +1,372 @@
+package org.games.chess.src.figure;
+
+import GDK.engine.Config;
+import GDK.engine.Vector2;
+import javafx.application.Platform;
+import org.games.chess.src.GameConfig;
+import org.games.chess.src.GameManager;
+import org.games.chess.src.board.Board;
+import org.games.chess.src.board.Cell;
+import org.games.chess.src.board.Matrix;
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.search.CoalitionSearch;
+import org.games.chess.src.search.Difficulty;
+import org.games.chess.src.search.OpeningBook;
+import org.games.chess.src.search.PieceSquareEvaluator;
+import org.games.chess.src.search.PonderingPlayer;
+import org.games.chess.src.search.Tablebases;
+import org.games.chess.src.search.TeamClock;
+import org.games.chess.src.search.TranspositionTable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Управление командами, за которые играет компьютер.
+ * У каждой компьютерной команды свой игрок PonderingPlayer со своей таблицей транспозиций.
+ * Когда ход переходит к такой команде, ее игрок ищет ход в своем фоновом потоке,
+ * поэтому поток JavaFX продолжает отрисовывать кадры. Найденный ход применяется в потоке JavaFX
+ * тем же путем, что и ход мышью: Figure.startMoveToCell, затем FigureManager.handleEndMove
+ * по окончании анимации (включая перемещение ладьи при рокировке).
+ * Результат поиска, начатого до рестарта или отмены, отбрасывается по номеру поколения.
+ * <p>
+ * Контроллер ведет часы команд TeamClock: после каждого хода (onTurn) время хода списывается
+ * с часов сходившей команды и запускаются часы следующей. Уровни HARD и MASTER берут бюджет хода
+ * из часов (TimeManager), игроки уровня MASTER размышляют во время ходов других команд.
+ * Если есть файл дебютной книги GameConfig.OPENING_BOOK, ход позиции из книги делается без поиска;
+ * таблицы эндшпиля из папки GameConfig.TABLEBASES подключаются к поиску.
+ */
+public class AiController {
+
+    /**
+     * Уровни сложности команд, индекс - номер команды; null - команда управляется человеком
+     */
+    private final Difficulty[] difficulties = new Difficulty[BoardState.TEAMS + 1];
+
+    /**
+     * Дебютная книга или null
+     */
+    private final OpeningBook book;
+
+    /**
+     * Источник случайности для выбора хода из книги
+     */
+    private final Random random = new Random();
+
+    /**
+     * Буфер ходов для проверки хода из книги (только поток JavaFX)
+     */
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Часы команд текущей партии
+     */
+    private final TeamClock clock = new TeamClock();
+
+    /**
+     * Игроки компьютерных команд, индекс - номер команды (создаются при первом ходе после назначения)
+     */
+    private final PonderingPlayer[] players = new PonderingPlayer[BoardState.TEAMS + 1];
+
+    /**
+     * Таблицы эндшпиля, общие для всех игроков, или null
+     */
+    private Tablebases tablebases;
+
+    /**
+     * Загружались ли таблицы эндшпиля
+     */
+    private boolean tablebasesLoaded;
+
+    /**
+     * Номер поколения поиска: увеличивается при каждом запуске и отмене,
+     * результат устаревшего поколения не применяется (только поток JavaFX)
+     */
+    private int generation;
+
+    /**
+     * Команда, для которой сейчас идет поиск, или 0
+     */
+    private int thinkingTeam;
+
+    /**
+     * Создает контроллер, назначает компьютерные команды из GameConfig.AI_TEAMS
+     * и открывает дебютную книгу.
+     */
+    public AiController() {
+        for (int team : GameConfig.AI_TEAMS) {
+            difficulties[team] = GameConfig.AI_DIFFICULTY;
+        }
+        book = loadBook();
+    }
+
+    /**
+     * Открывает дебютную книгу GameConfig.OPENING_BOOK, если файл существует.
+     *
+     * @return книга или null
+     */
+    private static OpeningBook loadBook() {
+        Path path = Path.of(System.getProperty("user.dir") + "\\" + Config.PATH_PROJECT + GameConfig.OPENING_BOOK);
+        if (!Files.exists(path)) return null;
+        try {
+            return OpeningBook.load(path);
+        } catch (IOException e) {
+            System.err.println("Ошибка загрузки дебютной книги: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Назначает команде уровень сложности компьютерного игрока.
+     *
+     * @param team номер команды (1-4)
+     * @param difficulty уровень сложности или null, чтобы передать команду человеку
+     */
+    public void setDifficulty(int team, Difficulty difficulty) {
+        difficulties[team] = difficulty;
+        PonderingPlayer player = players[team];
+        if (player == null) return;
+
+        if (difficulty == null) {
+            player.shutdown();
+            players[team] = null;
+        } else {
+            player.setPonderEnabled(difficulty.isPondering());
+        }
+    }
+
+    /**
+     * Возвращает уровень сложности команды.
+     *
+     * @param team номер команды (1-4)
+     * @return уровень сложности или null, если командой управляет человек
+     */
+    public Difficulty getDifficulty(int team) {
+        return difficulties[team];
+    }
+
+    /**
+     * Проверяет, управляет ли командой компьютер.
+     *
+     * @param team номер команды (1-4)
+     * @return true если командой управляет компьютер
+     */
+    public boolean isAiTeam(int team) {
+        return team >= 1 && team <= BoardState.TEAMS && difficulties[team] != null;
+    }
+
+    /**
+     * Проверяет, думает ли сейчас компьютер.
+     *
+     * @return true если идет поиск хода
+     */
+    public boolean isThinking() {
+        return thinkingTeam != 0;
+    }
+
+    /**
+     * Возвращает часы команд текущей партии.
+     *
+     * @return часы команд
+     */
+    public TeamClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Начинает новую партию: отменяет поиски и возвращает часам команд начальный запас времени.
+     */
+    public void newGame() {
+        cancel();
+        clock.reset();
+    }
+
+    /**
+     * Сообщает о передаче хода команде после завершенного хода (или в начале партии).
+     * Списывает время хода с часов сходившей команды и запускает часы новой, сообщает новую позицию
+     * игрокам компьютерных команд (остальные начинают размышлять). Если командой управляет компьютер,
+     * делает ход из дебютной книги или запускает поиск хода ее игроком.
+     *
+     * @param team команда, получившая ход
+     */
+    public void onTurn(int team) {
+        generation++;
+        thinkingTeam = 0;
+        clock.finishMove();
+        if (GameManager.gameOnPause) {
+            cancel();
+            return;
+        }
+        clock.start(team);
+
+        Board board = Board.getInstance();
+        BoardState state = board.getState();
+        for (int aiTeam = 1; aiTeam <= BoardState.TEAMS; aiTeam++) {
+            if (isAiTeam(aiTeam)) {
+                getPlayer(aiTeam, board).positionChanged(state);
+            }
+        }
+        if (!isAiTeam(team)) return;
+
+        int bookMove = probeBook(board);
+        if (bookMove != Move.NONE) {
+            int started = generation;
+            Platform.runLater(() -> applyMove(started, team, bookMove));
+            return;
+        }
+
+        int started = generation;
+        thinkingTeam = team;
+        players[team].think(state, difficulties[team].getLimits(clock, team))
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+                    if (error != null && started == generation) {
+                        System.err.println("Ошибка поиска хода команды " + team + ": " + error.getMessage());
+                        thinkingTeam = 0;
+                    } else if (result != null) {
+                        applyMove(started, team, result.getBestMove());
+                    }
+                }));
+    }
+
+    /**
+     * Отменяет текущий поиск и размышления, останавливает часы; результат поиска не будет применен.
+     */
+    public void cancel() {
+        generation++;
+        thinkingTeam = 0;
+        clock.pause();
+        for (PonderingPlayer player : players) {
+            if (player != null) player.cancel();
+        }
+    }
+
+    /**
+     * Отменяет поиски и завершает фоновые потоки игроков.
+     */
+    public void shutdown() {
+        cancel();
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            if (players[team] != null) {
+                players[team].shutdown();
+                players[team] = null;
+            }
+        }
+    }
+
+    /**
+     * Возвращает игрока компьютерной команды, создавая его при первом обращении.
+     *
+     * @param team номер компьютерной команды (1-4)
+     * @param board доска
+     * @return игрок команды
+     */
+    private PonderingPlayer getPlayer(int team, Board board) {
+        if (players[team] == null) {
+            players[team] = new PonderingPlayer(team, createSearch(board), clock);
+            players[team].setPonderEnabled(difficulties[team].isPondering());
+        }
+        return players[team];
+    }
+
+    /**
+     * Ищет ход текущей позиции в дебютной книге и проверяет, что он есть среди ходов позиции.
+     *
+     * @param board доска
+     * @return ход из книги или Move.NONE
+     */
+    private int probeBook(Board board) {
+        if (book == null) return Move.NONE;
+
+        BoardState state = board.getState();
+        int move = book.chooseMove(state, random.nextLong());
+        if (move == Move.NONE) return Move.NONE;
+
+        int count = board.getMoveGenerator().generate(state, state.getCurrentTeam(), moveBuffer, 0);
+        for (int i = 0; i < count; i++) {
+            if (moveBuffer[i] == move) return move;
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Применяет выбранный ход в потоке JavaFX, если позиция не изменилась с начала поиска.
+     *
+     * @param started поколение поиска
+     * @param team команда, для которой искался ход
+     * @param move ход или Move.NONE
+     */
+    private void applyMove(int started, int team, int move) {
+        if (started != generation) return;
+        thinkingTeam = 0;
+
+        if (GameManager.gameOnPause || Figure.block
+                || FigureManager.getInstance().getCurrentTeam() != team) return;
+
+        if (move == Move.NONE) {
+            System.err.println("У команды " + team + " нет ходов");
+            return;
+        }
+
+        int from = Move.from(move), to = Move.to(move);
+        Figure figure = getFigureAt(from);
+        if (figure == null || figure.getTeam() != team) {
+            System.err.println("Ход " + Move.toString(move) + " не соответствует доске");
+            return;
+        }
+
+        FigureManager.getInstance().setSelectedFigure(figure);
+        figure.startMoveToCell(new Vector2(BoardState.fileOf(to), BoardState.rankOf(to)));
+    }
+
+    /**
+     * Возвращает фигуру на клетке доски.
+     *
+     * @param sq индекс клетки
+     * @return фигура или null
+     */
+    @SuppressWarnings("unchecked")
+    private Figure getFigureAt(int sq) {
+        Cell<Figure> cell = (Cell<Figure>) Matrix.getInstance().getCell(BoardState.fileOf(sq), BoardState.rankOf(sq));
+        return cell != null ? cell.getValue() : null;
+    }
+
+    /**
+     * Создает поиск коалиций с оценкой фигура-клетка для стен этой доски и своей таблицей
+     * транспозиций; таблицы эндшпиля загружаются один раз и общие для всех игроков.
+     *
+     * @param board доска
+     * @return поиск
+     */
+    private CoalitionSearch createSearch(Board board) {
+        if (!tablebasesLoaded) {
+            tablebases = loadTablebases();
+            tablebasesLoaded = true;
+        }
+        PieceSquareEvaluator evaluator = new PieceSquareEvaluator(WallController.getInstance());
+        TranspositionTable table = new TranspositionTable(GameConfig.TT_SIZE_MB);
+        CoalitionSearch search = new CoalitionSearch(board.getMoveGenerator(), evaluator, table);
+        search.setTablebases(tablebases);
+        return search;
+    }
+
+    /**
+     * Загружает таблицы эндшпиля из папки GameConfig.TABLEBASES, если она существует.
+     *
+     * @return набор таблиц или null
+     */
+    private static Tablebases loadTablebases() {
+        Path path = Path.of(System.getProperty("user.dir") + "\\" + Config.PATH_PROJECT + GameConfig.TABLEBASES);
+        if (!Files.isDirectory(path)) return null;
+        try {
+            return Tablebases.load(path);
+        } catch (IOException e) {
+            System.err.println("Ошибка загрузки таблиц эндшпиля: " + e.getMessage());
+            return null;
+        }
+    }
+}
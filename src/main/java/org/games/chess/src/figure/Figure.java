@@ -5,13 +5,16 @@ import GDK.engine.components.CanvasRenderer;
 import GDK.engine.components.ParticleSystem;
 import javafx.scene.paint.Color;
 import org.games.chess.src.GameConfig;
+import org.games.chess.src.board.Board;
 import org.games.chess.src.board.Cell;
 import org.games.chess.src.board.Matrix;
 import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
 import org.games.chess.src.utils.MoveEventHandler;
 
-import java.util.List;
-
 /**
  * Базовый класс для всех шахматных фигур.
  * Определяет общую логику перемещения, взаимодействия и отображения фигур.
@@ -28,6 +31,11 @@ public class Figure extends ScriptControl {
      */
     private static final int DEBUG_VIEW_ORDER_OFFSET = 1;
 
+    /**
+     * Буфер ходов выбранной фигуры (используется только в потоке JavaFX)
+     */
+    private static final int[] MOVE_BUFFER = new int[MoveGenerator.MAX_PIECE_MOVES];
+
     /**
      * Canvas для отрисовки отладочной информации (выделение, возможные ходы)
      */
@@ -85,6 +93,11 @@ public class Figure extends ScriptControl {
      */
     protected Cell<Figure> cell;
 
+    /**
+     * Позиция клетки, с которой фигура начала последнее перемещение
+     */
+    private Vector2 moveStartPos;
+
     /**
      * Система частиц для визуализации уничтожения фигуры
      */
@@ -126,6 +139,15 @@ public class Figure extends ScriptControl {
         return team;
     }
 
+    /**
+     * Возвращает код фигуры для примитивного представления доски.
+     *
+     * @return код фигуры (тип, команда и флаг первого хода), см. Piece
+     */
+    public int getPieceCode() {
+        return Piece.make(Piece.typeFromChar(type), team, firstStep);
+    }
+
     /**
      * Возвращает текущую клетку фигуры.
      *
@@ -135,6 +157,15 @@ public class Figure extends ScriptControl {
         return cell;
     }
 
+    /**
+     * Возвращает позицию клетки, с которой фигура начала последнее перемещение.
+     *
+     * @return позиция клетки или null, если фигура еще не перемещалась
+     */
+    public Vector2 getMoveStartPos() {
+        return moveStartPos;
+    }
+
     /**
      * Инициализирует фигуру с заданными параметрами.
      * Настраивает внешний вид, позицию и вспомогательные системы.
@@ -341,6 +372,7 @@ public class Figure extends ScriptControl {
         isMoving = true;
 
         if (cell != null) {
+            moveStartPos = cell.getPos();
             cell.clear();
         }
 
@@ -418,13 +450,25 @@ public class Figure extends ScriptControl {
 
     /**
      * Возвращает массив клеток, на которые может переместиться фигура.
-     * Абстрактный метод, должен быть реализован в подклассах.
+     * Тонкий адаптер над MoveGenerator: ходы генерируются по примитивной доске Board.getState()
+     * и переводятся в координаты клеток для отрисовки и выбора хода мышью.
      *
      * @param cell текущая клетка фигуры
      * @return массив возможных целевых клеток
      */
     protected Vector2[] getTargetsCells(Cell<Figure> cell) {
-        return new Vector2[0];
+        if (cell == null) return new Vector2[0];
+
+        Board board = Board.getInstance();
+        int from = BoardState.square(cell.getPos().xInt(), cell.getPos().yInt());
+        int count = board.getMoveGenerator().generatePieceMoves(board.getState(), from, MOVE_BUFFER, 0);
+
+        Vector2[] targets = new Vector2[count];
+        for (int i = 0; i < count; i++) {
+            int to = Move.to(MOVE_BUFFER[i]);
+            targets[i] = new Vector2(BoardState.fileOf(to), BoardState.rankOf(to));
+        }
+        return targets;
     }
 
     /**
@@ -491,105 +535,15 @@ public class Figure extends ScriptControl {
         return (Cell<Figure>) Matrix.getInstance().getCell(x, y);
     }
 
-    /**
-     * Проверяет, может ли фигура переместиться на указанную клетку.
-     * Проверяет активность клетки, наличие стен и наличие других фигур.
-     *
-     * @param targetCell целевая клетка для проверки
-     * @return true если фигура может переместиться на клетку, false в противном случае
-     */
-    protected boolean canMoveToCell(Cell<Figure> targetCell) {
-        if (targetCell == null || !targetCell.isActive() || doesPathCrossWall(targetCell.getPos().xInt(), targetCell.getPos().yInt())) return false;
-
-        Figure figureOnCell = targetCell.getValue();
-        return figureOnCell == null || isEnemyFigure(figureOnCell);
-    }
-
-    /**
-     * Добавляет клетку в список возможных целей если она валидна.
-     *
-     * @param targets список целевых клеток
-     * @param x координата X проверяемой клетки
-     * @param y координата Y проверяемой клетки
-     */
-    protected void addTargetIfValid(List<Vector2> targets, int x, int y) {
-        Cell<Figure> targetCell = getCellAt(x, y);
-        if (canMoveToCell(targetCell)) {
-            targets.add(new Vector2(x, y));
-        }
-    }
-
-    /**
-     * Проверяет клетку в заданном направлении на возможность перемещения.
-     *
-     * @param targets список целевых клеток
-     * @param x координата X проверяемой клетки
-     * @param y координата Y проверяемой клетки
-     * @param stopAtEnemy флаг, указывающий нужно ли останавливаться при встрече вражеской фигуры
-     * @return true если проверка продолжается, false если нужно остановиться
-     */
-    protected boolean checkDirection(List<Vector2> targets, int x, int y, boolean stopAtEnemy) {
-        Cell<Figure> targetCell = getCellAt(x, y);
-        if (targetCell == null || !targetCell.isActive()) return false;
-
-        Figure figureOnCell = targetCell.getValue();
-
-        if (isEmptyCell(targetCell)) {
-            targets.add(new Vector2(x, y));
-            return true;
-        } else if (isEnemyFigure(figureOnCell)) {
-            targets.add(new Vector2(x, y));
-            return !stopAtEnemy;
-        }
-
-        return false;
-    }
-
-    /**
-     * Обходит все клетки в заданном направлении до границы доски или препятствия.
-     *
-     * @param targets список целевых клеток
-     * @param startX начальная координата X
-     * @param startY начальная координата Y
-     * @param dx направление по X (1, 0 или -1)
-     * @param dy направление по Y (1, 0 или -1)
-     */
-    protected void traverseDirection(List<Vector2> targets, int startX, int startY,
-                                     int dx, int dy) {
-        for (int step = 1; step < GameConfig.BOARD_SIZE_IN_CELL; step++) {
-            int newX = startX + dx * step;
-            int newY = startY + dy * step;
-            if (doesPathCrossWall(startX, startY, newX, newY)) break;
-            if (!checkDirection(targets, newX, newY, true)) {
-                break;
-            }
-        }
-    }
-
-    /**
-     * Добавляет клетку в список целей если на ней находится вражеская фигура.
-     *
-     * @param targets список целевых клеток
-     * @param targetX координата X проверяемой клетки
-     * @param targetY координата Y проверяемой клетки
-     */
-    protected void addCaptureIfEnemy(List<Vector2> targets, int targetX, int targetY) {
-        Cell<Figure> targetCell = getCellAt(targetX, targetY);
-        if (targetCell != null && targetCell.isActive()) {
-            Figure figureOnCell = targetCell.getValue();
-            if (isEnemyFigure(figureOnCell) && !doesPathCrossWall(targetX, targetY)) {
-                targets.add(new Vector2(targetX, targetY));
-            }
-        }
-    }
-
     /**
      * Проверяет, можно ли выбрать данную фигуру.
      *
-     * @return true если фигура принадлежит текущей команде и не происходит другое перемещение
+     * @return true если фигура принадлежит текущей команде, командой управляет человек
+     * и не происходит другое перемещение
      */
     private boolean shouldSelectFigure() {
         return team == FigureManager.getInstance().getCurrentTeam() &&
+                !FigureManager.getInstance().isAiTurn() &&
                 Input.getMouseButton(0) &&
                 !FigureManager.getInstance().selectedIsMove();
     }
@@ -684,7 +638,7 @@ public class Figure extends ScriptControl {
      * @return true если отрезок пересекает стену, false в противном случае
      */
     protected boolean doesPathCrossWall(int startX, int startY, int newX, int newY) {
-        return WallController.getInstance().doesChessPathCrossWall(new Vector2(startX, startY), new Vector2(newX, newY));
+        return WallController.getInstance().isPathBlocked(startX, startY, newX, newY);
     }
 
     /**
@@ -694,5 +648,8 @@ public class Figure extends ScriptControl {
      */
     public void setFirstStep(boolean b){
         firstStep = b;
+        if (cell != null && cell.getValue() == this) {
+            cell.notifyValueChanged();
+        }
     }
 }
\ No newline at end of file
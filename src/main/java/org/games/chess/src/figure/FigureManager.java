@@ -9,10 +9,15 @@ import org.games.chess.src.board.Board;
 import org.games.chess.src.board.Cell;
 import org.games.chess.src.board.Matrix;
 import org.games.chess.src.figure.controllers.*;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.GameRecord;
+import org.games.chess.src.rules.GameRecordWriter;
+import org.games.chess.src.rules.Move;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -53,6 +58,27 @@ public class FigureManager {
      */
     private List<Integer> liveTeams = new ArrayList<>();
 
+    /**
+     * Управление командами, за которые играет компьютер
+     */
+    private final AiController aiController = new AiController();
+
+    /**
+     * Запись партий в файл GameConfig.GAME_RECORDS (null - файл не открыт или запись отключена ошибкой)
+     */
+    private GameRecordWriter recordWriter;
+
+    /**
+     * Флаг, указывающий что следующее завершение хода - переброска ладьи при рокировке,
+     * которая уже записана вместе с ходом короля
+     */
+    private boolean castlingRookPending;
+
+    /**
+     * Время завершения предыдущего хода (System.nanoTime) для записи времени ходов
+     */
+    private long lastMoveNanos;
+
     /**
      * Возвращает номер команды, чей сейчас ход.
      *
@@ -69,6 +95,26 @@ public class FigureManager {
      */
     public void setCurrentTeam(int currentTeam) {
         this.currentTeam = currentTeam;
+        Board.getInstance().getState().setCurrentTeam(currentTeam);
+    }
+
+    /**
+     * Возвращает управление компьютерными командами.
+     *
+     * @return контроллер компьютерных команд
+     */
+    public AiController getAiController() {
+        return aiController;
+    }
+
+    /**
+     * Проверяет, ходит ли сейчас команда, управляемая компьютером.
+     * В этот момент фигуры нельзя выбирать мышью.
+     *
+     * @return true если текущей командой управляет компьютер
+     */
+    public boolean isAiTurn() {
+        return aiController.isAiTeam(currentTeam);
     }
 
     /**
@@ -93,9 +139,12 @@ public class FigureManager {
      * Загружает расстановку из файла и сбрасывает все игровые состояния.
      */
     public void initDefaultBoard(){
-        currentTeam = defaultTeamNumber;
+        setCurrentTeam(defaultTeamNumber);
         liveTeams = new ArrayList<>(Arrays.asList(1,2,3,4));
         loadBoardFromFile(getBoardFilePath());
+        startGameRecord();
+        aiController.newGame();
+        aiController.onTurn(defaultTeamNumber);
     }
 
     /**
@@ -240,15 +289,17 @@ public class FigureManager {
 
     /**
      * Обработчик завершения хода фигуры.
-     * Выполняет захват фигур, обновление клеток и передачу хода следующей команде.
+     * Записывает ход в файл партий, выполняет захват фигур, обновление клеток и передачу хода следующей команде.
      *
      * @param figure фигура, завершившая ход
      */
     private void handleEndMove(Figure figure) {
+        recordMove(figure);
         captureFigureIfPresent(figure);
         updateFigureCell(figure);
         if (figure.isFirstStep() && figure instanceof King && ((King)figure).checkRook()){
             System.out.println("rooooook");
+            castlingRookPending = true;
             ((King) figure).moveRook();
         }
         else{
@@ -291,13 +342,17 @@ public class FigureManager {
 
     /**
      * Передает ход следующей команде в порядке 1→2→3→4→1.
-     * Пропускает команды, уже проигравшие в игре.
+     * Пропускает команды, уже проигравшие в игре. Сообщает о завершенном ходе контроллеру компьютерных
+     * команд: он переключает часы команд, передает позицию размышляющим игрокам и, если новой командой
+     * управляет компьютер, запускает поиск ее хода.
      */
     private void switchToNextTeam() {
         int newTeam = calculateNextTeam();
         setCurrentTeam(newTeam);
-        if (!GameManager.gameOnPause)
+        if (!GameManager.gameOnPause) {
             Board.getInstance().renderCurrentTeamMark(newTeam);
+            aiController.onTurn(newTeam);
+        }
     }
 
     /**
@@ -395,6 +450,7 @@ public class FigureManager {
         removeTeamFigures(team);
         losingTeams.add(team);
         liveTeams.remove((Object)team);
+        Board.getInstance().getState().setTeamEliminated(team, true);
         checkGameEndCondition();
     }
 
@@ -419,6 +475,7 @@ public class FigureManager {
         var check2 = liveTeams.stream().allMatch(n -> n % 2 == 1);
 
         if ((check || check2) && losingTeams.size() >= 2) {
+            endGameRecord(GameRecord.resultOfTeam(currentTeam));
             GameManager.getInstance().endGame(currentTeam);
         }
     }
@@ -428,6 +485,10 @@ public class FigureManager {
      * Используется при рестарте игры.
      */
     public void DestroyAllFiguresAndClearList(){
+        endGameRecord(GameRecord.RESULT_UNFINISHED);
+        for (int team : losingTeams) {
+            Board.getInstance().getState().setTeamEliminated(team, false);
+        }
         losingTeams.clear();
         liveTeams.clear();
         for (Figure figure : FigureListController.getInstance().getAllFigures()){
@@ -436,4 +497,86 @@ public class FigureManager {
 
         FigureListController.getInstance().clearAll();
     }
-}
\ No newline at end of file
+
+    /**
+     * Начинает запись партии со стартовой позиции доски.
+     * Файл партий открывается для дописывания при первой партии; при ошибке запись отключается.
+     */
+    private void startGameRecord() {
+        castlingRookPending = false;
+        lastMoveNanos = System.nanoTime();
+        try {
+            if (recordWriter == null) {
+                recordWriter = GameRecordWriter.append(Path.of(getGameRecordsFilePath()), true);
+            }
+            recordWriter.startGame(Board.getInstance().getState(), System.currentTimeMillis(), 0, 0);
+        } catch (IOException e) {
+            handleRecordError(e);
+        }
+    }
+
+    /**
+     * Записывает завершенный ход фигуры вместе со временем, прошедшим с предыдущего хода.
+     * Переброска ладьи при рокировке не записывается: BoardState.makeMove делает ее по ходу короля.
+     *
+     * @param figure фигура, завершившая ход
+     */
+    private void recordMove(Figure figure) {
+        if (castlingRookPending) {
+            castlingRookPending = false;
+            return;
+        }
+        if (recordWriter == null || !recordWriter.isGameOpen() || figure.getMoveStartPos() == null) return;
+
+        Vector2 from = figure.getMoveStartPos(), to = figure.getCurrentCell().getPos();
+        int move = Move.encode(BoardState.square(from.xInt(), from.yInt()),
+                BoardState.square(to.xInt(), to.yInt()), 0, 0);
+        long now = System.nanoTime();
+        try {
+            recordWriter.writeMove(move, (now - lastMoveNanos) / 1_000_000);
+        } catch (IOException e) {
+            handleRecordError(e);
+        }
+        lastMoveNanos = now;
+    }
+
+    /**
+     * Записывает конец партии, если она записывается и еще не закончена.
+     *
+     * @param result результат партии (GameRecord.RESULT_*)
+     */
+    private void endGameRecord(int result) {
+        if (recordWriter == null || !recordWriter.isGameOpen()) return;
+        try {
+            recordWriter.endGame(result);
+        } catch (IOException e) {
+            handleRecordError(e);
+        }
+    }
+
+    /**
+     * Возвращает путь к файлу записи партий.
+     *
+     * @return абсолютный путь к файлу GameConfig.GAME_RECORDS
+     */
+    private String getGameRecordsFilePath() {
+        return System.getProperty("user.dir") + "\\" + Config.PATH_PROJECT + GameConfig.GAME_RECORDS;
+    }
+
+    /**
+     * Обрабатывает ошибку записи партии: сообщает о ней и отключает запись до конца работы программы.
+     *
+     * @param e исключение, возникшее при записи
+     */
+    private void handleRecordError(IOException e) {
+        System.err.println("Ошибка записи партии: " + e.getMessage());
+        if (recordWriter != null) {
+            try {
+                recordWriter.close();
+            } catch (IOException ignored) {
+                // файл уже недоступен, запись отключается в любом случае
+            }
+            recordWriter = null;
+        }
+    }
+}
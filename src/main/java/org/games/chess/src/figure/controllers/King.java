@@ -1,14 +1,10 @@
 package org.games.chess.src.figure.controllers;
 
 import GDK.engine.Vector2;
-import org.games.chess.src.GameConfig;
 import org.games.chess.src.GameManager;
-import org.games.chess.src.board.Cell;
-import org.games.chess.src.board.Matrix;
 import org.games.chess.src.figure.Figure;
 import org.games.chess.src.figure.FigureManager;
 
-import java.util.ArrayList;
 import java.util.Map;
 
 /**
@@ -16,6 +12,7 @@ import java.util.Map;
  * Может перемещаться на одну клетку в любом направлении.
  * При потере короля команда проигрывает.
  * Поддерживает специальный ход - рокировку.
+ * Ходы (включая рокировку) генерируются MoveGenerator, здесь остается перемещение ладьи после хода.
  */
 public class King extends Figure {
 
@@ -40,46 +37,6 @@ public class King extends Figure {
      */
     private Vector2 hideRookPos;
 
-    /**
-     * Возвращает массив клеток, на которые может переместиться король.
-     * Король может перемещаться на одну клетку в любом направлении.
-     * Также включает клетку для рокировки при выполнении условий.
-     *
-     * @param cell текущая клетка короля
-     * @return массив возможных целевых клеток
-     */
-    @Override
-    protected Vector2[] getTargetsCells(Cell<Figure> cell) {
-        if (cell == null) return new Vector2[0];
-
-        Vector2 currentPos = cell.getPos();
-        int currentX = (int)currentPos.x;
-        int currentY = (int)currentPos.y;
-
-        ArrayList<Vector2> targets = new ArrayList<>();
-
-        int[][] directions = {
-                {1, 0}, {1, 1}, {0, 1}, {-1, 1},
-                {-1, 0}, {-1, -1}, {0, -1}, {1, -1}
-        };
-
-        for (int[] dir : directions) {
-            addTargetIfValid(targets, currentX + dir[0], currentY + dir[1]);
-        }
-
-        var hideVec = hideDirectionTeams.get(getTeam());
-        var targetPoint = hideVec.increaseVector(2).addVector(currentPos);
-        if (isFirstStep()
-                && checkMove(hideVec.addVector(currentPos))
-                && checkMove(targetPoint)
-                && checkRook(hideVec.increaseVector(3).addVector(currentPos))
-        ){
-            targets.add(targetPoint);
-        }
-
-        return targets.toArray(new Vector2[0]);
-    }
-
     /**
      * Обработчик захвата короля.
      * При захвате короля его команда проигрывает.
@@ -91,33 +48,6 @@ public class King extends Figure {
         FigureManager.getInstance().setLosingTeam(getTeam());
     }
 
-    /**
-     * Проверяет, может ли король переместиться на указанную позицию.
-     * Проверяет только доступность клетки (не проверяет шах).
-     *
-     * @param vec позиция для проверки
-     * @return true если клетка доступна, false в противном случае
-     */
-    private boolean checkMove(Vector2 vec) {
-        Cell<Figure> forwardCell = getCellAt(vec.xInt(), vec.yInt());
-        return forwardCell != null && forwardCell.isActive() && forwardCell.isEmpty();
-    }
-
-    /**
-     * Проверяет, находится ли на указанной позиции ладья той же команды.
-     *
-     * @param vec позиция для проверки
-     * @return true если на позиции находится союзная ладья, false в противном случае
-     */
-    private boolean checkRook(Vector2 vec){
-        Cell<Figure> rook = getCellAt(vec.xInt(), vec.yInt());
-        return rook != null
-                && rook.isActive()
-                && rook.getValue() != null
-                && rook.getValue().getTeam() == getTeam()
-                && rook.getValue().getType() == 'R';
-    }
-
     /**
      * Проверяет возможность рокировки.
      * Ищет ладью в направлении, указанном для команды короля.
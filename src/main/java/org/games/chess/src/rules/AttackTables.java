@@ -0,0 +1,240 @@
+package org.games.chess.src.rules;
+
+import org.games.chess.src.board.WallController;
+
+/**
+ * Предвычисленные таблицы ходов по клеткам для доски 16x16 с крепостями и стенами.
+ * Для каждой клетки хранит цели коня и короля, ходы и взятия пешек каждой из четырех команд
+ * и лучи восьми направлений, обрезанные на неактивных клетках и стенах.
+ * Таблицы строятся один раз для набора стен и используются генератором ходов и анализом.
+ * Возвращаемые массивы общие для всех вызывающих и не должны изменяться.
+ */
+public class AttackTables {
+
+    /**
+     * Пустой список клеток
+     */
+    private static final int[] NO_SQUARES = new int[0];
+
+    /**
+     * Клетки, на которые может прыгнуть конь с каждой клетки
+     */
+    private final int[][] knightTargets = new int[BoardState.SQUARES][];
+
+    /**
+     * Клетки, на которые может шагнуть король с каждой клетки
+     */
+    private final int[][] kingTargets = new int[BoardState.SQUARES][];
+
+    /**
+     * Клетка хода пешки вперед для каждой команды и клетки (-1 если хода нет)
+     */
+    private final int[][] pawnPushes = new int[BoardState.TEAMS + 1][BoardState.SQUARES];
+
+    /**
+     * Клетка хода пешки на две клетки вперед для каждой команды и клетки (-1 если хода нет)
+     */
+    private final int[][] pawnDoublePushes = new int[BoardState.TEAMS + 1][BoardState.SQUARES];
+
+    /**
+     * Клетки взятия пешкой для каждой команды и клетки
+     */
+    private final int[][][] pawnCaptures = new int[BoardState.TEAMS + 1][BoardState.SQUARES][];
+
+    /**
+     * Клетки, с которых пешка команды бьет данную клетку
+     */
+    private final int[][][] pawnAttackers = new int[BoardState.TEAMS + 1][BoardState.SQUARES][];
+
+    /**
+     * Лучи по направлениям MoveGenerator.DIRECTION_DX/DY для каждой клетки
+     */
+    private final int[][][] rays = new int[MoveGenerator.DIRECTION_DX.length][BoardState.SQUARES][];
+
+    /**
+     * Строит таблицы для заданного набора стен.
+     *
+     * @param walls контроллер стен с уже построенными масками блокировки
+     */
+    public AttackTables(WallController walls) {
+        int[] buffer = new int[BoardState.SIZE];
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            knightTargets[sq] = buildJumps(sq, MoveGenerator.KNIGHT_DX, MoveGenerator.KNIGHT_DY,
+                    walls.getKnightBlockMask(sq), buffer);
+            kingTargets[sq] = buildJumps(sq, MoveGenerator.DIRECTION_DX, MoveGenerator.DIRECTION_DY,
+                    walls.getStepBlockMask(sq), buffer);
+            for (int dir = 0; dir < rays.length; dir++) {
+                rays[dir][sq] = buildRay(sq, dir, walls, buffer);
+            }
+        }
+
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            buildPawnTables(team, walls, buffer);
+        }
+    }
+
+    /**
+     * Строит список целей для фиксированных смещений, пропуская неактивные клетки и стены.
+     */
+    private static int[] buildJumps(int sq, int[] offsetsX, int[] offsetsY, int blockMask, int[] buffer) {
+        if (!BoardState.isActive(sq)) return NO_SQUARES;
+
+        int x = BoardState.fileOf(sq), y = BoardState.rankOf(sq);
+        int count = 0;
+        for (int i = 0; i < offsetsX.length; i++) {
+            int tx = x + offsetsX[i], ty = y + offsetsY[i];
+            if (BoardState.isActive(tx, ty) && (blockMask >>> i & 1) == 0) {
+                buffer[count++] = BoardState.square(tx, ty);
+            }
+        }
+        return copyOf(buffer, count);
+    }
+
+    /**
+     * Строит луч в направлении до первой неактивной клетки или стены.
+     */
+    private static int[] buildRay(int sq, int dir, WallController walls, int[] buffer) {
+        if (!BoardState.isActive(sq)) return NO_SQUARES;
+
+        int dx = MoveGenerator.DIRECTION_DX[dir], dy = MoveGenerator.DIRECTION_DY[dir];
+        int x = BoardState.fileOf(sq), y = BoardState.rankOf(sq);
+        int prev = sq, count = 0;
+        for (int step = 1; step < BoardState.SIZE; step++) {
+            int tx = x + dx * step, ty = y + dy * step;
+            if (!BoardState.isActive(tx, ty) || walls.isStepBlocked(prev, dir)) break;
+
+            prev = BoardState.square(tx, ty);
+            buffer[count++] = prev;
+        }
+        return copyOf(buffer, count);
+    }
+
+    /**
+     * Строит таблицы ходов и взятий пешек одной команды.
+     * Ходы вперед, как и в правилах Pawn, не проверяют стены; взятия проверяют.
+     */
+    private void buildPawnTables(int team, WallController walls, int[] buffer) {
+        int dx = MoveGenerator.PAWN_DX[team], dy = MoveGenerator.PAWN_DY[team];
+        int[] attackerCounts = new int[BoardState.SQUARES];
+        int[][] attackers = new int[BoardState.SQUARES][2];
+
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            pawnPushes[team][sq] = -1;
+            pawnDoublePushes[team][sq] = -1;
+            pawnCaptures[team][sq] = NO_SQUARES;
+            if (!BoardState.isActive(sq)) continue;
+
+            int x = BoardState.fileOf(sq), y = BoardState.rankOf(sq);
+            int fx = x + dx, fy = y + dy;
+            if (BoardState.isActive(fx, fy)) {
+                pawnPushes[team][sq] = BoardState.square(fx, fy);
+                if (BoardState.isActive(fx + dx, fy + dy)) {
+                    pawnDoublePushes[team][sq] = BoardState.square(fx + dx, fy + dy);
+                }
+            }
+
+            int count = 0;
+            for (int side = -1; side <= 1; side += 2) {
+                int tx = fx + side * dy, ty = fy + side * dx;
+                if (!BoardState.isActive(tx, ty) || walls.isStepBlocked(sq, MoveGenerator.directionOf(tx - x, ty - y))) {
+                    continue;
+                }
+                int to = BoardState.square(tx, ty);
+                buffer[count++] = to;
+                attackers[to][attackerCounts[to]++] = sq;
+            }
+            pawnCaptures[team][sq] = copyOf(buffer, count);
+        }
+
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            pawnAttackers[team][sq] = copyOf(attackers[sq], attackerCounts[sq]);
+        }
+    }
+
+    /**
+     * Копирует начало буфера в новый массив нужной длины.
+     */
+    private static int[] copyOf(int[] buffer, int count) {
+        if (count == 0) return NO_SQUARES;
+
+        int[] result = new int[count];
+        System.arraycopy(buffer, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Возвращает клетки, на которые может прыгнуть конь.
+     *
+     * @param sq клетка коня
+     * @return массив клеток (не изменять)
+     */
+    public int[] getKnightTargets(int sq) {
+        return knightTargets[sq];
+    }
+
+    /**
+     * Возвращает клетки, на которые может шагнуть король.
+     *
+     * @param sq клетка короля
+     * @return массив клеток (не изменять)
+     */
+    public int[] getKingTargets(int sq) {
+        return kingTargets[sq];
+    }
+
+    /**
+     * Возвращает клетку хода пешки вперед.
+     *
+     * @param team номер команды (1-4)
+     * @param sq клетка пешки
+     * @return клетка назначения или -1
+     */
+    public int getPawnPush(int team, int sq) {
+        return pawnPushes[team][sq];
+    }
+
+    /**
+     * Возвращает клетку хода пешки на две клетки вперед.
+     *
+     * @param team номер команды (1-4)
+     * @param sq клетка пешки
+     * @return клетка назначения или -1
+     */
+    public int getPawnDoublePush(int team, int sq) {
+        return pawnDoublePushes[team][sq];
+    }
+
+    /**
+     * Возвращает клетки, которые бьет пешка команды.
+     *
+     * @param team номер команды (1-4)
+     * @param sq клетка пешки
+     * @return массив клеток (не изменять)
+     */
+    public int[] getPawnCaptures(int team, int sq) {
+        return pawnCaptures[team][sq];
+    }
+
+    /**
+     * Возвращает клетки, с которых пешка команды бьет данную клетку.
+     *
+     * @param team номер команды (1-4)
+     * @param sq атакуемая клетка
+     * @return массив клеток (не изменять)
+     */
+    public int[] getPawnAttackers(int team, int sq) {
+        return pawnAttackers[team][sq];
+    }
+
+    /**
+     * Возвращает луч из клетки в заданном направлении.
+     * Луч не включает саму клетку и обрывается перед неактивной клеткой или стеной.
+     *
+     * @param dir направление (индекс в MoveGenerator.DIRECTION_DX/DY)
+     * @param sq начальная клетка
+     * @return массив клеток в порядке удаления (не изменять)
+     */
+    public int[] getRay(int dir, int sq) {
+        return rays[dir][sq];
+    }
+}
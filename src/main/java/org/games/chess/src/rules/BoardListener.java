@@ -0,0 +1,26 @@
+package org.games.chess.src.rules;
+
+/**
+ * Слушатель изменений клеток BoardState для инкрементальных вычислений (оценка, аккумуляторы сети).
+ * Вызывается при каждом изменении клетки, в том числе при отмене хода, поэтому сумма изменений
+ * всегда соответствует текущей позиции. Позиция хранит не более одного слушателя.
+ */
+public interface BoardListener {
+
+    /**
+     * Пересчитывает состояние слушателя по всей позиции.
+     * Вызывается при подключении слушателя, копировании и очистке позиции.
+     *
+     * @param state позиция
+     */
+    void reset(BoardState state);
+
+    /**
+     * Учитывает изменение клетки.
+     *
+     * @param sq индекс клетки
+     * @param oldCode прежний код фигуры
+     * @param newCode новый код фигуры
+     */
+    void pieceChanged(int sq, int oldCode, int newCode);
+}
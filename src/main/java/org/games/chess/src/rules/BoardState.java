@@ -0,0 +1,562 @@
+package org.games.chess.src.rules;
+
+import org.games.chess.src.GameConfig;
+import org.games.chess.src.board.Matrix;
+
+import java.util.Arrays;
+
+/**
+ * Примитивное представление позиции для генерации ходов и анализа.
+ * Хранит доску 16x16 как массив из 256 байтовых кодов фигур (см. Piece),
+ * номер команды, чей сейчас ход, маску выбывших команд и ключ Зобриста позиции (см. Zobrist),
+ * который обновляется при каждом изменении за O(1).
+ * Не зависит от GameObject и JavaFX, поэтому может копироваться и использоваться в фоновых потоках.
+ * <p>
+ * Ходы применяются методом makeMove и отменяются unmakeMove: каждое изменение клетки записывается
+ * в журнал отмены, поэтому анализ может обходить дерево ходов на одном объекте без копирования доски.
+ */
+public final class BoardState {
+
+    /**
+     * Размер доски в клетках
+     */
+    public static final int SIZE = GameConfig.BOARD_SIZE_IN_CELL;
+
+    /**
+     * Количество клеток доски
+     */
+    public static final int SQUARES = SIZE * SIZE;
+
+    /**
+     * Количество команд
+     */
+    public static final int TEAMS = 4;
+
+    /**
+     * Маска всех команд в формате маски выбывших команд
+     */
+    private static final int LIVE_TEAMS_MASK = 0b11110;
+
+    /**
+     * Маска нечетных команд (1 и 3)
+     */
+    private static final int ODD_TEAMS_MASK = 0b01010;
+
+    /**
+     * Маска четных команд (2 и 4)
+     */
+    private static final int EVEN_TEAMS_MASK = 0b10100;
+
+    /**
+     * Начальная емкость стека отмены в ходах
+     */
+    private static final int INITIAL_UNDO_PLIES = 64;
+
+    /**
+     * Начальная емкость журнала изменений клеток
+     */
+    private static final int INITIAL_UNDO_CHANGES = 512;
+
+    /**
+     * Количество полей записи хода в стеке отмены
+     */
+    private static final int UNDO_PLY_FIELDS = 3;
+
+    /**
+     * Маска активных клеток (бит на клетку, 4 слова по 64 клетки)
+     */
+    private static final long[] ACTIVE_MASK = buildActiveMask();
+
+    /**
+     * Коды фигур по клеткам, индекс клетки - y * SIZE + x
+     */
+    private final byte[] squares = new byte[SQUARES];
+
+    /**
+     * Номер команды, чей сейчас ход (1-4)
+     */
+    private int currentTeam = 1;
+
+    /**
+     * Маска выбывших команд (бит 1 << team)
+     */
+    private int eliminatedMask;
+
+    /**
+     * Ключ Зобриста позиции
+     */
+    private long key = Zobrist.team(1);
+
+    /**
+     * Журнал изменений клеток: индекс клетки в битах 0-7, прежний код фигуры в битах 8-15
+     */
+    private int[] undoChanges = new int[INITIAL_UNDO_CHANGES];
+
+    /**
+     * Количество записей в журнале изменений клеток
+     */
+    private int undoChangeCount;
+
+    /**
+     * Стек отмены по ходам: начало записей хода в журнале, прежняя команда и маска выбывших команд
+     */
+    private int[] undoPlies = new int[INITIAL_UNDO_PLIES * UNDO_PLY_FIELDS];
+
+    /**
+     * Ключи позиции перед каждым ходом стека отмены
+     */
+    private long[] undoKeys = new long[INITIAL_UNDO_PLIES];
+
+    /**
+     * Количество сделанных и еще не отмененных ходов
+     */
+    private int ply;
+
+    /**
+     * Слушатель изменений клеток (не копируется в другие позиции)
+     */
+    private BoardListener listener;
+
+    /**
+     * Создает пустую позицию, ход первой команды.
+     */
+    public BoardState() {
+    }
+
+    /**
+     * Создает копию позиции.
+     *
+     * @param other позиция для копирования
+     */
+    public BoardState(BoardState other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Строит маску активных клеток по тем же правилам, что и Matrix.
+     *
+     * @return маска активных клеток
+     */
+    private static long[] buildActiveMask() {
+        long[] mask = new long[SQUARES / 64];
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                if (Matrix.isPositionActiveFortress(x, y) || Matrix.isPositionActiveBoard(x, y)) {
+                    int sq = square(x, y);
+                    mask[sq >>> 6] |= 1L << sq;
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Возвращает индекс клетки по координатам.
+     *
+     * @param x координата X
+     * @param y координата Y
+     * @return индекс клетки (0-255)
+     */
+    public static int square(int x, int y) {
+        return y * SIZE + x;
+    }
+
+    /**
+     * Возвращает координату X клетки.
+     *
+     * @param sq индекс клетки
+     * @return координата X
+     */
+    public static int fileOf(int sq) {
+        return sq % SIZE;
+    }
+
+    /**
+     * Возвращает координату Y клетки.
+     *
+     * @param sq индекс клетки
+     * @return координата Y
+     */
+    public static int rankOf(int sq) {
+        return sq / SIZE;
+    }
+
+    /**
+     * Проверяет, находятся ли координаты в пределах доски.
+     *
+     * @param x координата X
+     * @param y координата Y
+     * @return true если клетка существует
+     */
+    public static boolean isOnBoard(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+
+    /**
+     * Проверяет, активна ли клетка (входит в основную доску или крепость).
+     *
+     * @param sq индекс клетки
+     * @return true если клетка активна
+     */
+    public static boolean isActive(int sq) {
+        return (ACTIVE_MASK[sq >>> 6] >>> sq & 1L) != 0;
+    }
+
+    /**
+     * Проверяет, активна ли клетка по координатам (с проверкой границ).
+     *
+     * @param x координата X
+     * @param y координата Y
+     * @return true если клетка существует и активна
+     */
+    public static boolean isActive(int x, int y) {
+        return isOnBoard(x, y) && isActive(square(x, y));
+    }
+
+    /**
+     * Копирует в эту позицию содержимое другой позиции.
+     *
+     * @param other позиция-источник
+     */
+    public void copyFrom(BoardState other) {
+        System.arraycopy(other.squares, 0, squares, 0, SQUARES);
+        currentTeam = other.currentTeam;
+        eliminatedMask = other.eliminatedMask;
+        key = other.key;
+        clearHistory();
+        if (listener != null) listener.reset(this);
+    }
+
+    /**
+     * Возвращает код фигуры на клетке.
+     *
+     * @param sq индекс клетки
+     * @return код фигуры или Piece.EMPTY
+     */
+    public int getPiece(int sq) {
+        return squares[sq];
+    }
+
+    /**
+     * Возвращает код фигуры по координатам.
+     *
+     * @param x координата X
+     * @param y координата Y
+     * @return код фигуры или Piece.EMPTY
+     */
+    public int getPiece(int x, int y) {
+        return squares[square(x, y)];
+    }
+
+    /**
+     * Устанавливает фигуру на клетку (Piece.EMPTY очищает клетку).
+     *
+     * @param sq индекс клетки
+     * @param code код фигуры
+     */
+    public void setPiece(int sq, int code) {
+        key ^= Zobrist.piece(squares[sq], sq) ^ Zobrist.piece(code, sq);
+        if (listener != null) listener.pieceChanged(sq, squares[sq], code);
+        squares[sq] = (byte) code;
+    }
+
+    /**
+     * Очищает клетку.
+     *
+     * @param sq индекс клетки
+     */
+    public void clearSquare(int sq) {
+        setPiece(sq, Piece.EMPTY);
+    }
+
+    /**
+     * Очищает всю доску и сбрасывает состояние команд.
+     */
+    public void clear() {
+        Arrays.fill(squares, (byte) Piece.EMPTY);
+        currentTeam = 1;
+        eliminatedMask = 0;
+        key = Zobrist.team(1);
+        clearHistory();
+        if (listener != null) listener.reset(this);
+    }
+
+    /**
+     * Подключает слушателя изменений клеток и сразу пересчитывает его состояние по позиции.
+     *
+     * @param listener слушатель или null, чтобы отключить
+     */
+    public void setListener(BoardListener listener) {
+        this.listener = listener;
+        if (listener != null) listener.reset(this);
+    }
+
+    /**
+     * Возвращает слушателя изменений клеток.
+     *
+     * @return слушатель или null
+     */
+    public BoardListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Забывает сделанные ходы: после вызова текущая позиция становится исходной для unmakeMove.
+     */
+    public void clearHistory() {
+        ply = 0;
+        undoChangeCount = 0;
+    }
+
+    /**
+     * Возвращает количество сделанных и еще не отмененных ходов.
+     *
+     * @return глубина стека отмены
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Возвращает номер команды, чей сейчас ход.
+     *
+     * @return номер команды (1-4)
+     */
+    public int getCurrentTeam() {
+        return currentTeam;
+    }
+
+    /**
+     * Устанавливает номер команды, чей сейчас ход.
+     *
+     * @param team номер команды (1-4)
+     */
+    public void setCurrentTeam(int team) {
+        key ^= Zobrist.team(currentTeam) ^ Zobrist.team(team);
+        currentTeam = team;
+    }
+
+    /**
+     * Проверяет, выбыла ли команда из игры.
+     *
+     * @param team номер команды (1-4)
+     * @return true если команда выбыла
+     */
+    public boolean isTeamEliminated(int team) {
+        return (eliminatedMask & 1 << team) != 0;
+    }
+
+    /**
+     * Помечает команду выбывшей или возвращает ее в игру.
+     *
+     * @param team номер команды (1-4)
+     * @param eliminated флаг выбывания
+     */
+    public void setTeamEliminated(int team, boolean eliminated) {
+        int mask = eliminated ? eliminatedMask | 1 << team : eliminatedMask & ~(1 << team);
+        key ^= Zobrist.eliminated(eliminatedMask) ^ Zobrist.eliminated(mask);
+        eliminatedMask = mask;
+    }
+
+    /**
+     * Возвращает маску выбывших команд (бит 1 << team).
+     *
+     * @return маска выбывших команд
+     */
+    public int getEliminatedMask() {
+        return eliminatedMask;
+    }
+
+    /**
+     * Возвращает ключ Зобриста позиции.
+     *
+     * @return 64-битный ключ
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Возвращает канонический ключ позиции - общий для всех четырех ее поворотов (Symmetry.canonicalKey).
+     * Вычисляется из текущего ключа за несколько операций.
+     *
+     * @return канонический ключ Zobrist
+     */
+    public long getCanonicalKey() {
+        return Symmetry.canonicalKey(this);
+    }
+
+    /**
+     * Делает ход по тем же правилам, что и FigureManager.handleEndMove, с возможностью отмены.
+     * Взятие короля выводит его команду из игры вместе со всеми ее фигурами.
+     * Первый ход короля, после которого рядом с ним в направлении рокировки стоит
+     * еще не ходившая ладья, перебрасывает ладью за короля (King.checkRook/moveRook);
+     * флаг первого хода короля при этом сохраняется, как и в игре.
+     * После хода ход передается следующей не выбывшей команде.
+     * <p>
+     * Обычный ход записывает в журнал отмены не больше четырех клеток; взятие короля - еще по
+     * клетке на каждую снятую фигуру его команды.
+     *
+     * @param move упакованный ход (см. Move)
+     */
+    public void makeMove(int move) {
+        pushPly();
+
+        int from = Move.from(move), to = Move.to(move);
+        int code = squares[from];
+        put(from, Piece.EMPTY);
+
+        capture(to);
+
+        int rookFrom = Piece.isFirstStep(code) && Piece.typeOf(code) == Piece.KING ? findHideRook(to, code) : -1;
+        if (rookFrom >= 0) {
+            put(to, code);
+            int rook = squares[rookFrom];
+            int rookTo = 2 * to - rookFrom;
+            put(rookFrom, Piece.EMPTY);
+            capture(rookTo);
+            put(rookTo, Piece.withoutFirstStep(rook));
+        } else {
+            put(to, Piece.withoutFirstStep(code));
+        }
+
+        setCurrentTeam(nextTeam(currentTeam));
+    }
+
+    /**
+     * Пропускает ход текущей команды (например, если у нее нет ходов) с возможностью отмены.
+     */
+    public void makeNullMove() {
+        pushPly();
+        setCurrentTeam(nextTeam(currentTeam));
+    }
+
+    /**
+     * Отменяет последний сделанный ход: возвращает взятые фигуры, флаги первого хода,
+     * переброшенную ладью, команду, чей ход, и выбывшие команды.
+     *
+     * @throws IllegalStateException если нет хода для отмены
+     */
+    public void unmakeMove() {
+        if (ply == 0) throw new IllegalStateException("Нет хода для отмены");
+
+        int base = --ply * UNDO_PLY_FIELDS;
+        int changeStart = undoPlies[base];
+        while (undoChangeCount > changeStart) {
+            int change = undoChanges[--undoChangeCount];
+            int sq = change & 0xFF;
+            byte code = (byte) (change >>> 8);
+            if (listener != null) listener.pieceChanged(sq, squares[sq], code);
+            squares[sq] = code;
+        }
+        currentTeam = undoPlies[base + 1];
+        eliminatedMask = undoPlies[base + 2];
+        key = undoKeys[ply];
+    }
+
+    /**
+     * Сохраняет в стеке отмены состояние перед ходом.
+     */
+    private void pushPly() {
+        int base = ply * UNDO_PLY_FIELDS;
+        if (base == undoPlies.length) {
+            undoPlies = Arrays.copyOf(undoPlies, base * 2);
+            undoKeys = Arrays.copyOf(undoKeys, ply * 2);
+        }
+
+        undoPlies[base] = undoChangeCount;
+        undoPlies[base + 1] = currentTeam;
+        undoPlies[base + 2] = eliminatedMask;
+        undoKeys[ply] = key;
+        ply++;
+    }
+
+    /**
+     * Записывает фигуру на клетку, сохраняя прежний код в журнале отмены.
+     *
+     * @param sq индекс клетки
+     * @param code новый код фигуры
+     */
+    private void put(int sq, int code) {
+        if (undoChangeCount == undoChanges.length) undoChanges = Arrays.copyOf(undoChanges, undoChangeCount * 2);
+
+        undoChanges[undoChangeCount++] = sq | squares[sq] << 8;
+        setPiece(sq, code);
+    }
+
+    /**
+     * Снимает фигуру с клетки как взятую. Взятие короля выводит его команду из игры.
+     *
+     * @param sq клетка взятия
+     */
+    private void capture(int sq) {
+        int captured = squares[sq];
+        if (captured == Piece.EMPTY) return;
+
+        put(sq, Piece.EMPTY);
+        if (Piece.typeOf(captured) == Piece.KING) {
+            eliminateTeam(Piece.teamOf(captured));
+        }
+    }
+
+    /**
+     * Ищет ладью, которую нужно перебросить после первого хода короля.
+     * Как и King.checkRook, проверяет соседнюю клетку в направлении рокировки команды короля:
+     * на ней должна стоять еще не ходившая ладья, а клетка за королем должна существовать и быть активной.
+     *
+     * @param kingSq клетка короля после хода
+     * @param king код короля
+     * @return клетка ладьи или -1, если переброски нет
+     */
+    private int findHideRook(int kingSq, int king) {
+        int team = Piece.teamOf(king);
+        int x = fileOf(kingSq), y = rankOf(kingSq);
+        int dx = MoveGenerator.CASTLING_DX[team], dy = MoveGenerator.CASTLING_DY[team];
+        if (!isActive(x + dx, y + dy) || !isActive(x - dx, y - dy)) return -1;
+
+        int rookSq = square(x + dx, y + dy);
+        int rook = squares[rookSq];
+        return Piece.typeOf(rook) == Piece.ROOK && Piece.isFirstStep(rook) ? rookSq : -1;
+    }
+
+    /**
+     * Выводит команду из игры и снимает все ее фигуры с доски (FigureManager.setLosingTeam).
+     *
+     * @param team номер команды (1-4)
+     */
+    private void eliminateTeam(int team) {
+        setTeamEliminated(team, true);
+        for (int sq = 0; sq < SQUARES; sq++) {
+            if (squares[sq] != Piece.EMPTY && Piece.teamOf(squares[sq]) == team) {
+                put(sq, Piece.EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Возвращает следующую за указанной не выбывшую команду в порядке 1→2→3→4→1.
+     *
+     * @param team номер команды (1-4)
+     * @return номер следующей команды
+     */
+    public int nextTeam(int team) {
+        int next = team % TEAMS + 1;
+        for (int attempts = 0; attempts < TEAMS && isTeamEliminated(next); attempts++) {
+            next = next % TEAMS + 1;
+        }
+        return next;
+    }
+
+    /**
+     * Проверяет условие окончания игры (FigureManager.checkGameEndCondition):
+     * выбыли хотя бы две команды и все оставшиеся команды одной четности.
+     *
+     * @return true если игра окончена
+     */
+    public boolean isGameOver() {
+        int live = ~eliminatedMask & LIVE_TEAMS_MASK;
+        boolean allOdd = (live & EVEN_TEAMS_MASK) == 0;
+        boolean allEven = (live & ODD_TEAMS_MASK) == 0;
+        return (allOdd || allEven) && Integer.bitCount(eliminatedMask & LIVE_TEAMS_MASK) >= 2;
+    }
+}
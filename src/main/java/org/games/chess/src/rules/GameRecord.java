@@ -0,0 +1,124 @@
+package org.games.chess.src.rules;
+
+/**
+ * Компактный двоичный формат записи партий (GameRecordWriter, GameRecordReader).
+ * Партии дописываются в конец файла по мере игры, поэтому длина партии заранее неизвестна:
+ * каждая партия начинается маркером начала, а заканчивается маркером конца с результатом.
+ * <p>
+ * Формат файла: заголовок из двух int (little-endian) - MAGIC и VERSION, затем партии подряд.
+ * Партия:
+ * <ul>
+ *     <li>маркер MARKER, TAG_GAME;</li>
+ *     <li>байт флагов (FLAG_CLOCKS) и long времени начала партии (мс с эпохи Unix, little-endian);</li>
+ *     <li>с FLAG_CLOCKS - контроль времени: varint начального запаса и varint добавки за ход (мс);</li>
+ *     <li>начальная позиция: байт команды, чей ход, байт маски выбывших команд (бит 1 &lt;&lt; team),
+ *     байт количества фигур и по два байта на фигуру - клетка и код (Piece, с флагом первого хода);</li>
+ *     <li>ходы: два байта - клетка отправления и клетка назначения (флаги и взятая фигура
+ *     восстанавливаются BoardState.makeMove); пропуск хода - MARKER, TAG_PASS;
+ *     с FLAG_CLOCKS после хода или пропуска - varint затраченного на ход времени (мс);</li>
+ *     <li>маркер MARKER, TAG_END и байт результата (RESULT_*).</li>
+ * </ul>
+ * MARKER - неактивная клетка доски, поэтому ход никогда не начинается с этого байта.
+ * Партия без маркера конца (программа закрыта посреди партии) читается как незаконченная:
+ * ее ходы заканчиваются маркером начала следующей партии или концом файла.
+ * Varint - 7 бит на байт, младшие первыми, старший бит байта - признак продолжения.
+ */
+public final class GameRecord {
+
+    /**
+     * Сигнатура файла партий ("GREC")
+     */
+    public static final int MAGIC = 0x43455247;
+
+    /**
+     * Версия формата
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Размер заголовка файла в байтах
+     */
+    public static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * Первый байт служебной записи (на месте клетки отправления хода): первая неактивная клетка доски
+     */
+    public static final int MARKER = firstInactiveSquare();
+
+    /**
+     * Служебная запись: начало партии
+     */
+    public static final int TAG_GAME = 1;
+
+    /**
+     * Служебная запись: пропуск хода
+     */
+    public static final int TAG_PASS = 2;
+
+    /**
+     * Служебная запись: конец партии
+     */
+    public static final int TAG_END = 3;
+
+    /**
+     * Флаг партии: после каждого хода записано затраченное время
+     */
+    public static final int FLAG_CLOCKS = 1;
+
+    /**
+     * Результат: ничья
+     */
+    public static final int RESULT_DRAW = 0;
+
+    /**
+     * Результат: победа коалиции команд 1 и 3
+     */
+    public static final int RESULT_ODD = 1;
+
+    /**
+     * Результат: победа коалиции команд 2 и 4
+     */
+    public static final int RESULT_EVEN = 2;
+
+    /**
+     * Результат: партия не доиграна (рестарт, закрытие программы)
+     */
+    public static final int RESULT_UNFINISHED = 3;
+
+    private GameRecord() {
+    }
+
+    /**
+     * Ищет первую неактивную клетку доски для маркера служебных записей.
+     */
+    private static int firstInactiveSquare() {
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            if (!BoardState.isActive(sq)) return sq;
+        }
+        throw new IllegalStateException("На доске нет неактивных клеток");
+    }
+
+    /**
+     * Возвращает результат партии по победившей коалиции (HeadlessGame.Outcome.getWinner).
+     *
+     * @param winner 1 - команды 1 и 3, 2 - команды 2 и 4, 0 - ничья
+     * @return результат RESULT_*
+     */
+    public static int resultOf(int winner) {
+        return switch (winner) {
+            case 1 -> RESULT_ODD;
+            case 2 -> RESULT_EVEN;
+            default -> RESULT_DRAW;
+        };
+    }
+
+    /**
+     * Возвращает результат партии, в которой победила коалиция команды.
+     *
+     * @param team номер команды (1-4)
+     * @return RESULT_ODD или RESULT_EVEN
+     */
+    public static int resultOfTeam(int team) {
+        return team % 2 == 1 ? RESULT_ODD : RESULT_EVEN;
+    }
+}
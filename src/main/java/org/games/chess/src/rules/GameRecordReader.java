@@ -0,0 +1,459 @@
+package org.games.chess.src.rules;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Потоковое чтение файла партий в формате GameRecord.
+ * Партии читаются по одной (next) в переиспользуемые массивы: начальная позиция - списком фигур,
+ * ходы - упакованными ходами Move с клетками отправления и назначения (без флагов и взятой фигуры;
+ * BoardState.makeMove восстанавливает их сам). Чтение не создает объектов на партию и не строит
+ * позицию, пока ее не попросят (getStartState), поэтому просмотр файла упирается только в скорость диска.
+ * Данные текущей партии действительны до следующего вызова next.
+ * Незаконченная партия (нет маркера конца) читается с результатом GameRecord.RESULT_UNFINISHED;
+ * обрезанная последняя запись файла (программа закрыта во время записи) отбрасывается.
+ * Объект не потокобезопасен.
+ */
+public class GameRecordReader implements Closeable {
+
+    /**
+     * Размер буфера чтения в байтах
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Источник данных
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * Буфер чтения
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Прочитан ли уже маркер начала следующей партии (предыдущая партия не закончена)
+     */
+    private boolean gamePending;
+
+    /**
+     * Достигнут ли конец данных
+     */
+    private boolean eof;
+
+    /**
+     * Флаги текущей партии
+     */
+    private int flags;
+
+    /**
+     * Время начала текущей партии (мс с эпохи Unix)
+     */
+    private long startTime;
+
+    /**
+     * Начальный запас времени команды (мс)
+     */
+    private long initialMillis;
+
+    /**
+     * Добавка за ход (мс)
+     */
+    private long incrementMillis;
+
+    /**
+     * Команда, чей ход в начальной позиции
+     */
+    private int startTeam;
+
+    /**
+     * Маска выбывших команд начальной позиции
+     */
+    private int startEliminatedMask;
+
+    /**
+     * Количество фигур начальной позиции
+     */
+    private int pieceCount;
+
+    /**
+     * Клетки фигур начальной позиции
+     */
+    private final int[] pieceSquares = new int[BoardState.SQUARES];
+
+    /**
+     * Коды фигур начальной позиции
+     */
+    private final int[] pieceCodes = new int[BoardState.SQUARES];
+
+    /**
+     * Количество ходов текущей партии
+     */
+    private int moveCount;
+
+    /**
+     * Ходы текущей партии (Move.NONE - пропуск хода)
+     */
+    private int[] moves = new int[256];
+
+    /**
+     * Время ходов текущей партии (мс), если оно записано
+     */
+    private long[] millis = new long[256];
+
+    /**
+     * Результат текущей партии (GameRecord.RESULT_*)
+     */
+    private int result;
+
+    /**
+     * Количество прочитанных партий
+     */
+    private long gameCount;
+
+    /**
+     * Создает чтение и проверяет заголовок файла.
+     *
+     * @param channel источник данных, стоящий в начале файла
+     * @throws IOException при ошибке чтения или если данные не в формате GameRecord
+     */
+    public GameRecordReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.flip();
+        if (!request(GameRecord.HEADER_BYTES) || buffer.getInt() != GameRecord.MAGIC) {
+            throw new IOException("Не файл партий");
+        }
+        int version = buffer.getInt();
+        if (version != GameRecord.VERSION) throw new IOException("Неподдерживаемая версия файла партий: " + version);
+    }
+
+    /**
+     * Открывает файл партий.
+     *
+     * @param path путь к файлу
+     * @return чтение партий
+     * @throws IOException при ошибке чтения или неверном формате
+     */
+    public static GameRecordReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new GameRecordReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Проверяет заголовок файла партий, открытого для дописывания (GameRecordWriter.append).
+     *
+     * @param channel файл партий
+     * @param path путь к файлу для сообщения об ошибке
+     * @throws IOException при ошибке чтения или если файл не в формате GameRecord
+     */
+    static void checkHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(GameRecord.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) break;
+        }
+        if (header.hasRemaining() || header.getInt(0) != GameRecord.MAGIC) {
+            throw new IOException("Не файл партий: " + path);
+        }
+        int version = header.getInt(Integer.BYTES);
+        if (version != GameRecord.VERSION) throw new IOException("Неподдерживаемая версия файла партий: " + version);
+    }
+
+    /**
+     * Читает следующую партию.
+     *
+     * @return true если партия прочитана, false если партий больше нет
+     * @throws IOException при ошибке чтения или поврежденных данных
+     */
+    public boolean next() throws IOException {
+        if (!gamePending) {
+            int marker = read();
+            if (marker < 0) return false;
+            if (marker != GameRecord.MARKER || read() != GameRecord.TAG_GAME) {
+                throw new IOException("Нет начала партии после партии " + gameCount);
+            }
+        }
+        gamePending = false;
+        if (!readHeader()) return false;
+
+        moveCount = 0;
+        result = GameRecord.RESULT_UNFINISHED;
+        boolean clocks = hasClocks();
+        while (true) {
+            int from = read();
+            if (from < 0) break;
+
+            int move;
+            if (from == GameRecord.MARKER) {
+                int tag = read();
+                if (tag == GameRecord.TAG_PASS) {
+                    move = Move.NONE;
+                } else if (tag == GameRecord.TAG_END) {
+                    int value = read();
+                    if (value >= 0) result = value;
+                    break;
+                } else if (tag == GameRecord.TAG_GAME) {
+                    gamePending = true;
+                    break;
+                } else if (tag < 0) {
+                    break;
+                } else {
+                    throw new IOException("Неизвестная запись " + tag + " в партии " + gameCount);
+                }
+            } else {
+                int to = read();
+                if (to < 0) break;
+                move = Move.encode(from, to, 0, Piece.EMPTY);
+            }
+
+            long time = 0;
+            if (clocks && (time = readVarLong()) < 0) break;
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moveCount * 2);
+                millis = Arrays.copyOf(millis, moveCount * 2);
+            }
+            moves[moveCount] = move;
+            millis[moveCount] = time;
+            moveCount++;
+        }
+        gameCount++;
+        return true;
+    }
+
+    /**
+     * Читает заголовок партии и начальную позицию.
+     *
+     * @return false если файл обрезан посреди заголовка
+     */
+    private boolean readHeader() throws IOException {
+        flags = read();
+        if (flags < 0 || !request(Long.BYTES)) return false;
+        startTime = buffer.getLong();
+        if (hasClocks()) {
+            initialMillis = readVarLong();
+            incrementMillis = readVarLong();
+            if (initialMillis < 0 || incrementMillis < 0) return false;
+        } else {
+            initialMillis = incrementMillis = 0;
+        }
+
+        startTeam = read();
+        startEliminatedMask = read();
+        pieceCount = read();
+        if (pieceCount < 0) return false;
+        if (startTeam < 1 || startTeam > BoardState.TEAMS) {
+            throw new IOException("Неверная команда " + startTeam + " в партии " + gameCount);
+        }
+        if (!request(2 * pieceCount)) return false;
+        for (int i = 0; i < pieceCount; i++) {
+            pieceSquares[i] = buffer.get() & 0xFF;
+            pieceCodes[i] = buffer.get() & 0xFF;
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет, записано ли время ходов текущей партии.
+     *
+     * @return true если getMillis возвращает время ходов
+     */
+    public boolean hasClocks() {
+        return (flags & GameRecord.FLAG_CLOCKS) != 0;
+    }
+
+    /**
+     * Возвращает время начала текущей партии.
+     *
+     * @return мс с эпохи Unix
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Возвращает начальный запас времени команды.
+     *
+     * @return мс (0 - без контроля времени или время не записано)
+     */
+    public long getInitialMillis() {
+        return initialMillis;
+    }
+
+    /**
+     * Возвращает добавку времени за ход.
+     *
+     * @return мс
+     */
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    /**
+     * Возвращает команду, чей ход в начальной позиции.
+     *
+     * @return номер команды (1-4)
+     */
+    public int getStartTeam() {
+        return startTeam;
+    }
+
+    /**
+     * Возвращает количество фигур начальной позиции.
+     *
+     * @return количество фигур
+     */
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    /**
+     * Возвращает клетку фигуры начальной позиции.
+     *
+     * @param index номер фигуры (0 - getPieceCount() - 1)
+     * @return индекс клетки
+     */
+    public int getPieceSquare(int index) {
+        return pieceSquares[index];
+    }
+
+    /**
+     * Возвращает код фигуры начальной позиции.
+     *
+     * @param index номер фигуры (0 - getPieceCount() - 1)
+     * @return код фигуры (Piece)
+     */
+    public int getPieceCode(int index) {
+        return pieceCodes[index];
+    }
+
+    /**
+     * Записывает в target начальную позицию текущей партии. Журнал отмены target очищается.
+     *
+     * @param target позиция для результата
+     */
+    public void getStartState(BoardState target) {
+        target.clear();
+        for (int i = 0; i < pieceCount; i++) {
+            target.setPiece(pieceSquares[i], pieceCodes[i]);
+        }
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            target.setTeamEliminated(team, (startEliminatedMask & 1 << team) != 0);
+        }
+        target.setCurrentTeam(startTeam);
+        target.clearHistory();
+    }
+
+    /**
+     * Возвращает количество ходов текущей партии (вместе с пропусками).
+     *
+     * @return количество полуходов
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Возвращает ход текущей партии: клетки отправления и назначения без флагов и взятой фигуры.
+     *
+     * @param index номер полухода (0 - getMoveCount() - 1)
+     * @return упакованный ход или Move.NONE для пропуска хода (BoardState.makeNullMove)
+     */
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Возвращает время, затраченное на ход.
+     *
+     * @param index номер полухода (0 - getMoveCount() - 1)
+     * @return мс (0, если время не записано)
+     */
+    public long getMillis(int index) {
+        return millis[index];
+    }
+
+    /**
+     * Возвращает результат текущей партии.
+     *
+     * @return результат GameRecord.RESULT_*
+     */
+    public int getResult() {
+        return result;
+    }
+
+    /**
+     * Возвращает количество прочитанных партий.
+     *
+     * @return количество партий, включая текущую
+     */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Закрывает источник данных.
+     *
+     * @throws IOException при ошибке закрытия
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Читает байт.
+     *
+     * @return байт (0-255) или -1 в конце данных
+     */
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !request(1)) return -1;
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Читает неотрицательное число в формате varint.
+     *
+     * @return число или -1 в конце данных
+     */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            int b = read();
+            if (b < 0) return -1;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Неверное число в партии " + gameCount);
+    }
+
+    /**
+     * Дочитывает в буфер данные, чтобы в нем было не меньше bytes непрочитанных байт.
+     *
+     * @return false если данные закончились раньше
+     */
+    private boolean request(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return true;
+        if (eof) return false;
+
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                eof = true;
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+}
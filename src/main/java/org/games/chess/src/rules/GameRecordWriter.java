@@ -0,0 +1,299 @@
+package org.games.chess.src.rules;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись партий в двоичном формате GameRecord.
+ * Партия пишется по частям по мере игры: startGame, затем writeMove после каждого хода и endGame.
+ * Записи копятся в буфере и уходят в файл при его заполнении, по flush и при закрытии;
+ * с автосбросом (autoFlush) каждая запись сразу дописывается в файл, и закрытая посреди партии
+ * программа теряет не больше текущего хода.
+ * Объект не потокобезопасен: при записи из нескольких потоков вызовы синхронизирует вызывающий.
+ */
+public class GameRecordWriter implements Closeable {
+
+    /**
+     * Размер буфера записи в байтах
+     */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /**
+     * Наибольший размер одной записи: начало партии со всеми 192 фигурами
+     */
+    private static final int MAX_RECORD_BYTES = 2 + 1 + Long.BYTES + 2 * 10 + 3 + 2 * BoardState.SQUARES;
+
+    /**
+     * Файл партий
+     */
+    private final FileChannel channel;
+
+    /**
+     * Буфер записи
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Дописывать ли каждую запись в файл сразу
+     */
+    private final boolean autoFlush;
+
+    /**
+     * Записывается ли время ходов текущей партии
+     */
+    private boolean clocks;
+
+    /**
+     * Начата ли партия, которая еще не закончена
+     */
+    private boolean gameOpen;
+
+    /**
+     * Создает запись над открытым файлом, позиция которого стоит в конце файла.
+     *
+     * @param channel файл партий
+     * @param autoFlush true чтобы дописывать каждую запись сразу
+     */
+    private GameRecordWriter(FileChannel channel, boolean autoFlush) {
+        this.channel = channel;
+        this.autoFlush = autoFlush;
+    }
+
+    /**
+     * Создает новый файл партий (существующий файл перезаписывается).
+     *
+     * @param path путь к файлу
+     * @param autoFlush true чтобы дописывать каждую запись сразу
+     * @return запись партий
+     * @throws IOException при ошибке записи
+     */
+    public static GameRecordWriter create(Path path, boolean autoFlush) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        GameRecordWriter writer = new GameRecordWriter(channel, autoFlush);
+        writer.writeHeader();
+        return writer;
+    }
+
+    /**
+     * Открывает файл партий для дописывания; если файла нет или он пуст, создает его.
+     *
+     * @param path путь к файлу
+     * @param autoFlush true чтобы дописывать каждую запись сразу
+     * @return запись партий
+     * @throws IOException при ошибке чтения или записи, если файл не в формате GameRecord
+     */
+    public static GameRecordWriter append(Path path, boolean autoFlush) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            GameRecordWriter writer = new GameRecordWriter(channel, autoFlush);
+            if (channel.size() == 0) {
+                writer.writeHeader();
+            } else {
+                GameRecordReader.checkHeader(channel, path);
+                channel.position(channel.size());
+            }
+            return writer;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Записывает заголовок файла.
+     */
+    private void writeHeader() throws IOException {
+        buffer.putInt(GameRecord.MAGIC).putInt(GameRecord.VERSION);
+        flush();
+    }
+
+    /**
+     * Начинает партию без записи времени ходов.
+     *
+     * @param start начальная позиция
+     * @param startTime время начала партии (мс с эпохи Unix)
+     * @throws IOException при ошибке записи
+     */
+    public void startGame(BoardState start, long startTime) throws IOException {
+        startGame(start, startTime, false, 0, 0);
+    }
+
+    /**
+     * Начинает партию с записью времени каждого хода (writeMove с временем).
+     *
+     * @param start начальная позиция
+     * @param startTime время начала партии (мс с эпохи Unix)
+     * @param initialMillis начальный запас времени команды (0 - без контроля времени)
+     * @param incrementMillis добавка за ход
+     * @throws IOException при ошибке записи
+     */
+    public void startGame(BoardState start, long startTime, long initialMillis, long incrementMillis)
+            throws IOException {
+        startGame(start, startTime, true, initialMillis, incrementMillis);
+    }
+
+    /**
+     * Записывает начало партии и начальную позицию. Незаконченная предыдущая партия остается
+     * незаконченной (RESULT_UNFINISHED при чтении).
+     */
+    private void startGame(BoardState start, long startTime, boolean clocks, long initialMillis,
+                           long incrementMillis) throws IOException {
+        ensureCapacity(MAX_RECORD_BYTES);
+        buffer.put((byte) GameRecord.MARKER).put((byte) GameRecord.TAG_GAME);
+        buffer.put((byte) (clocks ? GameRecord.FLAG_CLOCKS : 0)).putLong(startTime);
+        if (clocks) {
+            putVarLong(initialMillis);
+            putVarLong(incrementMillis);
+        }
+
+        buffer.put((byte) start.getCurrentTeam()).put((byte) start.getEliminatedMask());
+        int countPosition = buffer.position();
+        buffer.put((byte) 0);
+        int count = 0;
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int code = start.getPiece(sq);
+            if (code == Piece.EMPTY) continue;
+            buffer.put((byte) sq).put((byte) code);
+            count++;
+        }
+        buffer.put(countPosition, (byte) count);
+
+        this.clocks = clocks;
+        gameOpen = true;
+        written();
+    }
+
+    /**
+     * Записывает ход партии без записи времени.
+     *
+     * @param move упакованный ход или Move.NONE для пропуска хода
+     * @throws IOException при ошибке записи
+     */
+    public void writeMove(int move) throws IOException {
+        writeMove(move, 0);
+    }
+
+    /**
+     * Записывает ход партии. Время пишется, только если партия начата с записью времени.
+     *
+     * @param move упакованный ход или Move.NONE для пропуска хода
+     * @param millis время, затраченное на ход (мс, не меньше 0)
+     * @throws IOException при ошибке записи
+     * @throws IllegalStateException если партия не начата
+     */
+    public void writeMove(int move, long millis) throws IOException {
+        if (!gameOpen) throw new IllegalStateException("Партия не начата");
+
+        ensureCapacity(2 + 10);
+        if (move == Move.NONE) {
+            buffer.put((byte) GameRecord.MARKER).put((byte) GameRecord.TAG_PASS);
+        } else {
+            int from = Move.from(move);
+            if (from == GameRecord.MARKER) throw new IllegalArgumentException("Ход с неактивной клетки: " + Move.toString(move));
+            buffer.put((byte) from).put((byte) Move.to(move));
+        }
+        if (clocks) putVarLong(Math.max(0, millis));
+        written();
+    }
+
+    /**
+     * Записывает конец партии.
+     *
+     * @param result результат (GameRecord.RESULT_*)
+     * @throws IOException при ошибке записи
+     * @throws IllegalStateException если партия не начата
+     */
+    public void endGame(int result) throws IOException {
+        if (!gameOpen) throw new IllegalStateException("Партия не начата");
+
+        ensureCapacity(3);
+        buffer.put((byte) GameRecord.MARKER).put((byte) GameRecord.TAG_END).put((byte) result);
+        gameOpen = false;
+        written();
+    }
+
+    /**
+     * Записывает партию целиком.
+     *
+     * @param start начальная позиция
+     * @param startTime время начала партии (мс с эпохи Unix)
+     * @param moves ходы партии (Move.NONE - пропуск хода)
+     * @param result результат (GameRecord.RESULT_*)
+     * @throws IOException при ошибке записи
+     */
+    public void writeGame(BoardState start, long startTime, int[] moves, int result) throws IOException {
+        startGame(start, startTime);
+        for (int move : moves) {
+            writeMove(move);
+        }
+        endGame(result);
+    }
+
+    /**
+     * Проверяет, начата ли партия, которая еще не закончена.
+     *
+     * @return true между startGame и endGame
+     */
+    public boolean isGameOpen() {
+        return gameOpen;
+    }
+
+    /**
+     * Дописывает накопленные записи в файл.
+     *
+     * @throws IOException при ошибке записи
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Дописывает накопленные записи и закрывает файл. Незаконченная партия остается незаконченной.
+     *
+     * @throws IOException при ошибке записи
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Сбрасывает буфер после записи, если включен автосброс.
+     */
+    private void written() throws IOException {
+        if (autoFlush) flush();
+    }
+
+    /**
+     * Освобождает в буфере место под запись.
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    /**
+     * Записывает неотрицательное число в формате varint.
+     */
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
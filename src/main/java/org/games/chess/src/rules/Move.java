@@ -0,0 +1,107 @@
+package org.games.chess.src.rules;
+
+/**
+ * Упаковка хода в одно целое число.
+ * Биты 0-7 - клетка отправления, биты 8-15 - клетка назначения,
+ * биты 16-19 - флаги хода, биты 20-26 - код взятой фигуры (см. Piece).
+ * Используется генератором ходов, чтобы не создавать объектов на каждый ход.
+ */
+public final class Move {
+
+    /**
+     * Пустой ход (отсутствие хода)
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Флаг хода пешки на две клетки
+     */
+    public static final int FLAG_DOUBLE_PUSH = 1;
+
+    /**
+     * Флаг рокировки (король перемещается на две клетки к ладье)
+     */
+    public static final int FLAG_CASTLING = 2;
+
+    private static final int TO_SHIFT = 8;
+    private static final int FLAGS_SHIFT = 16;
+    private static final int CAPTURED_SHIFT = 20;
+
+    private Move() {
+    }
+
+    /**
+     * Упаковывает ход.
+     *
+     * @param from клетка отправления
+     * @param to клетка назначения
+     * @param flags флаги хода
+     * @param captured код взятой фигуры или Piece.EMPTY
+     * @return упакованный ход
+     */
+    public static int encode(int from, int to, int flags, int captured) {
+        return from | to << TO_SHIFT | flags << FLAGS_SHIFT | captured << CAPTURED_SHIFT;
+    }
+
+    /**
+     * Возвращает клетку отправления.
+     *
+     * @param move упакованный ход
+     * @return индекс клетки отправления
+     */
+    public static int from(int move) {
+        return move & 0xFF;
+    }
+
+    /**
+     * Возвращает клетку назначения.
+     *
+     * @param move упакованный ход
+     * @return индекс клетки назначения
+     */
+    public static int to(int move) {
+        return move >>> TO_SHIFT & 0xFF;
+    }
+
+    /**
+     * Возвращает флаги хода.
+     *
+     * @param move упакованный ход
+     * @return флаги хода
+     */
+    public static int flags(int move) {
+        return move >>> FLAGS_SHIFT & 0x0F;
+    }
+
+    /**
+     * Возвращает код взятой фигуры.
+     *
+     * @param move упакованный ход
+     * @return код взятой фигуры или Piece.EMPTY
+     */
+    public static int captured(int move) {
+        return move >>> CAPTURED_SHIFT & 0x7F;
+    }
+
+    /**
+     * Проверяет, является ли ход взятием.
+     *
+     * @param move упакованный ход
+     * @return true если на клетке назначения стоит фигура
+     */
+    public static boolean isCapture(int move) {
+        return captured(move) != Piece.EMPTY;
+    }
+
+    /**
+     * Возвращает текстовое представление хода в формате "x,y-x,y".
+     *
+     * @param move упакованный ход
+     * @return строка с координатами клеток
+     */
+    public static String toString(int move) {
+        int from = from(move), to = to(move);
+        return BoardState.fileOf(from) + "," + BoardState.rankOf(from) + "-"
+                + BoardState.fileOf(to) + "," + BoardState.rankOf(to);
+    }
+}
@@ -0,0 +1,290 @@
+package org.games.chess.src.rules;
+
+import org.games.chess.src.board.WallController;
+
+/**
+ * Генератор ходов по примитивной доске BoardState.
+ * Записывает упакованные ходы (см. Move) в переданный вызывающим буфер и не создает объектов,
+ * поэтому может вызываться миллионы раз в секунду из потоков анализа.
+ * Цели фигур берутся из таблиц AttackTables текущего набора стен.
+ * Повторяет правила фигур из пакета figure.controllers: стены, неактивные клетки,
+ * правило союзов по четности команд и рокировку с ладьей своей команды.
+ */
+public class MoveGenerator {
+
+    /**
+     * Максимальное количество ходов одной фигуры
+     */
+    public static final int MAX_PIECE_MOVES = 64;
+
+    /**
+     * Максимальное количество ходов одной команды в позиции
+     */
+    public static final int MAX_MOVES = 512;
+
+    /**
+     * Смещения по X для восьми направлений (четные индексы - прямые, нечетные - диагонали)
+     */
+    public static final int[] DIRECTION_DX = {1, 1, 0, -1, -1, -1, 0, 1};
+
+    /**
+     * Смещения по Y для восьми направлений
+     */
+    public static final int[] DIRECTION_DY = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    /**
+     * Смещения прыжков коня по X
+     */
+    public static final int[] KNIGHT_DX = {2, 2, -2, -2, 1, 1, -1, -1};
+
+    /**
+     * Смещения прыжков коня по Y
+     */
+    public static final int[] KNIGHT_DY = {1, -1, 1, -1, 2, -2, 2, -2};
+
+    /**
+     * Направление движения пешек по X для каждой команды (индекс - номер команды)
+     */
+    public static final int[] PAWN_DX = {0, 0, -1, 0, 1};
+
+    /**
+     * Направление движения пешек по Y для каждой команды (индекс - номер команды)
+     */
+    public static final int[] PAWN_DY = {0, 1, 0, -1, 0};
+
+    /**
+     * Направление от короля к ладье для рокировки по X (см. King.hideDirectionTeams)
+     */
+    public static final int[] CASTLING_DX = {0, -1, 0, 1, 0};
+
+    /**
+     * Направление от короля к ладье для рокировки по Y (см. King.hideDirectionTeams)
+     */
+    public static final int[] CASTLING_DY = {0, 0, -1, 0, 1};
+
+    /**
+     * Контроллер стен, хранящий таблицы ходов AttackTables
+     */
+    private final WallController walls;
+
+    /**
+     * Создает генератор ходов для заданного набора стен.
+     *
+     * @param walls контроллер стен
+     */
+    public MoveGenerator(WallController walls) {
+        this.walls = walls;
+    }
+
+    /**
+     * Возвращает таблицы ходов текущего набора стен.
+     *
+     * @return таблицы ходов
+     */
+    public AttackTables getAttackTables() {
+        return walls.getAttackTables();
+    }
+
+    /**
+     * Возвращает индекс направления для смещения вдоль прямой или диагонали.
+     *
+     * @param dx смещение по X
+     * @param dy смещение по Y
+     * @return индекс направления в DIRECTION_DX/DY или -1, если смещение не лежит на прямой или диагонали
+     */
+    public static int directionOf(int dx, int dy) {
+        if ((dx == 0 && dy == 0) || (dx != 0 && dy != 0 && Math.abs(dx) != Math.abs(dy))) return -1;
+
+        int sx = Integer.signum(dx), sy = Integer.signum(dy);
+        for (int dir = 0; dir < DIRECTION_DX.length; dir++) {
+            if (DIRECTION_DX[dir] == sx && DIRECTION_DY[dir] == sy) return dir;
+        }
+        return -1;
+    }
+
+    /**
+     * Генерирует все ходы команды.
+     *
+     * @param state позиция
+     * @param team номер команды (1-4)
+     * @param moves буфер для ходов (не меньше MAX_MOVES свободных элементов после offset)
+     * @param offset индекс в буфере, с которого записываются ходы
+     * @return индекс в буфере после последнего записанного хода
+     */
+    public int generate(BoardState state, int team, int[] moves, int offset) {
+        int count = offset;
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int code = state.getPiece(sq);
+            if (code != Piece.EMPTY && Piece.teamOf(code) == team) {
+                count = generatePieceMoves(state, sq, moves, count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Генерирует только взятия команды (для поиска спокойной позиции).
+     *
+     * @param state позиция
+     * @param team номер команды (1-4)
+     * @param moves буфер для ходов (не меньше MAX_MOVES свободных элементов после offset)
+     * @param offset индекс в буфере, с которого записываются ходы
+     * @return индекс в буфере после последнего записанного хода
+     */
+    public int generateCaptures(BoardState state, int team, int[] moves, int offset) {
+        AttackTables tables = walls.getAttackTables();
+        int count = offset;
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int code = state.getPiece(sq);
+            if (code == Piece.EMPTY || Piece.teamOf(code) != team) continue;
+
+            switch (Piece.typeOf(code)) {
+                case Piece.PAWN -> count = generatePawnCaptures(state, tables, sq, code, moves, count);
+                case Piece.KNIGHT -> count = generateJumps(state, sq, code, tables.getKnightTargets(sq), true, moves, count);
+                case Piece.BISHOP -> count = generateSlides(state, tables, sq, code, 1, true, moves, count);
+                case Piece.ROOK -> count = generateSlides(state, tables, sq, code, 0, true, moves, count);
+                case Piece.QUEEN -> {
+                    count = generateSlides(state, tables, sq, code, 0, true, moves, count);
+                    count = generateSlides(state, tables, sq, code, 1, true, moves, count);
+                }
+                case Piece.KING -> count = generateJumps(state, sq, code, tables.getKingTargets(sq), true, moves, count);
+                default -> {
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Генерирует ходы фигуры, стоящей на клетке.
+     *
+     * @param state позиция
+     * @param from клетка фигуры
+     * @param moves буфер для ходов (не меньше MAX_PIECE_MOVES свободных элементов после offset)
+     * @param offset индекс в буфере, с которого записываются ходы
+     * @return индекс в буфере после последнего записанного хода
+     */
+    public int generatePieceMoves(BoardState state, int from, int[] moves, int offset) {
+        AttackTables tables = walls.getAttackTables();
+        int code = state.getPiece(from);
+        switch (Piece.typeOf(code)) {
+            case Piece.PAWN:
+                return generatePawnMoves(state, tables, from, code, moves, offset);
+            case Piece.KNIGHT:
+                return generateJumps(state, from, code, tables.getKnightTargets(from), false, moves, offset);
+            case Piece.BISHOP:
+                return generateSlides(state, tables, from, code, 1, false, moves, offset);
+            case Piece.ROOK:
+                return generateSlides(state, tables, from, code, 0, false, moves, offset);
+            case Piece.QUEEN:
+                offset = generateSlides(state, tables, from, code, 0, false, moves, offset);
+                return generateSlides(state, tables, from, code, 1, false, moves, offset);
+            case Piece.KING:
+                offset = generateJumps(state, from, code, tables.getKingTargets(from), false, moves, offset);
+                return generateCastling(state, from, code, moves, offset);
+            default:
+                return offset;
+        }
+    }
+
+    /**
+     * Генерирует ходы пешки: шаг вперед, два шага при первом ходе и взятия по диагонали.
+     * Как и в исходных правилах Pawn, ходы вперед не проверяют стены, а взятия проверяют.
+     */
+    private int generatePawnMoves(BoardState state, AttackTables tables, int from, int code, int[] moves, int count) {
+        int team = Piece.teamOf(code);
+
+        int push = tables.getPawnPush(team, from);
+        if (push >= 0 && state.getPiece(push) == Piece.EMPTY) {
+            moves[count++] = Move.encode(from, push, 0, Piece.EMPTY);
+            int doublePush = tables.getPawnDoublePush(team, from);
+            if (Piece.isFirstStep(code) && doublePush >= 0 && state.getPiece(doublePush) == Piece.EMPTY) {
+                moves[count++] = Move.encode(from, doublePush, Move.FLAG_DOUBLE_PUSH, Piece.EMPTY);
+            }
+        }
+        return generatePawnCaptures(state, tables, from, code, moves, count);
+    }
+
+    /**
+     * Генерирует взятия пешки по диагонали вперед.
+     */
+    private int generatePawnCaptures(BoardState state, AttackTables tables, int from, int code, int[] moves, int count) {
+        for (int to : tables.getPawnCaptures(Piece.teamOf(code), from)) {
+            int target = state.getPiece(to);
+            if (Piece.isEnemy(code, target)) {
+                moves[count++] = Move.encode(from, to, 0, target);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Генерирует ходы фигуры по таблице целей (конь, король).
+     *
+     * @param capturesOnly генерировать только взятия
+     */
+    private int generateJumps(BoardState state, int from, int code, int[] targets, boolean capturesOnly,
+                              int[] moves, int count) {
+        for (int to : targets) {
+            int target = state.getPiece(to);
+            if (target == Piece.EMPTY ? !capturesOnly : Piece.isEnemy(code, target)) {
+                moves[count++] = Move.encode(from, to, 0, target);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Генерирует ходы дальнобойной фигуры по четырем лучам, начиная с направления first через одно.
+     *
+     * @param first 0 - прямые направления, 1 - диагонали
+     * @param capturesOnly генерировать только взятия
+     */
+    private int generateSlides(BoardState state, AttackTables tables, int from, int code, int first,
+                               boolean capturesOnly, int[] moves, int count) {
+        for (int dir = first; dir < DIRECTION_DX.length; dir += 2) {
+            for (int to : tables.getRay(dir, from)) {
+                int target = state.getPiece(to);
+                if (target == Piece.EMPTY) {
+                    if (!capturesOnly) moves[count++] = Move.encode(from, to, 0, Piece.EMPTY);
+                    continue;
+                }
+                if (Piece.isEnemy(code, target)) {
+                    moves[count++] = Move.encode(from, to, 0, target);
+                }
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Генерирует рокировку: король при первом ходе перемещается на две клетки к ладье своей команды,
+     * если две клетки между ними свободны.
+     */
+    private int generateCastling(BoardState state, int from, int code, int[] moves, int count) {
+        if (!Piece.isFirstStep(code)) return count;
+
+        int team = Piece.teamOf(code);
+        int x = BoardState.fileOf(from), y = BoardState.rankOf(from);
+        int dx = CASTLING_DX[team], dy = CASTLING_DY[team];
+
+        if (!isFreeSquare(state, x + dx, y + dy) || !isFreeSquare(state, x + 2 * dx, y + 2 * dy)) return count;
+
+        int rx = x + 3 * dx, ry = y + 3 * dy;
+        if (!BoardState.isActive(rx, ry)) return count;
+
+        int rook = state.getPiece(rx, ry);
+        if (Piece.typeOf(rook) == Piece.ROOK && Piece.teamOf(rook) == team) {
+            moves[count++] = Move.encode(from, BoardState.square(x + 2 * dx, y + 2 * dy), Move.FLAG_CASTLING, Piece.EMPTY);
+        }
+        return count;
+    }
+
+    /**
+     * Проверяет, что клетка существует, активна и свободна.
+     */
+    private static boolean isFreeSquare(BoardState state, int x, int y) {
+        return BoardState.isActive(x, y) && state.getPiece(x, y) == Piece.EMPTY;
+    }
+}
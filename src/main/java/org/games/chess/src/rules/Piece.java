@@ -0,0 +1,165 @@
+package org.games.chess.src.rules;
+
+/**
+ * Компактное целочисленное представление фигуры для примитивной доски.
+ * Код фигуры умещается в один байт: биты 0-2 - тип, биты 3-5 - команда,
+ * бит 6 - флаг первого хода (рокировка и ход пешки на две клетки).
+ * Пустая клетка кодируется нулем.
+ */
+public final class Piece {
+
+    /**
+     * Код пустой клетки
+     */
+    public static final int EMPTY = 0;
+
+    /**
+     * Пешка
+     */
+    public static final int PAWN = 1;
+
+    /**
+     * Конь
+     */
+    public static final int KNIGHT = 2;
+
+    /**
+     * Слон
+     */
+    public static final int BISHOP = 3;
+
+    /**
+     * Ладья
+     */
+    public static final int ROOK = 4;
+
+    /**
+     * Ферзь
+     */
+    public static final int QUEEN = 5;
+
+    /**
+     * Король
+     */
+    public static final int KING = 6;
+
+    /**
+     * Маска типа фигуры
+     */
+    public static final int TYPE_MASK = 0x07;
+
+    /**
+     * Сдвиг номера команды в коде фигуры
+     */
+    public static final int TEAM_SHIFT = 3;
+
+    /**
+     * Маска номера команды (после сдвига)
+     */
+    public static final int TEAM_MASK = 0x07;
+
+    /**
+     * Флаг первого хода фигуры
+     */
+    public static final int FIRST_STEP = 0x40;
+
+    /**
+     * Количество различных кодов фигур (размер таблиц, индексируемых кодом)
+     */
+    public static final int CODE_COUNT = 0x80;
+
+    /**
+     * Символьные коды типов фигур в формате файла доски, индексируемые типом
+     */
+    private static final char[] TYPE_CHARS = {'0', 'P', 'N', 'B', 'R', 'Q', 'K'};
+
+    private Piece() {
+    }
+
+    /**
+     * Собирает код фигуры.
+     *
+     * @param type тип фигуры (PAWN..KING)
+     * @param team номер команды (1-4)
+     * @param firstStep true если фигура еще не совершала ходов
+     * @return код фигуры
+     */
+    public static int make(int type, int team, boolean firstStep) {
+        return type | team << TEAM_SHIFT | (firstStep ? FIRST_STEP : 0);
+    }
+
+    /**
+     * Возвращает тип фигуры по ее коду.
+     *
+     * @param code код фигуры
+     * @return тип фигуры или EMPTY для пустой клетки
+     */
+    public static int typeOf(int code) {
+        return code & TYPE_MASK;
+    }
+
+    /**
+     * Возвращает номер команды по коду фигуры.
+     *
+     * @param code код фигуры
+     * @return номер команды (1-4) или 0 для пустой клетки
+     */
+    public static int teamOf(int code) {
+        return code >>> TEAM_SHIFT & TEAM_MASK;
+    }
+
+    /**
+     * Проверяет флаг первого хода.
+     *
+     * @param code код фигуры
+     * @return true если фигура еще не совершала ходов
+     */
+    public static boolean isFirstStep(int code) {
+        return (code & FIRST_STEP) != 0;
+    }
+
+    /**
+     * Возвращает код фигуры со сброшенным флагом первого хода.
+     *
+     * @param code код фигуры
+     * @return код фигуры без флага первого хода
+     */
+    public static int withoutFirstStep(int code) {
+        return code & ~FIRST_STEP;
+    }
+
+    /**
+     * Проверяет, являются ли две фигуры врагами.
+     * Как и в Figure.isEnemyFigure, враги - команды разной четности (1-3 против 2-4).
+     *
+     * @param code код первой фигуры
+     * @param other код второй фигуры
+     * @return true если обе клетки заняты и фигуры принадлежат разным союзам
+     */
+    public static boolean isEnemy(int code, int other) {
+        return code != EMPTY && other != EMPTY && ((code ^ other) >>> TEAM_SHIFT & 1) != 0;
+    }
+
+    /**
+     * Преобразует символьный код типа (K, Q, R, B, N, P) в тип фигуры.
+     *
+     * @param c символьный код типа
+     * @return тип фигуры или EMPTY если символ неизвестен
+     */
+    public static int typeFromChar(char c) {
+        for (int type = PAWN; type <= KING; type++) {
+            if (TYPE_CHARS[type] == c) return type;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Преобразует тип фигуры в символьный код формата файла доски.
+     *
+     * @param type тип фигуры
+     * @return символьный код типа
+     */
+    public static char typeToChar(int type) {
+        return TYPE_CHARS[type];
+    }
+}
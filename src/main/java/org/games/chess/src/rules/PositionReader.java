@@ -0,0 +1,246 @@
+package org.games.chess.src.rules;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение позиций в формате файла res/chess_board.txt.
+ * Позиция - 16 строк по 16 кодов клеток ("00" - пустая клетка, "K1" - король команды 1).
+ * Код с суффиксом '*' ("R1*") означает фигуру, которая уже ходила; без суффикса фигура
+ * считается не ходившей, как при загрузке доски в FigureManager.
+ * Перед доской могут идти директивы:
+ * <pre>
+ * # комментарий
+ * name &lt;название позиции&gt;
+ * team &lt;команда, чей ход&gt;
+ * eliminated &lt;команда&gt; [&lt;команда&gt; ...]
+ * perft &lt;глубина&gt; &lt;ожидаемое число узлов&gt;
+ * </pre>
+ * В одном файле может быть несколько позиций подряд; читается по одной, без загрузки всего файла.
+ */
+public class PositionReader implements Closeable {
+
+    /**
+     * Источник строк
+     */
+    private final BufferedReader reader;
+
+    /**
+     * Последняя прочитанная позиция
+     */
+    private final BoardState state = new BoardState();
+
+    /**
+     * Название последней прочитанной позиции
+     */
+    private String name;
+
+    /**
+     * Ожидаемые значения perft последней позиции: пары {глубина, число узлов}
+     */
+    private final List<long[]> expectedPerft = new ArrayList<>();
+
+    /**
+     * Номер текущей строки (для сообщений об ошибках)
+     */
+    private int lineNumber;
+
+    /**
+     * Количество прочитанных позиций
+     */
+    private int positionCount;
+
+    /**
+     * Создает читатель позиций.
+     *
+     * @param reader источник строк
+     */
+    public PositionReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Читает следующую позицию.
+     *
+     * @return true если позиция прочитана, false если файл закончился
+     * @throws IOException при ошибке чтения или неверном формате
+     */
+    public boolean next() throws IOException {
+        state.clear();
+        expectedPerft.clear();
+        name = null;
+
+        String line;
+        int row = 0;
+        while (row < BoardState.SIZE && (line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            String[] tokens = trimmed.split("\\s+");
+            if (row == 0 && parseDirective(tokens)) continue;
+
+            parseRow(tokens, row++);
+        }
+
+        if (row == 0) return false;
+        if (row < BoardState.SIZE) throw error("позиция обрывается на строке доски " + row);
+
+        positionCount++;
+        if (name == null) name = "position " + positionCount;
+        return true;
+    }
+
+    /**
+     * Разбирает строку директивы.
+     *
+     * @param tokens слова строки
+     * @return true если строка была директивой
+     */
+    private boolean parseDirective(String[] tokens) throws IOException {
+        switch (tokens[0]) {
+            case "name":
+                name = String.join(" ", List.of(tokens).subList(1, tokens.length));
+                return true;
+            case "team":
+                state.setCurrentTeam(parseTeam(tokens[1]));
+                return true;
+            case "eliminated":
+                for (int i = 1; i < tokens.length; i++) {
+                    state.setTeamEliminated(parseTeam(tokens[i]), true);
+                }
+                return true;
+            case "perft":
+                expectedPerft.add(new long[]{Long.parseLong(tokens[1]), Long.parseLong(tokens[2])});
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Разбирает строку доски.
+     *
+     * @param tokens коды клеток
+     * @param row номер строки (координата Y)
+     */
+    private void parseRow(String[] tokens, int row) throws IOException {
+        if (tokens.length < BoardState.SIZE) throw error("в строке доски меньше " + BoardState.SIZE + " клеток");
+
+        for (int col = 0; col < BoardState.SIZE; col++) {
+            int code = parseToken(tokens[col]);
+            if (code == Piece.EMPTY) continue;
+            if (!BoardState.isActive(col, row)) throw error("фигура на неактивной клетке " + col + "," + row);
+
+            state.setPiece(BoardState.square(col, row), code);
+        }
+    }
+
+    /**
+     * Разбирает код клетки.
+     *
+     * @param token код клетки ("00", "K1", "R1*")
+     * @return код фигуры или Piece.EMPTY
+     */
+    private int parseToken(String token) throws IOException {
+        if ("00".equals(token)) return Piece.EMPTY;
+
+        int type = Piece.typeFromChar(token.charAt(0));
+        if (type == Piece.EMPTY || token.length() < 2) throw error("неизвестный код клетки " + token);
+
+        boolean moved = token.length() > 2 && token.charAt(2) == '*';
+        return Piece.make(type, parseTeam(token.substring(1, 2)), !moved);
+    }
+
+    /**
+     * Разбирает номер команды.
+     *
+     * @param token строка с номером
+     * @return номер команды (1-4)
+     */
+    private int parseTeam(String token) throws IOException {
+        int team = Character.getNumericValue(token.charAt(0));
+        if (team < 1 || team > BoardState.TEAMS) throw error("неверный номер команды " + token);
+        return team;
+    }
+
+    /**
+     * Создает исключение с номером строки.
+     */
+    private IOException error(String message) {
+        return new IOException("Строка " + lineNumber + ": " + message);
+    }
+
+    /**
+     * Возвращает последнюю прочитанную позицию.
+     * Объект переиспользуется при следующем вызове next().
+     *
+     * @return позиция
+     */
+    public BoardState getState() {
+        return state;
+    }
+
+    /**
+     * Возвращает название последней прочитанной позиции.
+     *
+     * @return название из директивы name или порядковый номер
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Возвращает ожидаемые значения perft последней позиции.
+     *
+     * @return список пар {глубина, число узлов}
+     */
+    public List<long[]> getExpectedPerft() {
+        return expectedPerft;
+    }
+
+    /**
+     * Записывает позицию в формате файла доски (с директивами team и eliminated).
+     *
+     * @param state позиция
+     * @param out приемник текста
+     * @throws IOException при ошибке записи
+     */
+    public static void write(BoardState state, Appendable out) throws IOException {
+        out.append("team ").append(String.valueOf(state.getCurrentTeam())).append('\n');
+        if (state.getEliminatedMask() != 0) {
+            out.append("eliminated");
+            for (int team = 1; team <= BoardState.TEAMS; team++) {
+                if (state.isTeamEliminated(team)) out.append(' ').append(String.valueOf(team));
+            }
+            out.append('\n');
+        }
+
+        for (int y = 0; y < BoardState.SIZE; y++) {
+            for (int x = 0; x < BoardState.SIZE; x++) {
+                if (x > 0) out.append(' ');
+                int code = state.getPiece(x, y);
+                if (code == Piece.EMPTY) {
+                    out.append("00");
+                    continue;
+                }
+                out.append(Piece.typeToChar(Piece.typeOf(code))).append(String.valueOf(Piece.teamOf(code)));
+                if (!Piece.isFirstStep(code)) out.append('*');
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Закрывает источник строк.
+     *
+     * @throws IOException при ошибке закрытия
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
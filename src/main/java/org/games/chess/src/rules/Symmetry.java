@@ -0,0 +1,250 @@
+package org.games.chess.src.rules;
+
+import java.util.Arrays;
+
+/**
+ * Симметрия доски относительно поворота на 90 градусов.
+ * Стандартные стены (WallController.initializeWalls), активные клетки и стартовая расстановка переходят
+ * в себя при повороте клетки (x, y) в (15 - y, x) с переименованием команды t в t + 1 (4 в 1):
+ * пешки, рокировка и крепости команды t поворачиваются ровно в пешки, рокировку и крепости команды t + 1.
+ * Поворот на rotation четвертей применяет это преобразование rotation раз.
+ * <p>
+ * Каноническая форма позиции - поворот, после которого ходит команда 1 (canonicalRotation).
+ * Позиции, переходящие друг в друга поворотом, имеют один канонический ключ, поэтому таблицы
+ * транспозиций, дебютные книги и базы партий хранят одну запись на все четыре поворота.
+ * Ключи Zobrist построены так, что ключ фигуры после поворота - циклический сдвиг ее ключа
+ * на KEY_SHIFT бит, поэтому ключ повернутой позиции вычисляется из инкрементального ключа
+ * BoardState за несколько операций, без обхода доски (rotatedKey).
+ * <p>
+ * Поворот сохраняет правила, только если стены симметричны; isSymmetric проверяет это по таблицам ходов.
+ */
+public final class Symmetry {
+
+    /**
+     * Количество поворотов
+     */
+    public static final int ROTATIONS = 4;
+
+    /**
+     * Сдвиг ключа фигуры Zobrist на четверть оборота
+     */
+    public static final int KEY_SHIFT = Long.SIZE / ROTATIONS;
+
+    /**
+     * Клетки после поворота по числу четвертей и индексу клетки
+     */
+    private static final int[][] ROTATED_SQUARES = buildRotatedSquares();
+
+    /**
+     * Последние проверенные симметричными таблицы ходов
+     */
+    private static volatile AttackTables checkedTables;
+
+    private Symmetry() {
+    }
+
+    /**
+     * Поворачивает клетку.
+     *
+     * @param sq индекс клетки
+     * @param rotation число четвертей оборота (0-3)
+     * @return индекс клетки после поворота
+     */
+    public static int rotateSquare(int sq, int rotation) {
+        return ROTATED_SQUARES[rotation][sq];
+    }
+
+    /**
+     * Переименовывает команду при повороте.
+     *
+     * @param team номер команды (1-4)
+     * @param rotation число четвертей оборота (0-3)
+     * @return номер команды после поворота
+     */
+    public static int rotateTeam(int team, int rotation) {
+        return (team - 1 + rotation) % BoardState.TEAMS + 1;
+    }
+
+    /**
+     * Переименовывает команду фигуры при повороте (тип и флаг первого хода сохраняются).
+     *
+     * @param code код фигуры
+     * @param rotation число четвертей оборота (0-3)
+     * @return код фигуры после поворота (Piece.EMPTY не меняется)
+     */
+    public static int rotatePiece(int code, int rotation) {
+        if (code == Piece.EMPTY) return Piece.EMPTY;
+        int team = rotateTeam(Piece.teamOf(code), rotation);
+        return code & ~(Piece.TEAM_MASK << Piece.TEAM_SHIFT) | team << Piece.TEAM_SHIFT;
+    }
+
+    /**
+     * Поворачивает ход.
+     *
+     * @param move упакованный ход (Move.NONE не меняется)
+     * @param rotation число четвертей оборота (0-3)
+     * @return ход после поворота
+     */
+    public static int rotateMove(int move, int rotation) {
+        if (move == Move.NONE || rotation == 0) return move;
+        return Move.encode(rotateSquare(Move.from(move), rotation), rotateSquare(Move.to(move), rotation),
+                Move.flags(move), rotatePiece(Move.captured(move), rotation));
+    }
+
+    /**
+     * Переименовывает команды маски выбывших команд при повороте.
+     *
+     * @param eliminatedMask маска выбывших команд (бит 1 << team)
+     * @param rotation число четвертей оборота (0-3)
+     * @return маска после поворота
+     */
+    public static int rotateEliminated(int eliminatedMask, int rotation) {
+        int mask = 0;
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            if ((eliminatedMask & 1 << team) != 0) mask |= 1 << rotateTeam(team, rotation);
+        }
+        return mask;
+    }
+
+    /**
+     * Возвращает обратный поворот.
+     *
+     * @param rotation число четвертей оборота (0-3)
+     * @return поворот, отменяющий rotation
+     */
+    public static int inverse(int rotation) {
+        return (ROTATIONS - rotation) % ROTATIONS;
+    }
+
+    /**
+     * Возвращает поворот в каноническую форму: после него ходит команда 1.
+     *
+     * @param team команда, чей ход
+     * @return число четвертей оборота
+     */
+    public static int canonicalRotation(int team) {
+        return (ROTATIONS + 1 - team) % ROTATIONS;
+    }
+
+    /**
+     * Вычисляет ключ Zobrist позиции после поворота по ее текущему ключу (без обхода доски).
+     *
+     * @param state позиция
+     * @param rotation число четвертей оборота (0-3)
+     * @return ключ повернутой позиции (равен BoardState.getKey для rotation = 0)
+     */
+    public static long rotatedKey(BoardState state, int rotation) {
+        long key = state.getKey();
+        if (rotation == 0) return key;
+
+        int team = state.getCurrentTeam(), mask = state.getEliminatedMask();
+        long pieces = key ^ Zobrist.team(team) ^ Zobrist.eliminated(mask);
+        return Long.rotateLeft(pieces, KEY_SHIFT * rotation)
+                ^ Zobrist.team(rotateTeam(team, rotation)) ^ Zobrist.eliminated(rotateEliminated(mask, rotation));
+    }
+
+    /**
+     * Вычисляет канонический ключ позиции: один для всех четырех ее поворотов.
+     *
+     * @param state позиция
+     * @return ключ позиции, повернутой так, что ходит команда 1
+     */
+    public static long canonicalKey(BoardState state) {
+        return rotatedKey(state, canonicalRotation(state.getCurrentTeam()));
+    }
+
+    /**
+     * Записывает в target позицию source после поворота (фигуры, команду, чей ход, выбывшие команды).
+     * Журнал отмены target очищается.
+     *
+     * @param source исходная позиция
+     * @param rotation число четвертей оборота (0-3)
+     * @param target позиция для результата (не совпадает с source)
+     */
+    public static void rotate(BoardState source, int rotation, BoardState target) {
+        target.clear();
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int code = source.getPiece(sq);
+            if (code != Piece.EMPTY) target.setPiece(rotateSquare(sq, rotation), rotatePiece(code, rotation));
+        }
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            target.setTeamEliminated(rotateTeam(team, rotation), source.isTeamEliminated(team));
+        }
+        target.setCurrentTeam(rotateTeam(source.getCurrentTeam(), rotation));
+        target.clearHistory();
+    }
+
+    /**
+     * Проверяет, что таблицы ходов переходят в себя при повороте на четверть оборота:
+     * активные клетки, ходы коня и короля, лучи, ходы и взятия пешек. Результат для последних
+     * симметричных таблиц запоминается, поэтому повторная проверка тех же таблиц бесплатна.
+     *
+     * @param tables таблицы ходов набора стен
+     * @return true если правила симметричны и канонические ключи можно использовать
+     */
+    public static boolean isSymmetric(AttackTables tables) {
+        if (tables == checkedTables) return true;
+
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int rotated = rotateSquare(sq, 1);
+            if (BoardState.isActive(sq) != BoardState.isActive(rotated)) return false;
+            if (!sameTargets(tables.getKnightTargets(sq), tables.getKnightTargets(rotated))) return false;
+            if (!sameTargets(tables.getKingTargets(sq), tables.getKingTargets(rotated))) return false;
+            for (int dir = 0; dir < MoveGenerator.DIRECTION_DX.length; dir++) {
+                int[] ray = tables.getRay(dir, sq), rotatedRay = tables.getRay((dir + 2) % 8, rotated);
+                if (ray.length != rotatedRay.length) return false;
+                for (int i = 0; i < ray.length; i++) {
+                    if (rotateSquare(ray[i], 1) != rotatedRay[i]) return false;
+                }
+            }
+            for (int team = 1; team <= BoardState.TEAMS; team++) {
+                int next = rotateTeam(team, 1);
+                if (rotateTarget(tables.getPawnPush(team, sq)) != tables.getPawnPush(next, rotated)) return false;
+                if (rotateTarget(tables.getPawnDoublePush(team, sq)) != tables.getPawnDoublePush(next, rotated)) return false;
+                if (!sameTargets(tables.getPawnCaptures(team, sq), tables.getPawnCaptures(next, rotated))) return false;
+            }
+        }
+        checkedTables = tables;
+        return true;
+    }
+
+    /**
+     * Поворачивает клетку назначения из таблицы ходов (-1 - хода нет).
+     */
+    private static int rotateTarget(int sq) {
+        return sq < 0 ? sq : rotateSquare(sq, 1);
+    }
+
+    /**
+     * Проверяет, что повернутые клетки targets совпадают с rotatedTargets как множества.
+     */
+    private static boolean sameTargets(int[] targets, int[] rotatedTargets) {
+        if (targets.length != rotatedTargets.length) return false;
+        int[] expected = new int[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            expected[i] = rotateSquare(targets[i], 1);
+        }
+        int[] actual = rotatedTargets.clone();
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        return Arrays.equals(expected, actual);
+    }
+
+    /**
+     * Строит таблицы поворота клеток: (x, y) переходит в (SIZE - 1 - y, x).
+     */
+    private static int[][] buildRotatedSquares() {
+        int[][] rotated = new int[ROTATIONS][BoardState.SQUARES];
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            rotated[0][sq] = sq;
+        }
+        for (int rotation = 1; rotation < ROTATIONS; rotation++) {
+            for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+                int previous = rotated[rotation - 1][sq];
+                int x = BoardState.fileOf(previous), y = BoardState.rankOf(previous);
+                rotated[rotation][sq] = BoardState.square(BoardState.SIZE - 1 - y, x);
+            }
+        }
+        return rotated;
+    }
+}
@@ -0,0 +1,124 @@
+package org.games.chess.src.rules;
+
+/**
+ * Случайные 64-битные ключи Зобриста для позиций четырех команд.
+ * Ключ позиции - XOR ключей всех фигур на клетках, ключа команды, чей ход, и ключа маски выбывших команд.
+ * Ключ фигуры зависит от ее полного кода (тип, команда и флаг первого хода), поэтому права на рокировку
+ * и ход пешки на две клетки входят в ключ без отдельных слагаемых.
+ * Ключи генерируются с фиксированным зерном и одинаковы при каждом запуске,
+ * поэтому ключи можно сохранять в файлы (дебюты, базы партий).
+ * Ключ фигуры команды t + 1 на повернутой клетке (см. Symmetry) - циклический сдвиг ключа фигуры
+ * команды t на Symmetry.KEY_SHIFT бит, поэтому ключ повернутой позиции получается сдвигом ключа фигур.
+ */
+public final class Zobrist {
+
+    /**
+     * Зерно генератора ключей
+     */
+    private static final long SEED = 0x4A3B2C1D5E6F7081L;
+
+    /**
+     * Ключи фигур по коду фигуры и клетке (для Piece.EMPTY - нули)
+     */
+    private static final long[][] PIECE_KEYS = new long[Piece.CODE_COUNT][BoardState.SQUARES];
+
+    /**
+     * Ключи команды, чей ход (индекс - номер команды)
+     */
+    private static final long[] TEAM_KEYS = new long[BoardState.TEAMS + 1];
+
+    /**
+     * Ключи масок выбывших команд (индекс - маска, бит 1 << team; для пустой маски - ноль)
+     */
+    private static final long[] ELIMINATED_KEYS = new long[1 << (BoardState.TEAMS + 1)];
+
+    /**
+     * Текущее состояние генератора ключей
+     */
+    private static long state = SEED;
+
+    static {
+        for (int code = 1; code < Piece.CODE_COUNT; code++) {
+            int team = Piece.teamOf(code);
+            if (team > 1 && team <= BoardState.TEAMS) continue;
+            for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+                long key = nextKey();
+                if (team != 1) {
+                    PIECE_KEYS[code][sq] = key;
+                    continue;
+                }
+                // ключи остальных команд - повороты ключа команды 1
+                for (int rotation = 0; rotation < Symmetry.ROTATIONS; rotation++) {
+                    PIECE_KEYS[Symmetry.rotatePiece(code, rotation)][Symmetry.rotateSquare(sq, rotation)] =
+                            Long.rotateLeft(key, Symmetry.KEY_SHIFT * rotation);
+                }
+            }
+        }
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            TEAM_KEYS[team] = nextKey();
+        }
+        for (int mask = 1; mask < ELIMINATED_KEYS.length; mask++) {
+            ELIMINATED_KEYS[mask] = nextKey();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Возвращает следующее значение генератора SplitMix64.
+     *
+     * @return случайный ключ
+     */
+    private static long nextKey() {
+        long z = state += 0x9E3779B97F4A7C15L;
+        z = (z ^ z >>> 30) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ z >>> 27) * 0x94D049BB133111EBL;
+        return z ^ z >>> 31;
+    }
+
+    /**
+     * Возвращает ключ фигуры на клетке.
+     *
+     * @param code код фигуры (Piece.EMPTY дает ноль)
+     * @param sq индекс клетки
+     * @return ключ фигуры
+     */
+    public static long piece(int code, int sq) {
+        return PIECE_KEYS[code][sq];
+    }
+
+    /**
+     * Возвращает ключ команды, чей ход.
+     *
+     * @param team номер команды (1-4)
+     * @return ключ команды
+     */
+    public static long team(int team) {
+        return TEAM_KEYS[team];
+    }
+
+    /**
+     * Возвращает ключ маски выбывших команд.
+     *
+     * @param eliminatedMask маска выбывших команд (бит 1 << team)
+     * @return ключ маски (ноль для пустой маски)
+     */
+    public static long eliminated(int eliminatedMask) {
+        return ELIMINATED_KEYS[eliminatedMask];
+    }
+
+    /**
+     * Вычисляет ключ позиции с нуля.
+     *
+     * @param state позиция
+     * @return ключ позиции
+     */
+    public static long compute(BoardState state) {
+        long key = team(state.getCurrentTeam()) ^ eliminated(state.getEliminatedMask());
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            key ^= piece(state.getPiece(sq), sq);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,503 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardListener;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Symmetry;
+
+import java.util.Arrays;
+
+/**
+ * Общая часть поисков по дереву ходов: итеративное углубление, бюджет узлов и времени,
+ * главный вариант и рабочие буферы по глубине. Наследник реализует одну итерацию на заданную глубину.
+ * Ходы делаются и отменяются на собственной копии позиции (BoardState.makeMove/unmakeMove),
+ * поэтому один объект используется одним потоком.
+ */
+public abstract class AbstractSearch implements SearchEngine {
+
+    /**
+     * Как часто (в узлах) проверяется бюджет времени
+     */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    /**
+     * Генератор ходов
+     */
+    protected final MoveGenerator generator;
+
+    /**
+     * Статическая оценка
+     */
+    protected final Evaluator evaluator;
+
+    /**
+     * Таблица транспозиций (может быть общей для нескольких поисков)
+     */
+    protected final TranspositionTable table;
+
+    /**
+     * Рабочая позиция поиска (инкрементальная оценка подключается к ней как слушатель)
+     */
+    protected final BoardState state = new BoardState();
+
+    /**
+     * Буферы ходов по глубине от корня
+     */
+    protected final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+
+    /**
+     * Векторы оценок по глубине от корня
+     */
+    protected final int[][] scores = new int[MAX_PLY + 2][BoardState.TEAMS + 1];
+
+    /**
+     * Треугольная таблица главных вариантов
+     */
+    protected final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+
+    /**
+     * Длины главных вариантов по глубине
+     */
+    protected final int[] pvLength = new int[MAX_PLY + 1];
+
+    /**
+     * Прочитанная запись таблицы транспозиций
+     */
+    protected final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+    /**
+     * Упорядочивание ходов (хеш-ход, MVV-LVA, killer-ходы, история)
+     */
+    protected final MoveOrdering ordering = new MoveOrdering();
+
+    /**
+     * Включено ли упорядочивание ходов (иначе только хеш-ход ставится первым)
+     */
+    private boolean orderingEnabled = true;
+
+    /**
+     * Статическая оценка разменов для отсечения проигрывающих взятий
+     */
+    protected final StaticExchange exchange;
+
+    /**
+     * Буфер вектора оценок, переименованного для записи в таблицу транспозиций
+     */
+    private final int[] tableScores = new int[BoardState.TEAMS + 1];
+
+    /**
+     * Хранить ли позиции в таблице транспозиций по каноническим ключам (Symmetry)
+     */
+    private boolean symmetryEnabled = true;
+
+    /**
+     * Используются ли канонические ключи в текущем поиске (включены и стены симметричны)
+     */
+    private boolean symmetric;
+
+    /**
+     * Таблицы эндшпиля или null
+     */
+    protected Tablebases tablebases;
+
+    /**
+     * Продолжать ли листья поиском взятий до спокойной позиции
+     */
+    protected boolean quiescenceEnabled = true;
+
+    /**
+     * Флаг остановки поиска: запрос stop() или исчерпанный бюджет
+     */
+    protected volatile boolean stopped;
+
+    /**
+     * Запрошена ли остановка через stop() (снимается только resetStop)
+     */
+    private volatile boolean stopRequested;
+
+    /**
+     * Количество узлов текущего поиска
+     */
+    protected long nodes;
+
+    /**
+     * Команда, для которой ищется ход
+     */
+    protected int rootTeam;
+
+    /**
+     * Глубина первой итерации (помощники Lazy SMP начинают глубже основного потока)
+     */
+    private int startDepth = 1;
+
+    /**
+     * Бюджет узлов текущего поиска
+     */
+    private long maxNodes;
+
+    /**
+     * Момент окончания текущего поиска (System.nanoTime)
+     */
+    private long deadline;
+
+    /**
+     * Создает поиск.
+     *
+     * @param generator генератор ходов
+     * @param evaluator статическая оценка (используется только этим поиском)
+     * @param table таблица транспозиций
+     */
+    protected AbstractSearch(MoveGenerator generator, Evaluator evaluator, TranspositionTable table) {
+        this.generator = generator;
+        this.evaluator = evaluator;
+        this.table = table;
+        this.exchange = new StaticExchange(generator);
+        if (evaluator instanceof BoardListener listener) state.setListener(listener);
+    }
+
+    /**
+     * Ищет лучший ход итеративным углублением до исчерпания глубины, узлов или времени.
+     *
+     * @param position позиция
+     * @param limits ограничения поиска
+     * @return результат последней завершенной итерации
+     */
+    @Override
+    public SearchResult search(BoardState position, SearchLimits limits) {
+        clearStopped();
+        table.newSearch();
+        return runSearch(position, limits);
+    }
+
+    /**
+     * Ищет лучший ход, не сбрасывая флаг остановки и не начиная новое поколение таблицы транспозиций:
+     * если флаг уже поднят, поиск сразу завершится. Используется LazySmpSearch, который
+     * сбрасывает флаги потоков и один раз начинает поколение общей таблицы до запуска потоков.
+     *
+     * @param position позиция
+     * @param limits ограничения поиска
+     * @return результат последней завершенной итерации
+     */
+    SearchResult runSearch(BoardState position, SearchLimits limits) {
+        long start = System.nanoTime();
+        state.copyFrom(position);
+        rootTeam = state.getCurrentTeam();
+        nodes = 0;
+        ordering.newSearch();
+        maxNodes = limits.getMaxNodes();
+        deadline = limits.deadlineNanos(start);
+        symmetric = symmetryEnabled && Symmetry.isSymmetric(generator.getAttackTables());
+
+        int bestMove = firstMove();
+        int[] bestScores = new int[BoardState.TEAMS + 1];
+        int[] iterationScores = new int[BoardState.TEAMS + 1];
+        int[] bestPv = bestMove == Move.NONE ? new int[0] : new int[]{bestMove};
+        int completedDepth = 0;
+
+        long softDeadline = limits.softDeadlineNanos(start);
+        int maxDepth = Math.min(limits.getMaxDepth(), MAX_PLY);
+        for (int depth = Math.min(startDepth, maxDepth); depth <= maxDepth && !stopped; depth++) {
+            if (depth > startDepth && System.nanoTime() >= softDeadline) break;
+            iterate(depth, iterationScores);
+            if (stopped) break;
+
+            System.arraycopy(iterationScores, 0, bestScores, 0, bestScores.length);
+            if (pvLength[0] > 0) {
+                bestMove = pv[0][0];
+                bestPv = Arrays.copyOf(pv[0], pvLength[0]);
+            }
+            completedDepth = depth;
+        }
+
+        return new SearchResult(bestMove, bestScores, bestPv, completedDepth, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Выполняет одну итерацию поиска из корня на заданную глубину.
+     * Главный вариант итерации записывается в pv[0]; результат прерванной итерации не используется.
+     *
+     * @param depth глубина итерации
+     * @param rootScores массив для оценок корня, индекс - номер команды
+     */
+    protected abstract void iterate(int depth, int[] rootScores);
+
+    /**
+     * Останавливает текущий поиск; поиск, который еще не начался, завершится сразу.
+     */
+    @Override
+    public void stop() {
+        stopRequested = true;
+        stopped = true;
+    }
+
+    /**
+     * Снимает запрос остановки.
+     */
+    @Override
+    public void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Сбрасывает флаг остановки перед поиском, сохраняя запрос stop(). Флаг сбрасывается до проверки
+     * запроса, поэтому stop() из другого потока в это время не теряется.
+     */
+    void clearStopped() {
+        stopped = false;
+        if (stopRequested) stopped = true;
+    }
+
+    /**
+     * Устанавливает глубину первой итерации. Используется для разнесения глубин потоков Lazy SMP.
+     *
+     * @param startDepth глубина первой итерации (не меньше 1)
+     */
+    public void setStartDepth(int startDepth) {
+        this.startDepth = Math.max(1, startDepth);
+    }
+
+    /**
+     * Включает или выключает упорядочивание ходов (для замеров его эффекта).
+     *
+     * @param enabled true - полное упорядочивание, false - только хеш-ход первым
+     */
+    public void setMoveOrdering(boolean enabled) {
+        this.orderingEnabled = enabled;
+    }
+
+    /**
+     * Включает или выключает поиск взятий в листьях (для замеров его эффекта).
+     *
+     * @param enabled true - листья продолжаются взятиями, false - статическая оценка в листьях
+     */
+    public void setQuiescence(boolean enabled) {
+        this.quiescenceEnabled = enabled;
+    }
+
+    /**
+     * Включает или выключает канонические ключи таблицы транспозиций: четыре поворота позиции
+     * (Symmetry) хранятся одной записью. При несимметричных стенах ключи не используются.
+     *
+     * @param enabled true - канонические ключи, false - обычные ключи позиции
+     */
+    public void setSymmetry(boolean enabled) {
+        this.symmetryEnabled = enabled;
+    }
+
+    /**
+     * Подключает таблицы эндшпиля: позиции из таблиц оцениваются точно, без перебора.
+     *
+     * @param tablebases набор таблиц или null, чтобы отключить
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Возвращает количество узлов текущего (или последнего) поиска. Читается без синхронизации.
+     *
+     * @return количество узлов
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Возвращает первый сгенерированный ход корня (ответ, если не завершена ни одна итерация).
+     */
+    private int firstMove() {
+        int count = generator.generate(state, rootTeam, moves[0], 0);
+        return count > 0 ? moves[0][0] : Move.NONE;
+    }
+
+    /**
+     * Учитывает узел и проверяет бюджет.
+     *
+     * @return true если поиск нужно прервать
+     */
+    protected boolean countNode() {
+        nodes++;
+        if (nodes >= maxNodes) stopped = true;
+        else if (nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) stopped = true;
+        return stopped;
+    }
+
+    /**
+     * Оценивает лист: статическая оценка, выбывшие команды получают LOSS.
+     *
+     * @param result массив для оценок, индекс - номер команды
+     */
+    protected void evaluate(int[] result) {
+        evaluator.evaluate(state, result);
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            if (state.isTeamEliminated(team)) result[team] = Evaluator.LOSS;
+        }
+    }
+
+    /**
+     * Оценивает конечную позицию: команды оставшейся коалиции выигрывают, остальные проигрывают.
+     * Поправка на глубину заставляет выбирать более быстрый выигрыш и более долгий проигрыш.
+     *
+     * @param ply расстояние от корня
+     * @param result массив для оценок, индекс - номер команды
+     */
+    protected void terminalScores(int ply, int[] result) {
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            result[team] = state.isTeamEliminated(team) || !state.isGameOver() ? Evaluator.LOSS + ply : Evaluator.WIN - ply;
+        }
+    }
+
+    /**
+     * Возвращает поворот позиции узла для таблицы транспозиций: в каноническую форму,
+     * если канонические ключи используются, иначе 0.
+     *
+     * @return число четвертей оборота (Symmetry)
+     */
+    protected int tableRotation() {
+        return symmetric ? Symmetry.canonicalRotation(state.getCurrentTeam()) : 0;
+    }
+
+    /**
+     * Возвращает ключ позиции узла для таблицы транспозиций.
+     *
+     * @param rotation поворот узла (tableRotation)
+     * @return ключ повернутой позиции
+     */
+    protected long tableKey(int rotation) {
+        return Symmetry.rotatedKey(state, rotation);
+    }
+
+    /**
+     * Переводит ход позиции узла в ход для записи в таблицу транспозиций.
+     *
+     * @param move ход
+     * @param rotation поворот узла (tableRotation)
+     * @return повернутый ход
+     */
+    protected static int toTableMove(int move, int rotation) {
+        return Symmetry.rotateMove(move, rotation);
+    }
+
+    /**
+     * Переводит ход из таблицы транспозиций в ход позиции узла.
+     *
+     * @param move ход из таблицы
+     * @param rotation поворот узла (tableRotation)
+     * @return ход позиции узла
+     */
+    protected static int fromTableMove(int move, int rotation) {
+        return Symmetry.rotateMove(move, Symmetry.inverse(rotation));
+    }
+
+    /**
+     * Переименовывает команды вектора оценок и переводит оценки выигрыша в расстояние от узла
+     * для записи в таблицу транспозиций.
+     *
+     * @param scores оценки по командам позиции узла
+     * @param rotation поворот узла (tableRotation)
+     * @param ply расстояние узла от корня
+     * @return оценки по командам повернутой позиции (буфер, действителен до следующего вызова)
+     */
+    protected int[] toTableScores(int[] scores, int rotation, int ply) {
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            tableScores[Symmetry.rotateTeam(team, rotation)] = toTableScore(scores[team], ply);
+        }
+        return tableScores;
+    }
+
+    /**
+     * Переводит оценку выигрыша в расстояние от текущей позиции для хранения в таблице.
+     *
+     * @param score оценка относительно корня
+     * @param ply расстояние узла от корня
+     * @return оценка для таблицы транспозиций
+     */
+    protected static int toTableScore(int score, int ply) {
+        if (score > Evaluator.WIN_BOUND) return score + ply;
+        if (score < -Evaluator.WIN_BOUND) return score - ply;
+        return score;
+    }
+
+    /**
+     * Переводит оценку выигрыша из таблицы в расстояние от корня.
+     *
+     * @param score оценка из таблицы транспозиций
+     * @param ply расстояние узла от корня
+     * @return оценка относительно корня
+     */
+    protected static int fromTableScore(int score, int ply) {
+        if (score > Evaluator.WIN_BOUND) return score - ply;
+        if (score < -Evaluator.WIN_BOUND) return score + ply;
+        return score;
+    }
+
+    /**
+     * Записывает главный вариант узла: ход и продолжение из следующей глубины.
+     *
+     * @param ply расстояние от корня
+     * @param move лучший ход узла
+     */
+    protected void updatePv(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    /**
+     * Готовит ходы узла к перебору в порядке приоритета.
+     *
+     * @param ply расстояние от корня
+     * @param team команда, чей ход
+     * @param list ходы
+     * @param count количество ходов
+     * @param hashMove ход из таблицы транспозиций или Move.NONE
+     */
+    protected void orderMoves(int ply, int team, int[] list, int count, int hashMove) {
+        if (orderingEnabled) ordering.score(state, ply, team, list, count, hashMove);
+        else moveToFront(list, count, hashMove);
+    }
+
+    /**
+     * Возвращает очередной ход узла в порядке приоритета.
+     *
+     * @param ply расстояние от корня
+     * @param list ходы, подготовленные orderMoves
+     * @param index номер очередного хода
+     * @param count количество ходов
+     * @return очередной ход
+     */
+    protected int nextMove(int ply, int[] list, int index, int count) {
+        return orderingEnabled ? ordering.next(ply, list, index, count) : list[index];
+    }
+
+    /**
+     * Сообщает упорядочиванию о ходе, вызвавшем отсечение.
+     *
+     * @param ply расстояние от корня
+     * @param team команда, чей ход
+     * @param move ход
+     * @param depth оставшаяся глубина узла
+     */
+    protected void recordCutoff(int ply, int team, int move, int depth) {
+        if (orderingEnabled) ordering.recordCutoff(ply, team, move, depth);
+    }
+
+    /**
+     * Ставит ход из таблицы транспозиций первым в списке.
+     *
+     * @param list список ходов
+     * @param count количество ходов
+     * @param move ход для перестановки или Move.NONE
+     */
+    protected static void moveToFront(int[] list, int count, int move) {
+        if (move == Move.NONE) return;
+        for (int i = 0; i < count; i++) {
+            if (list[i] == move) {
+                System.arraycopy(list, 0, list, 1, i);
+                list[0] = move;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.games.chess.src.search;
+
+/**
+ * Ядро вычислений сети NnueEvaluator над 16-битными аккумуляторами: добавление и вычитание строки весов
+ * входного признака и выходной слой с ограниченным ReLU. Есть скалярная реализация и реализация
+ * на Vector API; create() выбирает векторную, если модуль jdk.incubator.vector доступен во время выполнения.
+ */
+public interface AccumulatorKernel {
+
+    /**
+     * Имя класса векторной реализации (загружается по имени, см. FeatureKernel)
+     */
+    String VECTOR_KERNEL_CLASS = "org.games.chess.src.search.VectorAccumulatorKernel";
+
+    /**
+     * Прибавляет к аккумулятору строку весов.
+     *
+     * @param accumulator аккумулятор (длина - число нейронов скрытого слоя)
+     * @param weights веса всех признаков подряд
+     * @param offset начало строки признака в weights
+     */
+    void add(short[] accumulator, short[] weights, int offset);
+
+    /**
+     * Вычитает из аккумулятора строку весов.
+     *
+     * @param accumulator аккумулятор (длина - число нейронов скрытого слоя)
+     * @param weights веса всех признаков подряд
+     * @param offset начало строки признака в weights
+     */
+    void subtract(short[] accumulator, short[] weights, int offset);
+
+    /**
+     * Вычисляет выходной слой: сумма clamp(accumulator[i], 0, clip) * outputWeights[i] в 32-битной арифметике.
+     *
+     * @param accumulator аккумулятор
+     * @param outputWeights веса выходного слоя той же длины
+     * @param clip верхняя граница активации
+     * @return взвешенная сумма активаций
+     */
+    int forward(short[] accumulator, short[] outputWeights, int clip);
+
+    /**
+     * Возвращает название реализации для отчетов.
+     *
+     * @return название
+     */
+    String getName();
+
+    /**
+     * Создает лучшую доступную реализацию: векторную, если подключен модуль jdk.incubator.vector, иначе скалярную.
+     *
+     * @return ядро
+     */
+    static AccumulatorKernel create() {
+        try {
+            return (AccumulatorKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarAccumulatorKernel();
+        }
+    }
+}
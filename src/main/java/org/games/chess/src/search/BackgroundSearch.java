@@ -0,0 +1,77 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Запуск поиска в фоновом потоке, чтобы не блокировать поток JavaFX.
+ * Поиск получает копию позиции, поэтому доску игры можно менять сразу после запуска.
+ * Одновременно выполняется не больше одного поиска; новый запуск останавливает предыдущий.
+ */
+public class BackgroundSearch {
+
+    /**
+     * Движок поиска
+     */
+    private final SearchEngine engine;
+
+    /**
+     * Фоновый поток поиска
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Результат текущего поиска
+     */
+    private CompletableFuture<SearchResult> current;
+
+    /**
+     * Создает фоновый поиск.
+     *
+     * @param engine движок поиска (поиск выполняется только в фоновом потоке)
+     */
+    public BackgroundSearch(SearchEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Запускает поиск по копии позиции.
+     *
+     * @param position позиция (копируется в вызывающем потоке)
+     * @param limits ограничения поиска
+     * @return будущий результат поиска; завершается в фоновом потоке
+     */
+    public synchronized CompletableFuture<SearchResult> start(BoardState position, SearchLimits limits) {
+        cancel();
+        engine.resetStop();
+        BoardState snapshot = new BoardState(position);
+        current = CompletableFuture.supplyAsync(() -> engine.search(snapshot, limits), executor);
+        return current;
+    }
+
+    /**
+     * Останавливает текущий поиск. Результат поиска отменяется и не будет доставлен.
+     */
+    public synchronized void cancel() {
+        if (current == null) return;
+
+        engine.stop();
+        current.cancel(false);
+        current = null;
+    }
+
+    /**
+     * Останавливает поиск и завершает фоновый поток.
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
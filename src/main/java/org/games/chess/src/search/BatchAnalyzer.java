@@ -0,0 +1,250 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.PositionReader;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Пакетный анализ позиций: позиции читаются потоком из PositionReader, раздаются пулу потоков поиска,
+ * а результаты передаются получателю по мере готовности (в порядке завершения, с номером позиции в файле).
+ * Между чтением и потоками стоит очередь ограниченной длины: когда она заполнена, чтение ждет,
+ * поэтому в памяти одновременно не больше нескольких позиций на поток, каким бы большим ни был файл.
+ * У каждого потока свой поиск (от фабрики) с бюджетом узлов, глубины и времени на каждую позицию.
+ */
+public class BatchAnalyzer {
+
+    /**
+     * Сколько позиций на поток может ждать в очереди
+     */
+    private static final int QUEUE_PER_THREAD = 2;
+
+    /**
+     * Как часто чтение проверяет, не упал ли поток поиска, пока очередь заполнена (мс)
+     */
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    /**
+     * Количество потоков поиска
+     */
+    private final int threads;
+
+    /**
+     * Фабрика поисков: вызывается по разу в каждом потоке
+     */
+    private final Supplier<SearchEngine> factory;
+
+    /**
+     * Бюджет поиска одной позиции
+     */
+    private final SearchLimits limits;
+
+    /**
+     * Создает пакетный анализ.
+     *
+     * @param threads количество потоков поиска (не меньше 1)
+     * @param factory создает поиск для одного потока
+     * @param limits бюджет поиска одной позиции
+     */
+    public BatchAnalyzer(int threads, Supplier<SearchEngine> factory, SearchLimits limits) {
+        this.threads = Math.max(1, threads);
+        this.factory = factory;
+        this.limits = limits;
+    }
+
+    /**
+     * Анализирует все позиции читателя. Получатель вызывается из потоков поиска, но не одновременно.
+     *
+     * @param reader источник позиций (читается в вызывающем потоке)
+     * @param sink получатель результатов
+     * @return количество проанализированных позиций
+     * @throws IOException при ошибке чтения позиций
+     * @throws InterruptedException если вызывающий поток прерван
+     * @throws ExecutionException если поиск завершился исключением
+     */
+    public long run(PositionReader reader, Consumer<Analysis> sink)
+            throws IOException, InterruptedException, ExecutionException {
+        BlockingQueue<Task> queue = new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Future<?>[] workers = new Future<?>[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                workers[i] = pool.submit(() -> {
+                    analyze(queue, sink);
+                    return null;
+                });
+            }
+
+            long count = 0;
+            while (reader.next()) {
+                Task task = new Task(count++, reader.getName(), new BoardState(reader.getState()));
+                while (!queue.offer(task, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkWorkers(workers);
+                }
+            }
+            for (int i = 0; i < threads; i++) {
+                while (!queue.offer(Task.END, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    checkWorkers(workers);
+                }
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return count;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Цикл потока поиска: берет позиции из очереди до признака конца.
+     */
+    private void analyze(BlockingQueue<Task> queue, Consumer<Analysis> sink) throws InterruptedException {
+        SearchEngine engine = factory.get();
+        for (Task task; (task = queue.take()) != Task.END; ) {
+            SearchResult result = engine.search(task.state, limits);
+            Analysis analysis = new Analysis(task.index, task.name, task.state.getCurrentTeam(), result);
+            synchronized (sink) {
+                sink.accept(analysis);
+            }
+        }
+    }
+
+    /**
+     * Пробрасывает исключение потока поиска, если какой-то поток уже завершился.
+     */
+    private static void checkWorkers(Future<?>[] workers) throws InterruptedException, ExecutionException {
+        for (Future<?> worker : workers) {
+            if (worker.isDone()) {
+                worker.get();
+                throw new IllegalStateException("Поток анализа завершился раньше конца позиций");
+            }
+        }
+    }
+
+    /**
+     * Позиция в очереди анализа.
+     */
+    private static class Task {
+
+        /**
+         * Признак конца позиций (по одному на поток)
+         */
+        static final Task END = new Task(-1, null, null);
+
+        /**
+         * Номер позиции в файле (с нуля)
+         */
+        final long index;
+
+        /**
+         * Название позиции или null
+         */
+        final String name;
+
+        /**
+         * Позиция (копия)
+         */
+        final BoardState state;
+
+        /**
+         * Создает задание.
+         */
+        Task(long index, String name, BoardState state) {
+            this.index = index;
+            this.name = name;
+            this.state = state;
+        }
+    }
+
+    /**
+     * Результат анализа одной позиции.
+     */
+    public static class Analysis {
+
+        /**
+         * Номер позиции в файле (с нуля)
+         */
+        private final long index;
+
+        /**
+         * Название позиции или null
+         */
+        private final String name;
+
+        /**
+         * Команда, чей ход
+         */
+        private final int team;
+
+        /**
+         * Результат поиска
+         */
+        private final SearchResult result;
+
+        /**
+         * Создает результат анализа.
+         *
+         * @param index номер позиции в файле
+         * @param name название позиции или null
+         * @param team команда, чей ход
+         * @param result результат поиска
+         */
+        public Analysis(long index, String name, int team, SearchResult result) {
+            this.index = index;
+            this.name = name;
+            this.team = team;
+            this.result = result;
+        }
+
+        /**
+         * Возвращает номер позиции в файле.
+         *
+         * @return номер с нуля
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         * Возвращает название позиции (директива name).
+         *
+         * @return название или null
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Возвращает команду, чей ход.
+         *
+         * @return номер команды (1-4)
+         */
+        public int getTeam() {
+            return team;
+        }
+
+        /**
+         * Возвращает результат поиска: лучший ход, оценки команд, главный вариант, узлы и время.
+         *
+         * @return результат поиска
+         */
+        public SearchResult getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Symmetry;
+
+/**
+ * Поиск двух коалиций: команды 1 и 3 против команд 2 и 4.
+ * Союзники не могут брать фигуры друг друга (Piece.isEnemy), а игра заканчивается, когда остаются
+ * команды одной четности (FigureManager.checkGameEndCondition), поэтому игра сводится к двум сторонам,
+ * которые делают подходы по очереди: 1, 2, 3, 4 - это ходы сторон A, B, A, B.
+ * Поиск - negamax с альфа-бета отсечениями, где знак оценки меняется только при смене коалиции
+ * (после пропуска выбывшей команды подряд могут ходить две команды одной коалиции).
+ * Оценка коалиции - полусумма оценок ее не выбывших команд минус полусумма оценок команд противника.
+ * Листья продолжаются поиском взятий (quiescence), отсекающим проигрывающие взятия по SEE.
+ */
+public class CoalitionSearch extends AbstractSearch {
+
+    /**
+     * Соль ключа таблицы транспозиций: оценки коалиционного поиска хранятся отдельно от векторов max^n
+     */
+    private static final long KEY_SALT = 0x510E527FADE682D1L;
+
+    /**
+     * Оценки по командам для статической оценки (рабочий буфер)
+     */
+    private final int[] teamScores = new int[BoardState.TEAMS + 1];
+
+    /**
+     * Создает коалиционный поиск.
+     *
+     * @param generator генератор ходов
+     * @param evaluator статическая оценка (используется только этим поиском)
+     * @param table таблица транспозиций
+     */
+    public CoalitionSearch(MoveGenerator generator, Evaluator evaluator, TranspositionTable table) {
+        super(generator, evaluator, table);
+    }
+
+    /**
+     * Проверяет, входят ли две команды в одну коалицию.
+     *
+     * @param team первая команда
+     * @param other вторая команда
+     * @return true если команды одной четности
+     */
+    public static boolean isAlly(int team, int other) {
+        return ((team ^ other) & 1) == 0;
+    }
+
+    /**
+     * Выполняет итерацию: оценка коалиции корня записывается командам этой коалиции,
+     * а противоположная по знаку - командам другой коалиции.
+     *
+     * @param depth глубина итерации
+     * @param rootScores массив для оценок корня
+     */
+    @Override
+    protected void iterate(int depth, int[] rootScores) {
+        int score = alphaBeta(depth, 0, Evaluator.LOSS - 1, Evaluator.WIN + 1);
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            rootScores[team] = isAlly(team, rootTeam) ? score : -score;
+        }
+    }
+
+    /**
+     * Альфа-бета поиск с точки зрения коалиции команды, чей ход.
+     *
+     * @param depth оставшаяся глубина
+     * @param ply расстояние от корня
+     * @param alpha нижняя граница
+     * @param beta верхняя граница
+     * @return оценка позиции для коалиции команды, чей ход
+     */
+    protected int alphaBeta(int depth, int ply, int alpha, int beta) {
+        if (depth <= 0 && quiescenceEnabled) return quiescence(ply, alpha, beta);
+
+        pvLength[ply] = 0;
+        if (countNode()) return 0;
+
+        int team = state.getCurrentTeam();
+        if (state.isGameOver()) return terminalScore(team, ply);
+        if (ply > 0 && tablebases != null) {
+            int distance = tablebases.probe(state);
+            if (distance != Tablebase.UNKNOWN) return tablebaseScore(distance, ply);
+        }
+        if (depth <= 0 || ply == MAX_PLY) return evaluateCoalition(team);
+
+        int rotation = tableRotation();
+        int tableTeam = Symmetry.rotateTeam(team, rotation);
+        long key = tableKey(rotation) ^ KEY_SALT;
+        int hashMove = Move.NONE;
+        if (table.probe(key, entry)) {
+            int stored = fromTableScore(entry.scores[tableTeam], ply);
+            if (ply > 0 && entry.depth >= depth
+                    && (entry.bound == TranspositionTable.BOUND_EXACT
+                    || entry.bound == TranspositionTable.BOUND_LOWER && stored >= beta
+                    || entry.bound == TranspositionTable.BOUND_UPPER && stored <= alpha)) {
+                return stored;
+            }
+            hashMove = fromTableMove(entry.move, rotation);
+        }
+
+        int[] list = moves[ply];
+        int count = generator.generate(state, team, list, 0);
+        if (count == 0) {
+            state.makeNullMove();
+            int score = searchChild(team, depth - 1, ply + 1, alpha, beta);
+            state.unmakeMove();
+            return score;
+        }
+        orderMoves(ply, team, list, count, hashMove);
+
+        int originalAlpha = alpha;
+        int best = Integer.MIN_VALUE;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, list, i, count);
+            state.makeMove(move);
+            int score = searchChild(team, depth - 1, ply + 1, alpha, beta);
+            state.unmakeMove();
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                updatePv(ply, move);
+            }
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) {
+                recordCutoff(ply, team, move, depth);
+                break;
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.BOUND_UPPER
+                : best >= beta ? TranspositionTable.BOUND_LOWER : TranspositionTable.BOUND_EXACT;
+        int[] stored = scores[ply];
+        stored[tableTeam] = toTableScore(best, ply);
+        table.store(key, toTableMove(bestMove, rotation), depth, bound, stored);
+        return best;
+    }
+
+    /**
+     * Поиск взятий до спокойной позиции: команда может отказаться от взятий (статическая оценка),
+     * а взятия с отрицательным балансом размена (SEE) не рассматриваются.
+     *
+     * @param ply расстояние от корня
+     * @param alpha нижняя граница
+     * @param beta верхняя граница
+     * @return оценка позиции для коалиции команды, чей ход
+     */
+    protected int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (countNode()) return 0;
+
+        int team = state.getCurrentTeam();
+        if (state.isGameOver()) return terminalScore(team, ply);
+
+        int best = evaluateCoalition(team);
+        if (best >= beta || ply == MAX_PLY) return best;
+        if (best > alpha) alpha = best;
+
+        int[] list = moves[ply];
+        int count = generator.generateCaptures(state, team, list, 0);
+        orderMoves(ply, team, list, count, Move.NONE);
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, list, i, count);
+            if (exchange.evaluate(state, move) < 0) continue;
+
+            state.makeMove(move);
+            int score = searchChild(team, 0, ply + 1, alpha, beta);
+            state.unmakeMove();
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                updatePv(ply, move);
+            }
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) break;
+        }
+        return best;
+    }
+
+    /**
+     * Оценивает конечную позицию с точки зрения команды, чей ход.
+     * Ход всегда у не выбывшей команды, поэтому при окончании игры ее коалиция победила.
+     */
+    private int terminalScore(int team, int ply) {
+        return state.isTeamEliminated(team) ? Evaluator.LOSS + ply : Evaluator.WIN - ply;
+    }
+
+    /**
+     * Переводит результат таблицы эндшпиля в оценку с точки зрения команды, чей ход: взятие короля
+     * через distance полуходов оценивается как конечная позиция на глубине ply + distance.
+     */
+    private static int tablebaseScore(int distance, int ply) {
+        if (distance > 0) return Evaluator.WIN - (ply + distance);
+        if (distance < 0) return Evaluator.LOSS + (ply - distance);
+        return 0;
+    }
+
+    /**
+     * Ищет позицию после хода команды team: если ход перешел к противоположной коалиции,
+     * окно и оценка меняют знак, иначе передаются как есть.
+     */
+    private int searchChild(int team, int depth, int ply, int alpha, int beta) {
+        if (isAlly(team, state.getCurrentTeam())) return alphaBeta(depth, ply, alpha, beta);
+        return -alphaBeta(depth, ply, -beta, -alpha);
+    }
+
+    /**
+     * Статическая оценка с точки зрения коалиции команды.
+     *
+     * @param team команда, чья коалиция оценивается
+     * @return полусумма оценок своих не выбывших команд минус полусумма оценок команд противника
+     */
+    protected int evaluateCoalition(int team) {
+        evaluator.evaluate(state, teamScores);
+        int sum = 0;
+        for (int other = 1; other <= BoardState.TEAMS; other++) {
+            if (state.isTeamEliminated(other)) continue;
+            sum += isAlly(team, other) ? teamScores[other] : -teamScores[other];
+        }
+        return sum / 2;
+    }
+}
@@ -0,0 +1,94 @@
+package org.games.chess.src.search;
+
+/**
+ * Уровень сложности компьютерного игрока.
+ * Младшие уровни ограничены бюджетом узлов (сила не зависит от скорости машины),
+ * старшие играют по часам команды (TeamClock, бюджет хода - TimeManager).
+ */
+public enum Difficulty {
+
+    /**
+     * Новичок: неглубокий поиск с малым бюджетом узлов
+     */
+    EASY(3, 5_000, false, false),
+
+    /**
+     * Любитель: бюджет узлов
+     */
+    NORMAL(SearchEngine.MAX_PLY, 100_000, false, false),
+
+    /**
+     * Сильный игрок: время хода по часам команды
+     */
+    HARD(SearchEngine.MAX_PLY, SearchLimits.UNLIMITED, true, false),
+
+    /**
+     * Мастер: время хода по часам команды и размышление во время чужих ходов
+     */
+    MASTER(SearchEngine.MAX_PLY, SearchLimits.UNLIMITED, true, true);
+
+    /**
+     * Максимальная глубина поиска
+     */
+    private final int maxDepth;
+
+    /**
+     * Бюджет узлов или SearchLimits.UNLIMITED
+     */
+    private final long maxNodes;
+
+    /**
+     * Играет ли уровень по часам команды
+     */
+    private final boolean clocked;
+
+    /**
+     * Размышляет ли уровень во время ходов других команд (PonderingPlayer)
+     */
+    private final boolean pondering;
+
+    /**
+     * Создает уровень сложности.
+     *
+     * @param maxDepth максимальная глубина
+     * @param maxNodes бюджет узлов или SearchLimits.UNLIMITED
+     * @param clocked true - бюджет времени хода по часам команды
+     * @param pondering true - размышлять во время чужих ходов
+     */
+    Difficulty(int maxDepth, long maxNodes, boolean clocked, boolean pondering) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.clocked = clocked;
+        this.pondering = pondering;
+    }
+
+    /**
+     * Возвращает ограничения поиска для одного хода команды на этом уровне.
+     *
+     * @param clock часы команд
+     * @param team номер команды (1-4)
+     * @return ограничения поиска: по часам (TimeManager.allocate) или по глубине и узлам
+     */
+    public SearchLimits getLimits(TeamClock clock, int team) {
+        if (clocked) return TimeManager.allocate(clock, team);
+        return new SearchLimits(maxDepth, maxNodes, SearchLimits.UNLIMITED);
+    }
+
+    /**
+     * Проверяет, играет ли уровень по часам команды.
+     *
+     * @return true если бюджет хода берется из часов
+     */
+    public boolean isClocked() {
+        return clocked;
+    }
+
+    /**
+     * Проверяет, размышляет ли уровень во время ходов других команд.
+     *
+     * @return true если игрок размышляет
+     */
+    public boolean isPondering() {
+        return pondering;
+    }
+}
@@ -0,0 +1,36 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+
+/**
+ * Статическая оценка позиции для поиска.
+ * Оценка - вектор по командам: каждая не выбывшая команда получает оценку позиции со своей точки зрения
+ * в сантипешках. Оценки выбывших команд поиск заменяет на LOSS сам.
+ * Реализации могут хранить состояние (например, инкрементальные суммы), поэтому один объект
+ * используется только одним потоком поиска.
+ */
+public interface Evaluator {
+
+    /**
+     * Оценка выигрыша (коалиция команды осталась одна)
+     */
+    int WIN = 30000;
+
+    /**
+     * Оценка проигрыша (команда выбыла или ее коалиция проиграла)
+     */
+    int LOSS = -WIN;
+
+    /**
+     * Граница оценок выигрыша и проигрыша с поправкой на глубину: оценки по модулю больше нее - не эвристические
+     */
+    int WIN_BOUND = WIN - 1000;
+
+    /**
+     * Оценивает позицию.
+     *
+     * @param state позиция
+     * @param scores массив для оценок, индекс - номер команды (не меньше BoardState.TEAMS + 1 элементов)
+     */
+    void evaluate(BoardState state, int[] scores);
+}
@@ -0,0 +1,184 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.AttackTables;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Оценка по признакам на всех 256 клетках: материал, подвижность и атаки на зоны королей противника
+ * для всех четырех команд. Один проход по доске заполняет плоскости признаков (ценность и команда фигуры
+ * на клетке, число атак каждой команды на клетку, зона королей противников каждой команды),
+ * после чего все суммы считаются ядром FeatureKernel - векторным, если доступен jdk.incubator.vector.
+ * Атаки строятся по таблицам AttackTables, поэтому стены и неактивные клетки учитываются как в генераторе ходов.
+ * Объект принадлежит одному поиску.
+ */
+public class FeatureEvaluator implements Evaluator {
+
+    /**
+     * Вес одной атакованной клетки, не занятой своей фигурой
+     */
+    private static final int MOBILITY_WEIGHT = 2;
+
+    /**
+     * Вес одной атаки на клетку зоны короля противника
+     */
+    private static final int KING_ATTACK_WEIGHT = 12;
+
+    /**
+     * Генератор ходов, хранящий таблицы текущего набора стен
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * Ядро свертки признаков
+     */
+    private final FeatureKernel kernel;
+
+    /**
+     * Материальная ценность фигуры на клетке
+     */
+    private final int[] pieceValues = new int[BoardState.SQUARES];
+
+    /**
+     * Команда фигуры на клетке (0 - пусто)
+     */
+    private final int[] pieceTeams = new int[BoardState.SQUARES];
+
+    /**
+     * Количество атак каждой команды на каждую клетку
+     */
+    private final int[][] attacks = new int[BoardState.TEAMS + 1][BoardState.SQUARES];
+
+    /**
+     * Зона королей противников каждой команды: 1 на клетке короля и соседних с ним клетках
+     */
+    private final int[][] enemyKingZones = new int[BoardState.TEAMS + 1][BoardState.SQUARES];
+
+    /**
+     * Сырые оценки команд (рабочий буфер)
+     */
+    private final int[] raw = new int[BoardState.TEAMS + 1];
+
+    /**
+     * Создает оценку с лучшим доступным ядром (FeatureKernel.create()).
+     *
+     * @param generator генератор ходов
+     */
+    public FeatureEvaluator(MoveGenerator generator) {
+        this(generator, FeatureKernel.create());
+    }
+
+    /**
+     * Создает оценку с заданным ядром.
+     *
+     * @param generator генератор ходов
+     * @param kernel ядро свертки признаков
+     */
+    public FeatureEvaluator(MoveGenerator generator, FeatureKernel kernel) {
+        this.generator = generator;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Возвращает ядро свертки признаков.
+     *
+     * @return ядро
+     */
+    public FeatureKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Вычисляет оценки команд: своя сырая оценка минус средняя сырая оценка противников.
+     *
+     * @param state позиция
+     * @param scores массив для оценок, индекс - номер команды
+     */
+    @Override
+    public void evaluate(BoardState state, int[] scores) {
+        fillPlanes(state);
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            int material = kernel.sumWhereEqual(pieceValues, pieceTeams, team);
+            int mobility = kernel.sumWhereNotEqual(attacks[team], pieceTeams, team);
+            int kingAttacks = kernel.dot(attacks[team], enemyKingZones[team]);
+            raw[team] = material + MOBILITY_WEIGHT * mobility + KING_ATTACK_WEIGHT * kingAttacks;
+        }
+        MaterialEvaluator.scoreByMaterial(raw, scores);
+    }
+
+    /**
+     * Заполняет плоскости признаков одним проходом по доске.
+     */
+    private void fillPlanes(BoardState state) {
+        AttackTables tables = generator.getAttackTables();
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            Arrays.fill(attacks[team], 0);
+            Arrays.fill(enemyKingZones[team], 0);
+        }
+
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int code = state.getPiece(sq);
+            pieceTeams[sq] = Piece.teamOf(code);
+            pieceValues[sq] = MaterialEvaluator.PIECE_VALUES[Piece.typeOf(code)];
+            if (code == Piece.EMPTY) continue;
+
+            int team = Piece.teamOf(code);
+            int[] attacked = attacks[team];
+            switch (Piece.typeOf(code)) {
+                case Piece.PAWN -> addTargets(attacked, tables.getPawnCaptures(team, sq));
+                case Piece.KNIGHT -> addTargets(attacked, tables.getKnightTargets(sq));
+                case Piece.BISHOP -> addSlides(state, tables, attacked, sq, 1);
+                case Piece.ROOK -> addSlides(state, tables, attacked, sq, 0);
+                case Piece.QUEEN -> {
+                    addSlides(state, tables, attacked, sq, 0);
+                    addSlides(state, tables, attacked, sq, 1);
+                }
+                case Piece.KING -> {
+                    addTargets(attacked, tables.getKingTargets(sq));
+                    markKingZone(tables, team, sq);
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Добавляет атаки по списку клеток.
+     */
+    private static void addTargets(int[] attacked, int[] targets) {
+        for (int to : targets) {
+            attacked[to]++;
+        }
+    }
+
+    /**
+     * Добавляет атаки дальнобойной фигуры по четырем лучам до первой занятой клетки включительно.
+     *
+     * @param first 0 - прямые направления, 1 - диагонали
+     */
+    private static void addSlides(BoardState state, AttackTables tables, int[] attacked, int sq, int first) {
+        for (int dir = first; dir < MoveGenerator.DIRECTION_DX.length; dir += 2) {
+            for (int to : tables.getRay(dir, sq)) {
+                attacked[to]++;
+                if (state.getPiece(to) != Piece.EMPTY) break;
+            }
+        }
+    }
+
+    /**
+     * Отмечает зону короля в плоскостях команд противоположной коалиции.
+     */
+    private void markKingZone(AttackTables tables, int kingTeam, int kingSq) {
+        for (int team = 1 + (kingTeam & 1); team <= BoardState.TEAMS; team += 2) {
+            int[] zone = enemyKingZones[team];
+            zone[kingSq] = 1;
+            for (int sq : tables.getKingTargets(kingSq)) {
+                zone[sq] = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.games.chess.src.search;
+
+/**
+ * Ядро свертки признаков по клеткам доски для FeatureEvaluator: суммы и скалярные произведения
+ * массивов длиной BoardState.SQUARES. Есть скалярная реализация и реализация на Vector API
+ * (jdk.incubator.vector); create() выбирает векторную, если модуль доступен во время выполнения.
+ */
+public interface FeatureKernel {
+
+    /**
+     * Имя класса векторной реализации (загружается по имени, чтобы без модуля jdk.incubator.vector
+     * не возникало ошибки связывания)
+     */
+    String VECTOR_KERNEL_CLASS = "org.games.chess.src.search.VectorFeatureKernel";
+
+    /**
+     * Вычисляет скалярное произведение.
+     *
+     * @param a первый массив
+     * @param b второй массив той же длины
+     * @return сумма a[i] * b[i]
+     */
+    int dot(int[] a, int[] b);
+
+    /**
+     * Суммирует значения, чей ключ равен заданному.
+     *
+     * @param values значения
+     * @param keys ключи той же длины
+     * @param key ключ
+     * @return сумма values[i] при keys[i] == key
+     */
+    int sumWhereEqual(int[] values, int[] keys, int key);
+
+    /**
+     * Суммирует значения, чей ключ не равен заданному.
+     *
+     * @param values значения
+     * @param keys ключи той же длины
+     * @param key ключ
+     * @return сумма values[i] при keys[i] != key
+     */
+    int sumWhereNotEqual(int[] values, int[] keys, int key);
+
+    /**
+     * Возвращает название реализации для отчетов.
+     *
+     * @return название
+     */
+    String getName();
+
+    /**
+     * Создает лучшую доступную реализацию: векторную, если модуль jdk.incubator.vector подключен
+     * (--add-modules jdk.incubator.vector), иначе скалярную.
+     *
+     * @return ядро свертки
+     */
+    static FeatureKernel create() {
+        try {
+            return (FeatureKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarFeatureKernel();
+        }
+    }
+}
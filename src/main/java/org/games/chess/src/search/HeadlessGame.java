@@ -0,0 +1,374 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Партия движков без JavaFX: каждая команда ходит ходом своего движка, пока игра не закончится.
+ * Правила те же, что и в игре: взятие короля выводит его команду вместе с фигурами
+ * (BoardState.makeMove, как FigureManager.setLosingTeam), партия заканчивается, когда выбыли хотя бы
+ * две команды и оставшиеся одной четности (BoardState.isGameOver, как FigureManager.checkGameEndCondition).
+ * Побеждает коалиция оставшихся команд. Первые полуходы партии могут быть случайными,
+ * чтобы партии между одними и теми же движками не повторялись. С подключенной дебютной книгой
+ * ход позиции из книги делается без поиска. Если у команды нет ходов, ход пропускается;
+ * партия признается ничьей, если ходов нет ни у одной команды или достигнут предел полуходов.
+ * С часами (setClock) у каждой команды свои часы TeamClock, бюджет хода движка вычисляет TimeManager,
+ * а время поиска списывается с часов команды; вышедшее время не засчитывается поражением.
+ * Объект не потокобезопасен: для параллельных партий у каждого потока свой объект и свои движки.
+ */
+public class HeadlessGame {
+
+    /**
+     * Предел полуходов партии по умолчанию
+     */
+    public static final int DEFAULT_MAX_PLIES = 800;
+
+    /**
+     * Причина окончания партии
+     */
+    public enum Termination {
+        /**
+         * Выбыли короли противоположной коалиции
+         */
+        KINGS,
+        /**
+         * Ни у одной команды нет ходов
+         */
+        NO_MOVES,
+        /**
+         * Достигнут предел полуходов
+         */
+        MAX_PLIES
+    }
+
+    /**
+     * Генератор ходов для случайных полуходов и проверки ходов из книги
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * Движки команд, индекс - номер команды
+     */
+    private final SearchEngine[] engines = new SearchEngine[BoardState.TEAMS + 1];
+
+    /**
+     * Ограничения поиска на один ход
+     */
+    private final SearchLimits limits;
+
+    /**
+     * Предел полуходов
+     */
+    private final int maxPlies;
+
+    /**
+     * Дебютная книга или null
+     */
+    private OpeningBook book;
+
+    /**
+     * Время на партию для каждой команды в миллисекундах (0 - без часов)
+     */
+    private long clockMillis;
+
+    /**
+     * Добавка времени после хода в миллисекундах
+     */
+    private long clockIncrementMillis;
+
+    /**
+     * Создает партию.
+     *
+     * @param generator генератор ходов (для случайных полуходов)
+     * @param oddEngine движок команд 1 и 3
+     * @param evenEngine движок команд 2 и 4
+     * @param limits ограничения поиска на один ход
+     * @param maxPlies предел полуходов
+     */
+    public HeadlessGame(MoveGenerator generator, SearchEngine oddEngine, SearchEngine evenEngine,
+                        SearchLimits limits, int maxPlies) {
+        this.generator = generator;
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            engines[team] = team % 2 == 1 ? oddEngine : evenEngine;
+        }
+        this.limits = limits;
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Подключает дебютную книгу: ход из книги выбирается случайно по весам (или лучший по весу,
+     * если партия играется без источника случайности).
+     *
+     * @param book книга или null
+     */
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Включает игру по часам команд: ограничения limits заменяются бюджетом хода из TimeManager.
+     *
+     * @param initialMillis время на партию для каждой команды (0 - без часов)
+     * @param incrementMillis добавка после каждого хода
+     */
+    public void setClock(long initialMillis, long incrementMillis) {
+        this.clockMillis = initialMillis;
+        this.clockIncrementMillis = incrementMillis;
+    }
+
+    /**
+     * Играет партию из позиции до конца.
+     *
+     * @param start начальная позиция (не изменяется)
+     * @return итог партии
+     */
+    public Outcome play(BoardState start) {
+        return play(start, null, 0);
+    }
+
+    /**
+     * Играет партию из позиции до конца; первые полуходы выбираются случайно среди всех ходов.
+     *
+     * @param start начальная позиция (не изменяется)
+     * @param random источник случайных полуходов (null, если randomPlies = 0)
+     * @param randomPlies количество случайных полуходов в начале партии
+     * @return итог партии
+     */
+    public Outcome play(BoardState start, Random random, int randomPlies) {
+        BoardState state = new BoardState(start);
+        state.clearHistory();
+
+        int[] moves = new int[64];
+        int[] candidates = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = 0;
+        int[] eliminationOrder = new int[BoardState.TEAMS];
+        int eliminated = 0;
+        long nodes = 0;
+        int passes = 0;
+        long startNanos = System.nanoTime();
+        TeamClock clock = clockMillis > 0 ? new TeamClock(clockMillis, clockIncrementMillis) : null;
+
+        Termination termination = Termination.MAX_PLIES;
+        while (moveCount < maxPlies) {
+            if (state.isGameOver()) {
+                termination = Termination.KINGS;
+                break;
+            }
+
+            int team = state.getCurrentTeam();
+            if (clock != null) clock.start(team);
+            int move = moveCount < randomPlies ? randomMove(state, random, candidates)
+                    : probeBook(state, random, candidates);
+            if (move == Move.NONE) {
+                SearchResult result = engines[team].search(state,
+                        clock != null ? TimeManager.allocate(clock, team) : limits);
+                nodes += result.getNodes();
+                move = result.getBestMove();
+            }
+
+            if (move == Move.NONE) {
+                if (++passes >= liveTeamCount(state)) {
+                    termination = Termination.NO_MOVES;
+                    break;
+                }
+                state.makeNullMove();
+            } else {
+                passes = 0;
+                int before = state.getEliminatedMask();
+                state.makeMove(move);
+                eliminated = recordEliminations(before, state.getEliminatedMask(), eliminationOrder, eliminated);
+            }
+
+            if (clock != null) clock.finishMove();
+            if (moveCount == moves.length) moves = Arrays.copyOf(moves, moveCount * 2);
+            moves[moveCount++] = move;
+        }
+
+        int winner = termination == Termination.KINGS ? winningCoalition(state) : 0;
+        return new Outcome(winner, termination, Arrays.copyOf(moves, moveCount),
+                Arrays.copyOf(eliminationOrder, eliminated), nodes, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Выбирает случайный ход позиции.
+     *
+     * @return ход или Move.NONE, если ходов нет
+     */
+    private int randomMove(BoardState state, Random random, int[] candidates) {
+        int count = generator.generate(state, state.getCurrentTeam(), candidates, 0);
+        return count > 0 ? candidates[random.nextInt(count)] : Move.NONE;
+    }
+
+    /**
+     * Ищет ход позиции в дебютной книге и проверяет, что он есть среди ходов позиции.
+     *
+     * @return ход из книги или Move.NONE
+     */
+    private int probeBook(BoardState state, Random random, int[] candidates) {
+        if (book == null) return Move.NONE;
+
+        int move = random != null ? book.chooseMove(state, random.nextLong()) : book.bestMove(state);
+        if (move == Move.NONE) return Move.NONE;
+
+        int count = generator.generate(state, state.getCurrentTeam(), candidates, 0);
+        for (int i = 0; i < count; i++) {
+            if (candidates[i] == move) return move;
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Дописывает в порядок выбывания команды, выбывшие за ход.
+     *
+     * @return новое количество выбывших команд
+     */
+    private static int recordEliminations(int before, int after, int[] order, int count) {
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            if ((after & ~before & 1 << team) != 0) order[count++] = team;
+        }
+        return count;
+    }
+
+    /**
+     * Возвращает количество не выбывших команд.
+     */
+    private static int liveTeamCount(BoardState state) {
+        int count = 0;
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            if (!state.isTeamEliminated(team)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Определяет коалицию, оставшуюся в законченной партии.
+     *
+     * @return 1 - команды 1 и 3, 2 - команды 2 и 4
+     */
+    private static int winningCoalition(BoardState state) {
+        return !state.isTeamEliminated(1) || !state.isTeamEliminated(3) ? 1 : 2;
+    }
+
+    /**
+     * Итог партии.
+     */
+    public static class Outcome {
+
+        /**
+         * Победившая коалиция: 1 - команды 1 и 3, 2 - команды 2 и 4, 0 - ничья
+         */
+        private final int winner;
+
+        /**
+         * Причина окончания
+         */
+        private final Termination termination;
+
+        /**
+         * Сделанные ходы (Move.NONE - пропуск хода)
+         */
+        private final int[] moves;
+
+        /**
+         * Команды в порядке выбывания
+         */
+        private final int[] eliminationOrder;
+
+        /**
+         * Узлов поиска за партию
+         */
+        private final long nodes;
+
+        /**
+         * Время партии в наносекундах
+         */
+        private final long timeNanos;
+
+        /**
+         * Создает итог партии.
+         *
+         * @param winner победившая коалиция или 0
+         * @param termination причина окончания
+         * @param moves сделанные ходы
+         * @param eliminationOrder команды в порядке выбывания
+         * @param nodes узлов поиска
+         * @param timeNanos время партии в наносекундах
+         */
+        public Outcome(int winner, Termination termination, int[] moves, int[] eliminationOrder,
+                       long nodes, long timeNanos) {
+            this.winner = winner;
+            this.termination = termination;
+            this.moves = moves;
+            this.eliminationOrder = eliminationOrder;
+            this.nodes = nodes;
+            this.timeNanos = timeNanos;
+        }
+
+        /**
+         * Возвращает победившую коалицию.
+         *
+         * @return 1 - команды 1 и 3, 2 - команды 2 и 4, 0 - ничья
+         */
+        public int getWinner() {
+            return winner;
+        }
+
+        /**
+         * Возвращает причину окончания партии.
+         *
+         * @return причина
+         */
+        public Termination getTermination() {
+            return termination;
+        }
+
+        /**
+         * Возвращает сделанные ходы (не изменять).
+         *
+         * @return ходы по порядку, Move.NONE - пропуск хода
+         */
+        public int[] getMoves() {
+            return moves;
+        }
+
+        /**
+         * Возвращает количество полуходов партии.
+         *
+         * @return полуходы, включая пропуски
+         */
+        public int getPlies() {
+            return moves.length;
+        }
+
+        /**
+         * Возвращает команды в порядке выбывания (не изменять).
+         *
+         * @return номера команд
+         */
+        public int[] getEliminationOrder() {
+            return eliminationOrder;
+        }
+
+        /**
+         * Возвращает количество узлов поиска за партию.
+         *
+         * @return узлы
+         */
+        public long getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Возвращает время партии.
+         *
+         * @return наносекунды
+         */
+        public long getTimeNanos() {
+            return timeNanos;
+        }
+    }
+}
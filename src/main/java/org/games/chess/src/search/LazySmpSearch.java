@@ -0,0 +1,188 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Параллельный поиск Lazy SMP: несколько одинаковых поисков над одной позицией и общей таблицей транспозиций.
+ * Потоки почти не синхронизируются: помощники заполняют таблицу, а основной поиск использует их оценки
+ * и лучшие ходы. Помощники с нечетным номером начинают итеративное углубление на одну глубину глубже,
+ * чтобы потоки не повторяли одну и ту же работу.
+ * <p>
+ * В детерминированном режиме поиски выполняются по очереди в вызывающем потоке: каждый помощник
+ * получает равную долю бюджета узлов, затем основной поиск - свою долю. Результат при этом
+ * одинаков при каждом запуске, что нужно для тестов и воспроизведения партий.
+ */
+public class LazySmpSearch implements SearchEngine {
+
+    /**
+     * Поиски по потокам (индекс 0 - основной)
+     */
+    private final AbstractSearch[] workers;
+
+    /**
+     * Потоки помощников (null в детерминированном режиме)
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Детерминированный режим
+     */
+    private final boolean deterministic;
+
+    /**
+     * Создает параллельный поиск.
+     *
+     * @param threads количество потоков, включая вызывающий (не меньше 1)
+     * @param factory создает поиск для одного потока; все поиски должны использовать одну таблицу транспозиций
+     * @param deterministic выполнять поиски по очереди с фиксированными бюджетами узлов
+     */
+    public LazySmpSearch(int threads, Supplier<AbstractSearch> factory, boolean deterministic) {
+        this.deterministic = deterministic;
+        this.workers = new AbstractSearch[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = factory.get();
+            workers[i].setStartDepth(1 + i % 2);
+        }
+
+        this.executor = deterministic || workers.length == 1 ? null
+                : Executors.newFixedThreadPool(workers.length - 1, runnable -> {
+                    Thread thread = new Thread(runnable, "search-helper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Возвращает количество потоков поиска.
+     *
+     * @return количество потоков, включая основной
+     */
+    public int getThreadCount() {
+        return workers.length;
+    }
+
+    /**
+     * Ищет лучший ход всеми потоками. Ответ - результат потока, завершившего самую глубокую итерацию
+     * (при равной глубине - основного), количество узлов - сумма по всем потокам.
+     *
+     * @param position позиция
+     * @param limits ограничения поиска (бюджет узлов - общий для всех потоков)
+     * @return результат поиска
+     */
+    @Override
+    public SearchResult search(BoardState position, SearchLimits limits) {
+        long start = System.nanoTime();
+        SearchResult[] results = deterministic ? searchSequentially(position, limits) : searchInParallel(position, limits);
+
+        SearchResult best = results[0];
+        long nodes = 0;
+        for (SearchResult result : results) {
+            nodes += result.getNodes();
+            if (result.getDepth() > best.getDepth()) best = result;
+        }
+        return best.withStatistics(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Запускает помощников в пуле потоков и основной поиск в вызывающем потоке.
+     * Когда основной поиск заканчивается, помощники останавливаются.
+     */
+    private SearchResult[] searchInParallel(BoardState position, SearchLimits limits) {
+        SearchLimits shared = splitNodes(limits, workers.length);
+        startSearch();
+        List<Future<SearchResult>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            AbstractSearch worker = workers[i];
+            BoardState snapshot = new BoardState(position);
+            helpers.add(executor.submit(() -> worker.runSearch(snapshot, shared)));
+        }
+
+        SearchResult[] results = new SearchResult[workers.length];
+        results[0] = workers[0].runSearch(position, shared);
+        for (int i = 1; i < workers.length; i++) {
+            workers[i].stopped = true;
+        }
+
+        for (int i = 1; i < workers.length; i++) {
+            try {
+                results[i] = helpers.get(i - 1).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results[i] = results[0];
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ошибка в потоке поиска", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Выполняет поиски по очереди: сначала помощники, затем основной поиск.
+     */
+    private SearchResult[] searchSequentially(BoardState position, SearchLimits limits) {
+        SearchLimits share = splitNodes(limits, workers.length);
+        startSearch();
+        SearchResult[] results = new SearchResult[workers.length];
+        for (int i = workers.length - 1; i >= 0; i--) {
+            results[i] = workers[i].runSearch(position, share);
+        }
+        return results;
+    }
+
+    /**
+     * Готовит потоки к поиску до их запуска: сбрасывает флаги остановки (запрос stop(), пришедший
+     * до начала поиска, сохраняется) и один раз начинает новое поколение общей таблицы транспозиций
+     * (runSearch потоков поколение не меняет).
+     */
+    private void startSearch() {
+        for (AbstractSearch worker : workers) {
+            worker.clearStopped();
+        }
+        workers[0].table.newSearch();
+    }
+
+    /**
+     * Делит общий бюджет узлов поровну между потоками.
+     */
+    private static SearchLimits splitNodes(SearchLimits limits, int parts) {
+        if (limits.getMaxNodes() == SearchLimits.UNLIMITED) return limits;
+        return new SearchLimits(limits.getMaxDepth(), Math.max(1, limits.getMaxNodes() / parts),
+                limits.getMaxTimeMillis(), limits.getSoftTimeMillis());
+    }
+
+    /**
+     * Останавливает все потоки поиска.
+     */
+    @Override
+    public void stop() {
+        for (AbstractSearch worker : workers) {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Снимает запрос остановки всех потоков.
+     */
+    @Override
+    public void resetStop() {
+        for (AbstractSearch worker : workers) {
+            worker.resetStop();
+        }
+    }
+
+    /**
+     * Останавливает поиск и завершает потоки помощников.
+     */
+    public void shutdown() {
+        stop();
+        if (executor != null) executor.shutdownNow();
+    }
+}
@@ -0,0 +1,53 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Piece;
+
+/**
+ * Оценка по материалу: материал команды минус средний материал двух команд противоположной коалиции.
+ * Материал союзника на оценку команды не влияет, поэтому в max^n каждая команда стремится
+ * сохранить свои фигуры и уменьшить фигуры противников.
+ */
+public class MaterialEvaluator implements Evaluator {
+
+    /**
+     * Стоимость фигур в сантипешках, индекс - тип фигуры (король не оценивается: его взятие выводит команду)
+     */
+    public static final int[] PIECE_VALUES = {0, 100, 300, 325, 500, 900, 0};
+
+    /**
+     * Материал по командам (рабочий буфер)
+     */
+    private final int[] material = new int[BoardState.TEAMS + 1];
+
+    /**
+     * Оценивает позицию по материалу.
+     *
+     * @param state позиция
+     * @param scores массив для оценок, индекс - номер команды
+     */
+    @Override
+    public void evaluate(BoardState state, int[] scores) {
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            material[team] = 0;
+        }
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int code = state.getPiece(sq);
+            if (code != Piece.EMPTY) material[Piece.teamOf(code)] += PIECE_VALUES[Piece.typeOf(code)];
+        }
+        scoreByMaterial(material, scores);
+    }
+
+    /**
+     * Переводит материал команд в оценки: свой материал минус средний материал противников.
+     *
+     * @param material материал по командам
+     * @param scores массив для оценок, индекс - номер команды
+     */
+    static void scoreByMaterial(int[] material, int[] scores) {
+        int odd = material[1] + material[3], even = material[2] + material[4];
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            scores[team] = material[team] - ((team & 1) == 1 ? even : odd) / 2;
+        }
+    }
+}
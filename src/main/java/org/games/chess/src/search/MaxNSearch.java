@@ -0,0 +1,264 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Symmetry;
+
+/**
+ * Поиск для четырех команд с итеративным углублением.
+ * Поддерживает два режима:
+ * <ul>
+ *     <li>MAX_N - каждая команда выбирает ход, максимизирующий ее собственную оценку в векторе оценок;</li>
+ *     <li>PARANOID - команда, для которой ищется ход, играет против всех остальных (альфа-бета по одной оценке).</li>
+ * </ul>
+ * Найденные оценки и лучшие ходы сохраняются в таблице транспозиций.
+ * Листья параноидального поиска продолжаются поиском взятий с отсечением проигрывающих по SEE.
+ * Команда без ходов пропускает ход.
+ */
+public class MaxNSearch extends AbstractSearch {
+
+    /**
+     * Режим поиска
+     */
+    public enum Mode {
+        MAX_N,
+        PARANOID
+    }
+
+    /**
+     * Соль ключа таблицы транспозиций для параноидального поиска по команде, для которой ищется ход:
+     * оценка параноидального поиска зависит от этой команды
+     */
+    private static final long[] PARANOID_KEY_SALT = {0, 0x6A09E667F3BCC908L, 0xBB67AE8584CAA73BL,
+            0x3C6EF372FE94F82BL, 0xA54FF53A5F1D36F1L};
+
+    /**
+     * Режим поиска
+     */
+    private final Mode mode;
+
+    /**
+     * Создает поиск.
+     *
+     * @param generator генератор ходов
+     * @param evaluator статическая оценка (используется только этим поиском)
+     * @param table таблица транспозиций
+     * @param mode режим поиска
+     */
+    public MaxNSearch(MoveGenerator generator, Evaluator evaluator, TranspositionTable table, Mode mode) {
+        super(generator, evaluator, table);
+        this.mode = mode;
+    }
+
+    /**
+     * Выполняет итерацию max^n или параноидального поиска.
+     *
+     * @param depth глубина итерации
+     * @param rootScores массив для оценок корня
+     */
+    @Override
+    protected void iterate(int depth, int[] rootScores) {
+        if (mode == Mode.MAX_N) {
+            maxN(depth, 0);
+            System.arraycopy(scores[0], 0, rootScores, 0, rootScores.length);
+        } else {
+            rootScores[rootTeam] = paranoid(depth, 0, Evaluator.LOSS - 1, Evaluator.WIN + 1);
+        }
+    }
+
+    /**
+     * Поиск max^n: записывает вектор оценок позиции в scores[ply].
+     *
+     * @param depth оставшаяся глубина
+     * @param ply расстояние от корня
+     */
+    private void maxN(int depth, int ply) {
+        pvLength[ply] = 0;
+        int[] result = scores[ply];
+        if (countNode()) return;
+
+        if (state.isGameOver()) {
+            terminalScores(ply, result);
+            return;
+        }
+        if (depth == 0 || ply == MAX_PLY) {
+            evaluate(result);
+            return;
+        }
+
+        int rotation = tableRotation();
+        long key = tableKey(rotation);
+        int hashMove = Move.NONE;
+        if (table.probe(key, entry)) {
+            if (ply > 0 && entry.depth >= depth && entry.bound == TranspositionTable.BOUND_EXACT) {
+                for (int team = 1; team <= BoardState.TEAMS; team++) {
+                    result[team] = fromTableScore(entry.scores[Symmetry.rotateTeam(team, rotation)], ply);
+                }
+                return;
+            }
+            hashMove = fromTableMove(entry.move, rotation);
+        }
+
+        int team = state.getCurrentTeam();
+        int[] list = moves[ply];
+        int count = generator.generate(state, team, list, 0);
+        if (count == 0) {
+            state.makeNullMove();
+            maxN(depth - 1, ply + 1);
+            state.unmakeMove();
+            System.arraycopy(scores[ply + 1], 0, result, 0, result.length);
+            return;
+        }
+        moveToFront(list, count, hashMove);
+
+        int best = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            state.makeMove(list[i]);
+            maxN(depth - 1, ply + 1);
+            state.unmakeMove();
+            if (stopped) return;
+
+            int[] child = scores[ply + 1];
+            if (child[team] > best) {
+                best = child[team];
+                System.arraycopy(child, 0, result, 0, result.length);
+                updatePv(ply, list[i]);
+            }
+        }
+
+        table.store(key, toTableMove(pv[ply][0], rotation), depth, TranspositionTable.BOUND_EXACT,
+                toTableScores(result, rotation, ply));
+    }
+
+    /**
+     * Параноидальный поиск: альфа-бета, где rootTeam максимизирует свою оценку, а остальные минимизируют ее.
+     *
+     * @param depth оставшаяся глубина
+     * @param ply расстояние от корня
+     * @param alpha нижняя граница
+     * @param beta верхняя граница
+     * @return оценка позиции для rootTeam
+     */
+    private int paranoid(int depth, int ply, int alpha, int beta) {
+        if (depth <= 0 && quiescenceEnabled) return paranoidQuiescence(ply, alpha, beta);
+
+        pvLength[ply] = 0;
+        if (countNode()) return 0;
+
+        if (state.isGameOver() || state.isTeamEliminated(rootTeam)) {
+            terminalScores(ply, scores[ply]);
+            return scores[ply][rootTeam];
+        }
+        if (depth <= 0 || ply == MAX_PLY) {
+            evaluate(scores[ply]);
+            return scores[ply][rootTeam];
+        }
+
+        int rotation = tableRotation();
+        int tableRootTeam = Symmetry.rotateTeam(rootTeam, rotation);
+        long key = tableKey(rotation) ^ PARANOID_KEY_SALT[tableRootTeam];
+        int hashMove = Move.NONE;
+        if (table.probe(key, entry)) {
+            int stored = fromTableScore(entry.scores[tableRootTeam], ply);
+            if (ply > 0 && entry.depth >= depth
+                    && (entry.bound == TranspositionTable.BOUND_EXACT
+                    || entry.bound == TranspositionTable.BOUND_LOWER && stored >= beta
+                    || entry.bound == TranspositionTable.BOUND_UPPER && stored <= alpha)) {
+                return stored;
+            }
+            hashMove = fromTableMove(entry.move, rotation);
+        }
+
+        int team = state.getCurrentTeam();
+        int[] list = moves[ply];
+        int count = generator.generate(state, team, list, 0);
+        if (count == 0) {
+            state.makeNullMove();
+            int score = paranoid(depth - 1, ply + 1, alpha, beta);
+            state.unmakeMove();
+            return score;
+        }
+        orderMoves(ply, team, list, count, hashMove);
+
+        boolean maximizing = team == rootTeam;
+        int originalAlpha = alpha, originalBeta = beta;
+        int best = maximizing ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, list, i, count);
+            state.makeMove(move);
+            int score = paranoid(depth - 1, ply + 1, alpha, beta);
+            state.unmakeMove();
+            if (stopped) return 0;
+
+            if (maximizing ? score > best : score < best) {
+                best = score;
+                bestMove = move;
+                updatePv(ply, move);
+            }
+            if (maximizing) alpha = Math.max(alpha, score);
+            else beta = Math.min(beta, score);
+            if (alpha >= beta) {
+                recordCutoff(ply, team, move, depth);
+                break;
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.BOUND_UPPER
+                : best >= originalBeta ? TranspositionTable.BOUND_LOWER : TranspositionTable.BOUND_EXACT;
+        int[] stored = scores[ply];
+        stored[tableRootTeam] = best;
+        table.store(key, toTableMove(bestMove, rotation), depth, bound, toTableScores(stored, 0, ply));
+        return best;
+    }
+
+    /**
+     * Поиск взятий до спокойной позиции для параноидального режима: команда, чей ход, может отказаться
+     * от взятий, а взятия с отрицательным балансом размена (SEE) не рассматриваются.
+     *
+     * @param ply расстояние от корня
+     * @param alpha нижняя граница
+     * @param beta верхняя граница
+     * @return оценка позиции для rootTeam
+     */
+    private int paranoidQuiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if (countNode()) return 0;
+
+        if (state.isGameOver() || state.isTeamEliminated(rootTeam)) {
+            terminalScores(ply, scores[ply]);
+            return scores[ply][rootTeam];
+        }
+
+        evaluate(scores[ply]);
+        int best = scores[ply][rootTeam];
+        int team = state.getCurrentTeam();
+        boolean maximizing = team == rootTeam;
+        if (ply == MAX_PLY || (maximizing ? best >= beta : best <= alpha)) return best;
+        if (maximizing) alpha = Math.max(alpha, best);
+        else beta = Math.min(beta, best);
+
+        int[] list = moves[ply];
+        int count = generator.generateCaptures(state, team, list, 0);
+        orderMoves(ply, team, list, count, Move.NONE);
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, list, i, count);
+            if (exchange.evaluate(state, move) < 0) continue;
+
+            state.makeMove(move);
+            int score = paranoidQuiescence(ply + 1, alpha, beta);
+            state.unmakeMove();
+            if (stopped) return 0;
+
+            if (maximizing ? score > best : score < best) {
+                best = score;
+                updatePv(ply, move);
+            }
+            if (maximizing) alpha = Math.max(alpha, score);
+            else beta = Math.min(beta, score);
+            if (alpha >= beta) break;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,519 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Поиск Монте-Карло по дереву (MCTS) для четырех команд.
+ * Каждый узел хранит сумму наград всех четырех команд; при спуске команда, чей ход, выбирает ребенка
+ * по формуле UCT для своей награды. Лист оценивается случайной партией (rollout) ограниченной длины:
+ * взятие короля, если оно есть, делается всегда, остальные ходы выбираются случайно.
+ * Награда команды - 1 за победу ее коалиции и 0 за выбывание; если партия не закончилась,
+ * награда получается из статической оценки через логистическую функцию.
+ * <p>
+ * Дерево хранится в массивах фиксированного размера и общее для всех потоков (tree parallelism).
+ * Счетчики обновляются атомарно; виртуальная потеря временно добавляет посещение без награды узлам,
+ * через которые спускается поток, чтобы другие потоки выбирали другие ветви.
+ * Бюджет узлов в SearchLimits означает количество партий; ограничение глубины не используется.
+ */
+public class MctsSearch implements SearchEngine {
+
+    /**
+     * Константа исследования UCT
+     */
+    private static final double EXPLORATION = 0.7;
+
+    /**
+     * Масштаб награды в целочисленных суммах
+     */
+    private static final int REWARD_SCALE = 1024;
+
+    /**
+     * Масштаб оценки в логистической функции (сантипешки)
+     */
+    private static final double REWARD_SCORE_SCALE = 400.0;
+
+    /**
+     * Узел не раскрыт
+     */
+    private static final int LEAF = 0;
+
+    /**
+     * Узел раскрывается другим потоком
+     */
+    private static final int EXPANDING = 1;
+
+    /**
+     * Узел раскрыт, дети доступны
+     */
+    private static final int EXPANDED = 2;
+
+    /**
+     * Как часто (в партиях) проверяется бюджет времени
+     */
+    private static final int TIME_CHECK_INTERVAL = 64;
+
+    /**
+     * Генератор ходов
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * Максимальное количество узлов дерева
+     */
+    private final int capacity;
+
+    /**
+     * Максимальная длина случайной партии в полуходах
+     */
+    private final int rolloutPlies;
+
+    /**
+     * Ход, ведущий в узел
+     */
+    private final int[] nodeMoves;
+
+    /**
+     * Индекс первого ребенка узла
+     */
+    private final int[] firstChild;
+
+    /**
+     * Количество детей узла
+     */
+    private final int[] childCount;
+
+    /**
+     * Состояние раскрытия узла (LEAF, EXPANDING, EXPANDED)
+     */
+    private final AtomicIntegerArray expansion;
+
+    /**
+     * Количество посещений узла, включая виртуальные потери
+     */
+    private final AtomicIntegerArray visits;
+
+    /**
+     * Суммы наград по командам: 4 значения на узел, в единицах 1/REWARD_SCALE
+     */
+    private final AtomicLongArray rewards;
+
+    /**
+     * Количество занятых узлов (не больше емкости дерева)
+     */
+    private final AtomicInteger nodeCount = new AtomicInteger();
+
+    /**
+     * Количество сыгранных партий
+     */
+    private final AtomicInteger playouts = new AtomicInteger();
+
+    /**
+     * Максимальная глубина спуска по дереву
+     */
+    private final AtomicInteger maxTreeDepth = new AtomicInteger();
+
+    /**
+     * Потоки поиска
+     */
+    private final Worker[] workers;
+
+    /**
+     * Потоки помощников (null для одного потока)
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Флаг остановки поиска: запрос stop(), исчерпанный бюджет или конец поиска
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Запрошена ли остановка через stop() (снимается только resetStop)
+     */
+    private volatile boolean stopRequested;
+
+    /**
+     * Бюджет партий текущего поиска
+     */
+    private long maxPlayouts;
+
+    /**
+     * Момент окончания текущего поиска (System.nanoTime)
+     */
+    private long deadline;
+
+    /**
+     * Корневая позиция текущего поиска
+     */
+    private final BoardState root = new BoardState();
+
+    /**
+     * Создает поиск Монте-Карло.
+     *
+     * @param generator генератор ходов
+     * @param threads количество потоков, включая вызывающий
+     * @param capacity максимальное количество узлов дерева (не больше Integer.MAX_VALUE / 4)
+     * @param rolloutPlies максимальная длина случайной партии в полуходах
+     * @param seed зерно генераторов случайных чисел потоков
+     */
+    public MctsSearch(MoveGenerator generator, int threads, int capacity, int rolloutPlies, long seed) {
+        this.generator = generator;
+        this.capacity = capacity;
+        this.rolloutPlies = rolloutPlies;
+        this.nodeMoves = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.childCount = new int[capacity];
+        this.expansion = new AtomicIntegerArray(capacity);
+        this.visits = new AtomicIntegerArray(capacity);
+        this.rewards = new AtomicLongArray(capacity * BoardState.TEAMS);
+
+        this.workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(seed + i);
+        }
+        this.executor = workers.length == 1 ? null : Executors.newFixedThreadPool(workers.length - 1, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ищет лучший ход: ход корня с наибольшим количеством посещений.
+     * Оценки результата - средняя награда команд в корне в тысячных долях.
+     *
+     * @param position позиция
+     * @param limits ограничения поиска (бюджет узлов - количество партий)
+     * @return результат поиска
+     */
+    @Override
+    public SearchResult search(BoardState position, SearchLimits limits) {
+        long start = System.nanoTime();
+        root.copyFrom(position);
+        resetTree();
+        stopped = false;
+        if (stopRequested) stopped = true;
+        maxPlayouts = limits.getMaxNodes();
+        deadline = limits.deadlineNanos(start);
+
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            Worker worker = workers[i];
+            helpers.add(executor.submit(worker::run));
+        }
+        workers[0].run();
+        stopped = true;
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Ошибка в потоке поиска", e.getCause());
+            }
+        }
+
+        return buildResult(System.nanoTime() - start);
+    }
+
+    /**
+     * Останавливает текущий поиск; поиск, который еще не начался, завершится сразу.
+     */
+    @Override
+    public void stop() {
+        stopRequested = true;
+        stopped = true;
+    }
+
+    /**
+     * Снимает запрос остановки.
+     */
+    @Override
+    public void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Завершает потоки помощников.
+     */
+    public void shutdown() {
+        stop();
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * Очищает дерево и создает корень.
+     */
+    private void resetTree() {
+        int used = nodeCount.get();
+        for (int node = 0; node < used; node++) {
+            expansion.set(node, LEAF);
+            visits.set(node, 0);
+            for (int team = 0; team < BoardState.TEAMS; team++) {
+                rewards.set(node * BoardState.TEAMS + team, 0);
+            }
+        }
+        nodeMoves[0] = Move.NONE;
+        nodeCount.set(1);
+        playouts.set(0);
+        maxTreeDepth.set(0);
+    }
+
+    /**
+     * Собирает результат: главный вариант по наиболее посещаемым детям и средние награды корня.
+     */
+    private SearchResult buildResult(long timeNanos) {
+        int[] scores = new int[BoardState.TEAMS + 1];
+        int rootVisits = Math.max(1, visits.get(0));
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            scores[team] = (int) (rewards.get(team - 1) * 1000 / ((long) rootVisits * REWARD_SCALE));
+        }
+
+        int[] pv = new int[MAX_PLY];
+        int length = 0;
+        int node = 0;
+        while (length < MAX_PLY && expansion.get(node) == EXPANDED && childCount[node] > 0) {
+            int best = -1, bestVisits = 0;
+            for (int i = 0; i < childCount[node]; i++) {
+                int child = firstChild[node] + i;
+                if (visits.get(child) > bestVisits) {
+                    bestVisits = visits.get(child);
+                    best = child;
+                }
+            }
+            if (best < 0) break;
+            pv[length++] = nodeMoves[best];
+            node = best;
+        }
+
+        int bestMove = length > 0 ? pv[0] : firstRootMove();
+        int[] principalVariation = new int[length];
+        System.arraycopy(pv, 0, principalVariation, 0, length);
+        return new SearchResult(bestMove, scores, principalVariation, maxTreeDepth.get(), playouts.get(), timeNanos);
+    }
+
+    /**
+     * Возвращает первый ход корня (если не сыграно ни одной партии).
+     */
+    private int firstRootMove() {
+        int[] list = new int[MoveGenerator.MAX_MOVES];
+        int count = generator.generate(root, root.getCurrentTeam(), list, 0);
+        return count > 0 ? list[0] : Move.NONE;
+    }
+
+    /**
+     * Поток поиска: собственная позиция, буферы и генератор случайных чисел.
+     */
+    private class Worker {
+
+        /**
+         * Рабочая позиция
+         */
+        private final BoardState state = new BoardState();
+
+        /**
+         * Буфер ходов
+         */
+        private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        /**
+         * Путь от корня в текущей партии
+         */
+        private final int[] path = new int[MAX_PLY * 4];
+
+        /**
+         * Награды команд в текущей партии
+         */
+        private final double[] reward = new double[BoardState.TEAMS + 1];
+
+        /**
+         * Оценки команд для награды незаконченной партии
+         */
+        private final int[] scores = new int[BoardState.TEAMS + 1];
+
+        /**
+         * Статическая оценка
+         */
+        private final MaterialEvaluator evaluator = new MaterialEvaluator();
+
+        /**
+         * Генератор случайных чисел
+         */
+        private final SplittableRandom random;
+
+        /**
+         * Создает поток поиска.
+         *
+         * @param seed зерно генератора случайных чисел
+         */
+        Worker(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        /**
+         * Играет партии, пока не исчерпан бюджет.
+         */
+        void run() {
+            while (!stopped) {
+                int played = playouts.incrementAndGet();
+                if (played > maxPlayouts) {
+                    playouts.decrementAndGet();
+                    stopped = true;
+                    break;
+                }
+                if (played % TIME_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) stopped = true;
+
+                playout();
+            }
+        }
+
+        /**
+         * Одна итерация: спуск по дереву, раскрытие, случайная партия и обновление наград.
+         */
+        private void playout() {
+            state.copyFrom(root);
+            int node = 0, length = 0;
+            path[length++] = node;
+            visits.incrementAndGet(node);
+
+            while (expansion.get(node) == EXPANDED && !state.isGameOver() && length < path.length) {
+                node = selectChild(node, state.getCurrentTeam());
+                visits.incrementAndGet(node);
+                path[length++] = node;
+                play(nodeMoves[node]);
+            }
+
+            if (!state.isGameOver() && visits.get(node) > 1) {
+                expand(node);
+            }
+            if (length - 1 > maxTreeDepth.get()) maxTreeDepth.accumulateAndGet(length - 1, Math::max);
+
+            rollout();
+            for (int i = 0; i < length; i++) {
+                int base = path[i] * BoardState.TEAMS;
+                for (int team = 1; team <= BoardState.TEAMS; team++) {
+                    rewards.addAndGet(base + team - 1, (long) (reward[team] * REWARD_SCALE));
+                }
+            }
+        }
+
+        /**
+         * Выбирает ребенка по UCT для награды команды. Посещения уже включают виртуальные потери
+         * потоков, спускающихся через узел, а их награды еще не добавлены.
+         */
+        private int selectChild(int node, int team) {
+            int first = firstChild[node], count = childCount[node];
+            double logParent = Math.log(Math.max(1, visits.get(node)));
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < first + count; child++) {
+                int n = visits.get(child);
+                if (n == 0) return child;
+
+                double mean = rewards.get(child * BoardState.TEAMS + team - 1) / ((double) n * REWARD_SCALE);
+                double value = mean + EXPLORATION * Math.sqrt(logParent / n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Раскрывает узел: создает ребенка для каждого хода (или один пропуск хода, если ходов нет).
+         * Если узел уже раскрывается другим потоком или дерево заполнено, узел остается листом.
+         */
+        private void expand(int node) {
+            if (!expansion.compareAndSet(node, LEAF, EXPANDING)) return;
+
+            int count = generator.generate(state, state.getCurrentTeam(), moves, 0);
+            if (count == 0) moves[count++] = Move.NONE;
+
+            int first = reserveNodes(count);
+            if (first < 0) {
+                expansion.set(node, LEAF);
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                nodeMoves[first + i] = moves[i];
+            }
+            firstChild[node] = first;
+            childCount[node] = count;
+            expansion.set(node, EXPANDED);
+        }
+
+        /**
+         * Резервирует подряд идущие узлы дерева. Счетчик узлов увеличивается, только если они
+         * помещаются, поэтому в заполненном дереве он не растет и не переполняется.
+         *
+         * @return индекс первого узла или -1, если дерево заполнено
+         */
+        private int reserveNodes(int count) {
+            while (true) {
+                int first = nodeCount.get();
+                if (first > capacity - count) return -1;
+                if (nodeCount.compareAndSet(first, first + count)) return first;
+            }
+        }
+
+        /**
+         * Делает ход или пропуск хода.
+         */
+        private void play(int move) {
+            if (move == Move.NONE) state.makeNullMove();
+            else state.makeMove(move);
+        }
+
+        /**
+         * Доигрывает случайную партию и записывает награды команд.
+         */
+        private void rollout() {
+            for (int ply = 0; ply < rolloutPlies && !state.isGameOver(); ply++) {
+                int count = generator.generate(state, state.getCurrentTeam(), moves, 0);
+                if (count == 0) {
+                    state.makeNullMove();
+                    continue;
+                }
+                state.makeMove(chooseRolloutMove(count));
+            }
+
+            if (state.isGameOver()) {
+                for (int team = 1; team <= BoardState.TEAMS; team++) {
+                    reward[team] = state.isTeamEliminated(team) ? 0 : 1;
+                }
+                return;
+            }
+
+            evaluator.evaluate(state, scores);
+            for (int team = 1; team <= BoardState.TEAMS; team++) {
+                reward[team] = state.isTeamEliminated(team) ? 0
+                        : 1.0 / (1.0 + Math.exp(-scores[team] / REWARD_SCORE_SCALE));
+            }
+        }
+
+        /**
+         * Выбирает ход случайной партии: взятие короля, если есть, иначе случайный ход.
+         */
+        private int chooseRolloutMove(int count) {
+            for (int i = 0; i < count; i++) {
+                if (Piece.typeOf(Move.captured(moves[i])) == Piece.KING) return moves[i];
+            }
+            return moves[random.nextInt(count)];
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Упорядочивание ходов для поиска с отсечениями.
+ * Порядок: ход из таблицы транспозиций, взятия по правилу MVV-LVA (самая ценная жертва, самый дешевый
+ * нападающий), два killer-хода на каждой глубине, затем тихие ходы по таблице истории команды (откуда-куда).
+ * Все данные хранятся в примитивных массивах; объект принадлежит одному потоку поиска.
+ */
+public class MoveOrdering {
+
+    /**
+     * Приоритет хода из таблицы транспозиций
+     */
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+
+    /**
+     * Базовый приоритет взятий
+     */
+    private static final int CAPTURE_SCORE = 1 << 28;
+
+    /**
+     * Приоритет первого killer-хода (второй на единицу меньше)
+     */
+    private static final int KILLER_SCORE = 1 << 27;
+
+    /**
+     * Предел значений истории; при его превышении таблица делится пополам
+     */
+    private static final int HISTORY_LIMIT = 1 << 24;
+
+    /**
+     * Ценность фигур для MVV-LVA, индекс - тип фигуры (взятие короля выводит команду и важнее всего)
+     */
+    private static final int[] ORDER_VALUES = {0, 1, 3, 3, 5, 9, 100};
+
+    /**
+     * Killer-ходы: два тихих хода, вызвавших отсечение, на каждой глубине
+     */
+    private final int[][] killers = new int[SearchEngine.MAX_PLY + 1][2];
+
+    /**
+     * Таблица истории: индекс (команда * клетки + откуда) * клетки + куда
+     */
+    private final int[] history = new int[(BoardState.TEAMS + 1) * BoardState.SQUARES * BoardState.SQUARES];
+
+    /**
+     * Приоритеты ходов по глубине
+     */
+    private final int[][] moveScores = new int[SearchEngine.MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+
+    /**
+     * Готовит данные к новому поиску: killer-ходы сбрасываются, история ослабляется вдвое.
+     */
+    public void newSearch() {
+        for (int[] pair : killers) {
+            pair[0] = Move.NONE;
+            pair[1] = Move.NONE;
+        }
+        ageHistory();
+    }
+
+    /**
+     * Полностью очищает историю и killer-ходы.
+     */
+    public void clear() {
+        Arrays.fill(history, 0);
+        newSearch();
+    }
+
+    /**
+     * Вычисляет приоритеты ходов узла.
+     *
+     * @param state позиция узла
+     * @param ply расстояние от корня
+     * @param team команда, чей ход
+     * @param list ходы
+     * @param count количество ходов
+     * @param hashMove ход из таблицы транспозиций или Move.NONE
+     */
+    public void score(BoardState state, int ply, int team, int[] list, int count, int hashMove) {
+        int[] scores = moveScores[ply];
+        int killer1 = killers[ply][0], killer2 = killers[ply][1];
+        int historyBase = team * BoardState.SQUARES * BoardState.SQUARES;
+
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (Move.isCapture(move)) {
+                int victim = ORDER_VALUES[Piece.typeOf(Move.captured(move))];
+                int attacker = ORDER_VALUES[Piece.typeOf(state.getPiece(Move.from(move)))];
+                scores[i] = CAPTURE_SCORE + victim * 128 - attacker;
+            } else if (move == killer1) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == killer2) {
+                scores[i] = KILLER_SCORE - 1;
+            } else {
+                scores[i] = history[historyBase + Move.from(move) * BoardState.SQUARES + Move.to(move)];
+            }
+        }
+    }
+
+    /**
+     * Возвращает ход с наибольшим приоритетом среди еще не просмотренных и ставит его на место index.
+     *
+     * @param ply расстояние от корня
+     * @param list ходы (переставляются)
+     * @param index номер очередного хода
+     * @param count количество ходов
+     * @return очередной ход
+     */
+    public int next(int ply, int[] list, int index, int count) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        if (best != index) {
+            int move = list[best];
+            list[best] = list[index];
+            list[index] = move;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+        return list[index];
+    }
+
+    /**
+     * Запоминает ход, вызвавший отсечение: тихий ход становится killer-ходом и получает бонус истории.
+     *
+     * @param ply расстояние от корня
+     * @param team команда, чей ход
+     * @param move ход
+     * @param depth оставшаяся глубина узла
+     */
+    public void recordCutoff(int ply, int team, int move, int depth) {
+        if (Move.isCapture(move)) return;
+
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int index = (team * BoardState.SQUARES + Move.from(move)) * BoardState.SQUARES + Move.to(move);
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_LIMIT) ageHistory();
+    }
+
+    /**
+     * Делит значения истории пополам, чтобы старые данные постепенно теряли вес.
+     */
+    private void ageHistory() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+}
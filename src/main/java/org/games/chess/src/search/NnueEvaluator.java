@@ -0,0 +1,172 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardListener;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Оценка сетью NnueNetwork с инкрементальными аккумуляторами.
+ * Для каждой из четырех перспектив хранится 16-битный аккумулятор скрытого слоя. При изменении клетки
+ * (BoardListener) из аккумулятора каждой перспективы вычитается строка весов прежней фигуры
+ * и прибавляется строка новой, поэтому оценка позиции - только выходной слой четырех аккумуляторов.
+ * Для позиции без подключенной оценки аккумуляторы строятся полным проходом во временном буфере.
+ * Объект принадлежит одному поиску.
+ */
+public class NnueEvaluator implements Evaluator, BoardListener {
+
+    /**
+     * Сеть
+     */
+    private final NnueNetwork network;
+
+    /**
+     * Ядро вычислений аккумуляторов
+     */
+    private final AccumulatorKernel kernel;
+
+    /**
+     * Смещение строки признака в весах: индекс [перспектива][код фигуры << 8 | клетка], -1 для пустой клетки
+     */
+    private final int[][] rowOffsets = new int[BoardState.TEAMS + 1][Piece.CODE_COUNT * BoardState.SQUARES];
+
+    /**
+     * Аккумуляторы подключенной позиции по перспективам
+     */
+    private final short[][] accumulators;
+
+    /**
+     * Аккумуляторы для позиции без подключенной оценки (рабочий буфер)
+     */
+    private final short[][] scratch;
+
+    /**
+     * Позиция, к которой подключена оценка
+     */
+    private BoardState attached;
+
+    /**
+     * Создает оценку с лучшим доступным ядром (AccumulatorKernel.create()).
+     *
+     * @param network сеть
+     */
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, AccumulatorKernel.create());
+    }
+
+    /**
+     * Создает оценку с заданным ядром.
+     *
+     * @param network сеть
+     * @param kernel ядро вычислений аккумуляторов
+     */
+    public NnueEvaluator(NnueNetwork network, AccumulatorKernel kernel) {
+        this.network = network;
+        this.kernel = kernel;
+        this.accumulators = new short[BoardState.TEAMS + 1][network.getHiddenSize()];
+        this.scratch = new short[BoardState.TEAMS + 1][network.getHiddenSize()];
+        buildRowOffsets();
+    }
+
+    /**
+     * Предвычисляет смещения строк весов для каждой перспективы, фигуры и клетки.
+     */
+    private void buildRowOffsets() {
+        int hidden = network.getHiddenSize();
+        for (int perspective = 1; perspective <= BoardState.TEAMS; perspective++) {
+            int[] offsets = rowOffsets[perspective];
+            Arrays.fill(offsets, -1);
+            int rotation = PieceSquareEvaluator.rotationOf(perspective);
+            for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+                if (!BoardState.isActive(sq)) continue;
+
+                int frameSq = PieceSquareEvaluator.rotate(sq, (4 - rotation) % 4);
+                for (int team = 1; team <= BoardState.TEAMS; team++) {
+                    int relation = (team - perspective + BoardState.TEAMS) % BoardState.TEAMS;
+                    for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+                        int offset = NnueNetwork.featureIndex(relation, type, frameSq) * hidden;
+                        int code = Piece.make(type, team, false);
+                        offsets[code << 8 | sq] = offset;
+                        offsets[(code | Piece.FIRST_STEP) << 8 | sq] = offset;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает ядро вычислений аккумуляторов.
+     *
+     * @return ядро
+     */
+    public AccumulatorKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Вычисляет оценки команд выходным слоем сети по аккумулятору перспективы каждой команды.
+     *
+     * @param state позиция
+     * @param scores массив для оценок, индекс - номер команды
+     */
+    @Override
+    public void evaluate(BoardState state, int[] scores) {
+        short[][] source = accumulators;
+        if (state != attached || state.getListener() != this) {
+            refresh(state, scratch);
+            source = scratch;
+        }
+
+        short[] outputWeights = network.getOutputWeights();
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            int sum = kernel.forward(source[team], outputWeights, network.getClip());
+            scores[team] = (sum >> network.getOutputShift()) + network.getOutputBias();
+        }
+    }
+
+    /**
+     * Подключается к позиции и строит аккумуляторы полным проходом.
+     *
+     * @param state позиция
+     */
+    @Override
+    public void reset(BoardState state) {
+        attached = state;
+        refresh(state, accumulators);
+    }
+
+    /**
+     * Обновляет аккумуляторы всех перспектив при изменении клетки.
+     *
+     * @param sq индекс клетки
+     * @param oldCode прежний код фигуры
+     * @param newCode новый код фигуры
+     */
+    @Override
+    public void pieceChanged(int sq, int oldCode, int newCode) {
+        short[] weights = network.getFeatureWeights();
+        for (int perspective = 1; perspective <= BoardState.TEAMS; perspective++) {
+            int[] offsets = rowOffsets[perspective];
+            int removed = offsets[oldCode << 8 | sq], added = offsets[newCode << 8 | sq];
+            if (removed >= 0) kernel.subtract(accumulators[perspective], weights, removed);
+            if (added >= 0) kernel.add(accumulators[perspective], weights, added);
+        }
+    }
+
+    /**
+     * Строит аккумуляторы всех перспектив по позиции.
+     */
+    private void refresh(BoardState state, short[][] target) {
+        short[] weights = network.getFeatureWeights();
+        for (int perspective = 1; perspective <= BoardState.TEAMS; perspective++) {
+            short[] accumulator = target[perspective];
+            System.arraycopy(network.getFeatureBias(), 0, accumulator, 0, accumulator.length);
+            int[] offsets = rowOffsets[perspective];
+            for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+                int offset = offsets[state.getPiece(sq) << 8 | sq];
+                if (offset >= 0) kernel.add(accumulator, weights, offset);
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Piece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Веса небольшой сети оценки в стиле NNUE: входной слой признаков фигура-клетка, 16-битный скрытый слой
+ * (аккумулятор) с ограниченным ReLU и один выход.
+ * <p>
+ * Признаки считаются с точки зрения команды (перспективы): фигура описывается отношением ее команды
+ * к перспективе (своя, следующая по ходу, союзная напротив, предыдущая), типом и клеткой, повернутой
+ * в систему координат перспективы (как в PieceSquareEvaluator). Поэтому одни и те же веса служат всем
+ * четырем командам.
+ * <p>
+ * Формат файла (little-endian): заголовок из int - MAGIC, VERSION, число признаков, размер скрытого слоя,
+ * граница активации, сдвиг выхода, смещение выхода; затем int16 - веса признаков построчно,
+ * смещения скрытого слоя и веса выхода. Файл отображается в память и один раз копируется в массивы,
+ * с которыми работают ядра AccumulatorKernel.
+ */
+public class NnueNetwork {
+
+    /**
+     * Сигнатура файла весов ("NNU4")
+     */
+    public static final int MAGIC = 0x4E4E5534;
+
+    /**
+     * Версия формата
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Количество отношений команды фигуры к перспективе
+     */
+    public static final int RELATIONS = BoardState.TEAMS;
+
+    /**
+     * Количество типов фигур
+     */
+    public static final int PIECE_TYPES = Piece.KING;
+
+    /**
+     * Количество входных признаков
+     */
+    public static final int INPUTS = RELATIONS * PIECE_TYPES * BoardState.SQUARES;
+
+    /**
+     * Размер заголовка в байтах
+     */
+    private static final int HEADER_BYTES = 7 * Integer.BYTES;
+
+    /**
+     * Размер скрытого слоя
+     */
+    private final int hiddenSize;
+
+    /**
+     * Верхняя граница активации скрытого слоя
+     */
+    private final int clip;
+
+    /**
+     * Сдвиг вправо взвешенной суммы выходного слоя
+     */
+    private final int outputShift;
+
+    /**
+     * Смещение выхода
+     */
+    private final int outputBias;
+
+    /**
+     * Веса признаков: строка признака i начинается с i * hiddenSize
+     */
+    private final short[] featureWeights;
+
+    /**
+     * Смещения скрытого слоя
+     */
+    private final short[] featureBias;
+
+    /**
+     * Веса выходного слоя
+     */
+    private final short[] outputWeights;
+
+    /**
+     * Создает сеть из готовых массивов весов.
+     *
+     * @param hiddenSize размер скрытого слоя
+     * @param clip верхняя граница активации
+     * @param outputShift сдвиг выхода
+     * @param outputBias смещение выхода
+     * @param featureWeights веса признаков (INPUTS * hiddenSize)
+     * @param featureBias смещения скрытого слоя (hiddenSize)
+     * @param outputWeights веса выходного слоя (hiddenSize)
+     */
+    public NnueNetwork(int hiddenSize, int clip, int outputShift, int outputBias,
+                       short[] featureWeights, short[] featureBias, short[] outputWeights) {
+        if (featureWeights.length != INPUTS * hiddenSize || featureBias.length != hiddenSize
+                || outputWeights.length != hiddenSize) {
+            throw new IllegalArgumentException("Размеры весов не соответствуют скрытому слою " + hiddenSize);
+        }
+        this.hiddenSize = hiddenSize;
+        this.clip = clip;
+        this.outputShift = outputShift;
+        this.outputBias = outputBias;
+        this.featureWeights = featureWeights;
+        this.featureBias = featureBias;
+        this.outputWeights = outputWeights;
+    }
+
+    /**
+     * Загружает веса из файла через отображение в память.
+     *
+     * @param path путь к файлу
+     * @return сеть
+     * @throws IOException при ошибке чтения или неверном формате
+     */
+    public static NnueNetwork load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (channel.size() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Не файл весов сети: " + path);
+            }
+            int version = buffer.getInt();
+            int inputs = buffer.getInt();
+            int hidden = buffer.getInt();
+            if (version != VERSION || inputs != INPUTS || hidden <= 0) {
+                throw new IOException("Неподдерживаемый файл весов: версия " + version + ", признаков " + inputs);
+            }
+            int clip = buffer.getInt();
+            int outputShift = buffer.getInt();
+            int outputBias = buffer.getInt();
+
+            long expected = HEADER_BYTES + (long) (INPUTS + 2) * hidden * Short.BYTES;
+            if (channel.size() != expected) {
+                throw new IOException("Неверный размер файла весов: " + channel.size() + " вместо " + expected);
+            }
+
+            short[] weights = new short[INPUTS * hidden];
+            short[] bias = new short[hidden];
+            short[] output = new short[hidden];
+            buffer.asShortBuffer().get(weights).get(bias).get(output);
+            return new NnueNetwork(hidden, clip, outputShift, outputBias, weights, bias, output);
+        }
+    }
+
+    /**
+     * Записывает веса в файл.
+     *
+     * @param path путь к файлу
+     * @throws IOException при ошибке записи
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + (INPUTS + 2) * hiddenSize * Short.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(INPUTS).putInt(hiddenSize)
+                .putInt(clip).putInt(outputShift).putInt(outputBias);
+        buffer.asShortBuffer().put(featureWeights).put(featureBias).put(outputWeights);
+        buffer.rewind();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Строит начальную сеть, повторяющую PieceSquareEvaluator: четыре нейрона суммируют значения фигур
+     * каждого отношения к перспективе (в единицах 1/8), выход - свои минус половина противников.
+     * Остальные нейроны нулевые и оставлены для обучения.
+     *
+     * @param evaluator оценка, чьи таблицы переносятся в сеть
+     * @param hiddenSize размер скрытого слоя (не меньше RELATIONS)
+     * @return сеть
+     */
+    public static NnueNetwork fromPieceSquare(PieceSquareEvaluator evaluator, int hiddenSize) {
+        final int unit = 8;
+        short[] weights = new short[INPUTS * hiddenSize];
+        for (int relation = 0; relation < RELATIONS; relation++) {
+            // перспектива команды 1 не повернута, поэтому команда отношения - 1 + relation
+            int team = 1 + relation;
+            for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+                int code = Piece.make(type, team, false);
+                for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+                    if (!BoardState.isActive(sq)) continue;
+                    int value = Math.round(evaluator.valueOf(code, sq) / (float) unit);
+                    weights[featureIndex(relation, type, sq) * hiddenSize + relation] = (short) value;
+                }
+            }
+        }
+
+        short[] output = new short[hiddenSize];
+        output[0] = unit;
+        output[1] = -unit / 2;
+        output[3] = -unit / 2;
+        return new NnueNetwork(hiddenSize, Short.MAX_VALUE, 0, 0, weights, new short[hiddenSize], output);
+    }
+
+    /**
+     * Возвращает номер входного признака.
+     *
+     * @param relation отношение команды фигуры к перспективе (0 - своя, 1 - следующая, 2 - союзная, 3 - предыдущая)
+     * @param type тип фигуры
+     * @param frameSq клетка в системе координат перспективы
+     * @return номер признака
+     */
+    public static int featureIndex(int relation, int type, int frameSq) {
+        return (relation * PIECE_TYPES + type - 1) * BoardState.SQUARES + frameSq;
+    }
+
+    /**
+     * Возвращает размер скрытого слоя.
+     *
+     * @return количество нейронов
+     */
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    /**
+     * Возвращает верхнюю границу активации.
+     *
+     * @return граница
+     */
+    public int getClip() {
+        return clip;
+    }
+
+    /**
+     * Возвращает сдвиг выхода.
+     *
+     * @return сдвиг вправо
+     */
+    public int getOutputShift() {
+        return outputShift;
+    }
+
+    /**
+     * Возвращает смещение выхода.
+     *
+     * @return смещение
+     */
+    public int getOutputBias() {
+        return outputBias;
+    }
+
+    /**
+     * Возвращает веса признаков (не изменять).
+     *
+     * @return веса построчно
+     */
+    public short[] getFeatureWeights() {
+        return featureWeights;
+    }
+
+    /**
+     * Возвращает смещения скрытого слоя (не изменять).
+     *
+     * @return смещения
+     */
+    public short[] getFeatureBias() {
+        return featureBias;
+    }
+
+    /**
+     * Возвращает веса выходного слоя (не изменять).
+     *
+     * @return веса
+     */
+    public short[] getOutputWeights() {
+        return outputWeights;
+    }
+}
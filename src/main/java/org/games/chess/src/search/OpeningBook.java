@@ -0,0 +1,264 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.Symmetry;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Дебютная книга: таблица ходов, отсортированная по ключу Zobrist позиции, в файле, отображенном в память.
+ * Поиск хода - двоичный поиск по ключу прямо в отображенном файле абсолютными чтениями буфера,
+ * без выделения памяти в куче и без блокировок, поэтому одну книгу могут читать несколько потоков
+ * (компьютерные команды в игре, потоки турнира).
+ * <p>
+ * Формат файла (little-endian): заголовок из int - MAGIC, VERSION, количество записей; затем записи
+ * по ENTRY_BYTES байт, отсортированные по ключу (как long со знаком), внутри ключа - по убыванию веса:
+ * long ключ позиции, int ход (Move), int вес, int партий, int побед и int ничьих команды, сделавшей ход.
+ * Файл строит OpeningBookBuilder. Ключ может совпасть у разных позиций, поэтому вызывающий проверяет,
+ * что ход из книги есть среди ходов позиции.
+ * <p>
+ * Позиции хранятся в канонической форме (Symmetry): ключ - BoardState.getCanonicalKey, ход повернут так же,
+ * как позиция, поэтому четыре поворота позиции делят одни записи. Методы с параметром BoardState
+ * переводят ход обратно в позицию доски; методы с ключом работают с канонической формой.
+ */
+public class OpeningBook {
+
+    /**
+     * Сигнатура файла книги ("BOOK")
+     */
+    public static final int MAGIC = 0x4B4F4F42;
+
+    /**
+     * Версия формата
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Размер заголовка в байтах
+     */
+    public static final int HEADER_BYTES = 3 * Integer.BYTES;
+
+    /**
+     * Размер записи в байтах
+     */
+    public static final int ENTRY_BYTES = Long.BYTES + 5 * Integer.BYTES;
+
+    /**
+     * Отображенный в память файл
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Количество записей
+     */
+    private final int entryCount;
+
+    /**
+     * Создает книгу над отображенным файлом.
+     *
+     * @param buffer буфер файла (little-endian)
+     * @param entryCount количество записей
+     */
+    private OpeningBook(MappedByteBuffer buffer, int entryCount) {
+        this.buffer = buffer;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Отображает файл книги в память.
+     *
+     * @param path путь к файлу
+     * @return книга
+     * @throws IOException при ошибке чтения или неверном формате
+     */
+    public static OpeningBook load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new IOException("Не файл дебютной книги: " + path);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) throw new IOException("Не файл дебютной книги: " + path);
+
+            int version = buffer.getInt(Integer.BYTES);
+            int count = buffer.getInt(2 * Integer.BYTES);
+            if (version != VERSION) throw new IOException("Неподдерживаемая версия книги: " + version);
+
+            long expected = HEADER_BYTES + (long) count * ENTRY_BYTES;
+            if (count < 0 || channel.size() != expected) {
+                throw new IOException("Неверный размер файла книги: " + channel.size() + " вместо " + expected);
+            }
+            return new OpeningBook(buffer, count);
+        }
+    }
+
+    /**
+     * Возвращает количество записей (пар позиция-ход).
+     *
+     * @return количество записей
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Ищет первую запись позиции двоичным поиском.
+     *
+     * @param key канонический ключ позиции
+     * @return номер первой записи позиции или -1, если позиции нет в книге
+     */
+    public int find(long key) {
+        int low = 0, high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getKey(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < entryCount && getKey(low) == key ? low : -1;
+    }
+
+    /**
+     * Возвращает ход позиции с наибольшим весом.
+     *
+     * @param key канонический ключ позиции
+     * @return ход канонической формы или Move.NONE, если позиции нет в книге или у всех ходов нулевой вес
+     */
+    public int bestMove(long key) {
+        int index = find(key);
+        // внутри ключа записи отсортированы по убыванию веса
+        return index >= 0 && getWeight(index) > 0 ? getMove(index) : Move.NONE;
+    }
+
+    /**
+     * Возвращает ход позиции с наибольшим весом.
+     *
+     * @param state позиция
+     * @return ход позиции доски или Move.NONE
+     */
+    public int bestMove(BoardState state) {
+        return fromCanonical(bestMove(state.getCanonicalKey()), state);
+    }
+
+    /**
+     * Выбирает ход позиции случайно с вероятностью, пропорциональной весу.
+     *
+     * @param state позиция
+     * @param random случайное число (например, Random.nextLong())
+     * @return ход позиции доски или Move.NONE
+     */
+    public int chooseMove(BoardState state, long random) {
+        return fromCanonical(chooseMove(state.getCanonicalKey(), random), state);
+    }
+
+    /**
+     * Переводит ход канонической формы в ход позиции доски.
+     *
+     * @param move ход канонической формы
+     * @param state позиция
+     * @return ход позиции
+     */
+    public static int fromCanonical(int move, BoardState state) {
+        return Symmetry.rotateMove(move, Symmetry.inverse(Symmetry.canonicalRotation(state.getCurrentTeam())));
+    }
+
+    /**
+     * Выбирает ход позиции случайно с вероятностью, пропорциональной весу.
+     *
+     * @param key канонический ключ позиции
+     * @param random случайное число (например, Random.nextLong())
+     * @return ход канонической формы или Move.NONE, если позиции нет в книге или у всех ходов нулевой вес
+     */
+    public int chooseMove(long key, long random) {
+        int first = find(key);
+        if (first < 0) return Move.NONE;
+
+        long total = 0;
+        int end = first;
+        for (; end < entryCount && getKey(end) == key; end++) {
+            total += getWeight(end);
+        }
+        if (total == 0) return Move.NONE;
+
+        long point = Long.remainderUnsigned(random, total);
+        for (int index = first; index < end; index++) {
+            point -= getWeight(index);
+            if (point < 0) return getMove(index);
+        }
+        return getMove(first);
+    }
+
+    /**
+     * Возвращает ключ позиции записи.
+     *
+     * @param index номер записи
+     * @return канонический ключ позиции
+     */
+    public long getKey(int index) {
+        return buffer.getLong(offset(index));
+    }
+
+    /**
+     * Возвращает ход записи.
+     *
+     * @param index номер записи
+     * @return упакованный ход (см. Move)
+     */
+    public int getMove(int index) {
+        return buffer.getInt(offset(index) + Long.BYTES);
+    }
+
+    /**
+     * Возвращает вес хода записи.
+     *
+     * @param index номер записи
+     * @return вес (0 - ход не выбирается)
+     */
+    public int getWeight(int index) {
+        return buffer.getInt(offset(index) + Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Возвращает количество партий, в которых был сделан ход.
+     *
+     * @param index номер записи
+     * @return количество партий
+     */
+    public int getGames(int index) {
+        return buffer.getInt(offset(index) + Long.BYTES + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Возвращает количество побед коалиции команды, сделавшей ход.
+     *
+     * @param index номер записи
+     * @return количество побед
+     */
+    public int getWins(int index) {
+        return buffer.getInt(offset(index) + Long.BYTES + 3 * Integer.BYTES);
+    }
+
+    /**
+     * Возвращает количество ничьих после хода.
+     *
+     * @param index номер записи
+     * @return количество ничьих
+     */
+    public int getDraws(int index) {
+        return buffer.getInt(offset(index) + Long.BYTES + 4 * Integer.BYTES);
+    }
+
+    /**
+     * Вычисляет смещение записи в файле.
+     */
+    private static int offset(int index) {
+        return HEADER_BYTES + index * ENTRY_BYTES;
+    }
+}
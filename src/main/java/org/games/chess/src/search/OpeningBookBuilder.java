@@ -0,0 +1,201 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.Symmetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Построение дебютной книги OpeningBook: первые полуходы партий собираются в статистику по парам
+ * позиция-ход (партии, победы и ничьи коалиции команды, сделавшей ход), затем таблица сортируется
+ * по ключу позиции и записывается в файл.
+ * Вес хода - очки коалиции за партии с этим ходом в половинах очка (2 за победу, 1 за ничью),
+ * поэтому ходы, после которых коалиция только проигрывала, книга не выбирает.
+ * Позиции и ходы записываются в канонической форме (Symmetry), поэтому статистика четырех
+ * поворотов позиции собирается в одни записи.
+ * Методы синхронизированы: партии можно добавлять из нескольких потоков.
+ */
+public class OpeningBookBuilder {
+
+    /**
+     * Сколько первых полуходов партии попадает в книгу
+     */
+    private final int maxPlies;
+
+    /**
+     * Статистика ходов по ключу позиции
+     */
+    private final Map<Long, List<MoveStats>> positions = new HashMap<>();
+
+    /**
+     * Количество добавленных партий
+     */
+    private int gameCount;
+
+    /**
+     * Создает построитель книги.
+     *
+     * @param maxPlies сколько первых полуходов каждой партии учитывать
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Добавляет партию в статистику.
+     *
+     * @param start начальная позиция партии (не изменяется)
+     * @param moves ходы партии (Move.NONE - пропуск хода)
+     * @param winner победившая коалиция: 1 - команды 1 и 3, 2 - команды 2 и 4, 0 - ничья
+     */
+    public synchronized void addGame(BoardState start, int[] moves, int winner) {
+        BoardState state = new BoardState(start);
+        state.clearHistory();
+
+        int plies = Math.min(maxPlies, moves.length);
+        for (int ply = 0; ply < plies && !state.isGameOver(); ply++) {
+            int move = moves[ply];
+            if (move == Move.NONE) {
+                state.makeNullMove();
+                continue;
+            }
+
+            int coalition = state.getCurrentTeam() % 2 == 1 ? 1 : 2;
+            int rotation = Symmetry.canonicalRotation(state.getCurrentTeam());
+            MoveStats stats = statsOf(state.getCanonicalKey(), Symmetry.rotateMove(move, rotation));
+            stats.games++;
+            if (winner == coalition) {
+                stats.wins++;
+            } else if (winner == 0) {
+                stats.draws++;
+            }
+            state.makeMove(move);
+        }
+        gameCount++;
+    }
+
+    /**
+     * Возвращает количество добавленных партий.
+     *
+     * @return количество партий
+     */
+    public synchronized int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Возвращает количество различных позиций в статистике.
+     *
+     * @return количество позиций
+     */
+    public synchronized int getPositionCount() {
+        return positions.size();
+    }
+
+    /**
+     * Записывает книгу: пары позиция-ход, сыгранные не меньше minGames раз, по возрастанию ключа
+     * и по убыванию веса внутри ключа.
+     *
+     * @param path путь к файлу
+     * @param minGames минимальное количество партий с ходом
+     * @return количество записанных записей
+     * @throws IOException при ошибке записи
+     */
+    public synchronized int write(Path path, int minGames) throws IOException {
+        List<MoveStats> entries = new ArrayList<>();
+        for (List<MoveStats> moves : positions.values()) {
+            for (MoveStats stats : moves) {
+                if (stats.games >= minGames) entries.add(stats);
+            }
+        }
+        entries.sort(Comparator.comparingLong((MoveStats stats) -> stats.key)
+                .thenComparing(Comparator.comparingInt(MoveStats::weight).reversed()));
+
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_BYTES + entries.size() * OpeningBook.ENTRY_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(OpeningBook.MAGIC).putInt(OpeningBook.VERSION).putInt(entries.size());
+        for (MoveStats stats : entries) {
+            buffer.putLong(stats.key).putInt(stats.move).putInt(stats.weight())
+                    .putInt(stats.games).putInt(stats.wins).putInt(stats.draws);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * Возвращает статистику хода в позиции, создавая ее при первом обращении.
+     */
+    private MoveStats statsOf(long key, int move) {
+        List<MoveStats> moves = positions.computeIfAbsent(key, k -> new ArrayList<>(4));
+        for (MoveStats stats : moves) {
+            if (stats.move == move) return stats;
+        }
+        MoveStats stats = new MoveStats(key, move);
+        moves.add(stats);
+        return stats;
+    }
+
+    /**
+     * Статистика хода в позиции.
+     */
+    private static class MoveStats {
+
+        /**
+         * Канонический ключ позиции
+         */
+        final long key;
+
+        /**
+         * Ход
+         */
+        final int move;
+
+        /**
+         * Количество партий с этим ходом
+         */
+        int games;
+
+        /**
+         * Победы коалиции команды, сделавшей ход
+         */
+        int wins;
+
+        /**
+         * Ничьи
+         */
+        int draws;
+
+        /**
+         * Создает пустую статистику.
+         */
+        MoveStats(long key, int move) {
+            this.key = key;
+            this.move = move;
+        }
+
+        /**
+         * Вычисляет вес хода: очки коалиции в половинах очка.
+         */
+        int weight() {
+            return 2 * wins + draws;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.board.Matrix;
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardListener;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
+
+/**
+ * Оценка по материалу и таблицам фигура-клетка, поддерживаемая инкрементально.
+ * Таблицы задаются один раз в системе координат команды 1 (пешки идут вниз) и поворачиваются
+ * для каждой команды так, чтобы ее пешки шли в своем направлении (MoveGenerator.PAWN_DX/PAWN_DY).
+ * К повернутым таблицам добавляются слагаемые, не зависящие от команды: бонус королю и штраф
+ * остальным фигурам в крепостях, бонус королю и штраф дальнобойным фигурам и коням у стен.
+ * <p>
+ * Оценка подключается к позиции как BoardListener: суммы по командам обновляются при каждом изменении
+ * клетки в makeMove/unmakeMove, поэтому evaluate не просматривает доску. Для позиции без подключенной
+ * оценки суммы вычисляются полным проходом. Объект принадлежит одному поиску.
+ */
+public class PieceSquareEvaluator implements Evaluator, BoardListener {
+
+    /**
+     * Бонус королю в крепости
+     */
+    private static final int KING_FORTRESS_BONUS = 30;
+
+    /**
+     * Штраф фигуре (кроме короля и пешки) в крепости
+     */
+    private static final int PIECE_FORTRESS_PENALTY = 20;
+
+    /**
+     * Бонус королю за каждое направление, закрытое стеной
+     */
+    private static final int KING_WALL_BONUS = 8;
+
+    /**
+     * Штраф дальнобойной фигуре за каждое направление, закрытое стеной
+     */
+    private static final int SLIDER_WALL_PENALTY = 4;
+
+    /**
+     * Штраф коню за каждый прыжок, закрытый стеной
+     */
+    private static final int KNIGHT_WALL_PENALTY = 3;
+
+    /**
+     * Значения фигура-клетка с материалом, индекс - (код фигуры << 8) | клетка
+     */
+    private final int[] values = new int[Piece.CODE_COUNT * BoardState.SQUARES];
+
+    /**
+     * Суммы значений по командам для подключенной позиции
+     */
+    private final int[] sums = new int[BoardState.TEAMS + 1];
+
+    /**
+     * Суммы по командам для позиции без подключенной оценки (рабочий буфер)
+     */
+    private final int[] scratch = new int[BoardState.TEAMS + 1];
+
+    /**
+     * Позиция, к которой подключена оценка
+     */
+    private BoardState attached;
+
+    /**
+     * Строит таблицы для заданного набора стен.
+     *
+     * @param walls контроллер стен
+     */
+    public PieceSquareEvaluator(WallController walls) {
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            int rotation = rotationOf(team);
+            for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+                if (!BoardState.isActive(sq)) continue;
+
+                int frameSq = rotate(sq, (4 - rotation) % 4);
+                for (int type = Piece.PAWN; type <= Piece.KING; type++) {
+                    int value = MaterialEvaluator.PIECE_VALUES[type] + baseValue(type, frameSq) + topologyValue(type, sq, walls);
+                    int code = Piece.make(type, team, false);
+                    values[code << 8 | sq] = value;
+                    values[(code | Piece.FIRST_STEP) << 8 | sq] = value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает значение фигуры на клетке (материал и позиционные слагаемые).
+     *
+     * @param code код фигуры
+     * @param sq индекс клетки
+     * @return значение (0 для пустой клетки)
+     */
+    public int valueOf(int code, int sq) {
+        return values[code << 8 | sq];
+    }
+
+    /**
+     * Вычисляет оценки команд: своя сумма минус средняя сумма противников.
+     *
+     * @param state позиция
+     * @param scores массив для оценок, индекс - номер команды
+     */
+    @Override
+    public void evaluate(BoardState state, int[] scores) {
+        if (state == attached && state.getListener() == this) {
+            MaterialEvaluator.scoreByMaterial(sums, scores);
+            return;
+        }
+        computeSums(state, scratch);
+        MaterialEvaluator.scoreByMaterial(scratch, scores);
+    }
+
+    /**
+     * Подключается к позиции и пересчитывает суммы по командам.
+     *
+     * @param state позиция
+     */
+    @Override
+    public void reset(BoardState state) {
+        attached = state;
+        computeSums(state, sums);
+    }
+
+    /**
+     * Обновляет суммы команд при изменении клетки.
+     *
+     * @param sq индекс клетки
+     * @param oldCode прежний код фигуры
+     * @param newCode новый код фигуры
+     */
+    @Override
+    public void pieceChanged(int sq, int oldCode, int newCode) {
+        sums[Piece.teamOf(oldCode)] -= values[oldCode << 8 | sq];
+        sums[Piece.teamOf(newCode)] += values[newCode << 8 | sq];
+    }
+
+    /**
+     * Вычисляет суммы значений фигур по командам полным проходом по доске.
+     */
+    private void computeSums(BoardState state, int[] result) {
+        for (int team = 0; team <= BoardState.TEAMS; team++) {
+            result[team] = 0;
+        }
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int code = state.getPiece(sq);
+            if (code != Piece.EMPTY) result[Piece.teamOf(code)] += values[code << 8 | sq];
+        }
+    }
+
+    /**
+     * Позиционное слагаемое в системе координат команды 1: пешки идут по возрастанию Y от ряда 3.
+     *
+     * @param type тип фигуры
+     * @param sq клетка в системе координат команды 1
+     * @return бонус или штраф
+     */
+    private static int baseValue(int type, int sq) {
+        int x = BoardState.fileOf(sq), y = BoardState.rankOf(sq);
+        int last = BoardState.SIZE - 1;
+        int fileCentrality = (last - Math.abs(2 * x - last)) / 2;
+        int centrality = (last - Math.max(Math.abs(2 * x - last), Math.abs(2 * y - last))) / 2;
+        int advance = Math.max(0, y - 3);
+
+        return switch (type) {
+            case Piece.PAWN -> 8 * Math.min(advance, 9) + 2 * fileCentrality;
+            case Piece.KNIGHT -> 6 * centrality - 15;
+            case Piece.BISHOP -> 4 * centrality - 8;
+            case Piece.ROOK, Piece.QUEEN -> 2 * centrality;
+            case Piece.KING -> -6 * centrality - 4 * advance;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Слагаемое за крепости и стены, одинаковое для всех команд.
+     *
+     * @param type тип фигуры
+     * @param sq индекс клетки
+     * @param walls контроллер стен
+     * @return бонус или штраф
+     */
+    private static int topologyValue(int type, int sq, WallController walls) {
+        boolean fortress = Matrix.isPositionActiveFortress(BoardState.fileOf(sq), BoardState.rankOf(sq));
+        int wallSides = Integer.bitCount(walls.getStepBlockMask(sq));
+
+        return switch (type) {
+            case Piece.KING -> (fortress ? KING_FORTRESS_BONUS : 0) + KING_WALL_BONUS * wallSides;
+            case Piece.KNIGHT -> (fortress ? -PIECE_FORTRESS_PENALTY : 0)
+                    - KNIGHT_WALL_PENALTY * Integer.bitCount(walls.getKnightBlockMask(sq));
+            case Piece.BISHOP, Piece.ROOK, Piece.QUEEN -> (fortress ? -PIECE_FORTRESS_PENALTY : 0)
+                    - SLIDER_WALL_PENALTY * wallSides;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Определяет, сколько поворотов на 90 градусов переводят направление пешек команды 1 в направление команды.
+     *
+     * @param team номер команды (1-4)
+     * @return количество поворотов (0-3)
+     */
+    static int rotationOf(int team) {
+        int dx = MoveGenerator.PAWN_DX[1], dy = MoveGenerator.PAWN_DY[1];
+        for (int rotation = 0; rotation < 4; rotation++) {
+            if (dx == MoveGenerator.PAWN_DX[team] && dy == MoveGenerator.PAWN_DY[team]) return rotation;
+            int turned = -dy;
+            dy = dx;
+            dx = turned;
+        }
+        throw new IllegalStateException("Направление пешек команды " + team + " не получается поворотом");
+    }
+
+    /**
+     * Поворачивает клетку вокруг центра доски на 90 градусов заданное число раз
+     * (тем же поворотом, что и направление в rotationOf: (x, y) -> (last - y, x)).
+     *
+     * @param sq индекс клетки
+     * @param times количество поворотов
+     * @return индекс повернутой клетки
+     */
+    static int rotate(int sq, int times) {
+        int x = BoardState.fileOf(sq), y = BoardState.rankOf(sq);
+        int last = BoardState.SIZE - 1;
+        for (int i = 0; i < times; i++) {
+            int turned = last - y;
+            y = x;
+            x = turned;
+        }
+        return BoardState.square(x, y);
+    }
+}
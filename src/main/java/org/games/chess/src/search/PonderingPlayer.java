@@ -0,0 +1,174 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Компьютерный игрок одной команды: думает над своим ходом по часам команды и размышляет (ponder)
+ * во время ходов трех других команд.
+ * <p>
+ * Размышление - поиск без ограничений над текущей позицией, пока ходит другая команда. Он заполняет
+ * таблицу транспозиций оценками и лучшими ходами позиций, которые возникнут после ходов соперников
+ * и союзника. Когда ход доходит до своей команды, размышление останавливается, а поиск по часам
+ * начинается с уже заполненной таблицей и быстрее проходит первые итерации.
+ * Поиски выполняются по очереди в одном фоновом потоке BackgroundSearch.
+ * <p>
+ * Часы переключает вызывающий (TeamClock.start/finishMove); игрок только читает остаток времени.
+ */
+public class PonderingPlayer {
+
+    /**
+     * Команда игрока
+     */
+    private final int team;
+
+    /**
+     * Часы команд
+     */
+    private final TeamClock clock;
+
+    /**
+     * Фоновый поиск (движок должен использовать таблицу транспозиций, которая не очищается между поисками)
+     */
+    private final BackgroundSearch background;
+
+    /**
+     * Размышлять ли во время чужих ходов
+     */
+    private volatile boolean ponderEnabled = true;
+
+    /**
+     * Идет ли сейчас размышление
+     */
+    private boolean pondering;
+
+    /**
+     * Момент начала размышления (System.nanoTime)
+     */
+    private long ponderStartNanos;
+
+    /**
+     * Суммарное время размышлений в наносекундах
+     */
+    private long ponderNanos;
+
+    /**
+     * Создает игрока.
+     *
+     * @param team номер команды (1-4)
+     * @param engine движок поиска
+     * @param clock часы команд
+     */
+    public PonderingPlayer(int team, SearchEngine engine, TeamClock clock) {
+        this.team = team;
+        this.clock = clock;
+        this.background = new BackgroundSearch(engine);
+    }
+
+    /**
+     * Возвращает команду игрока.
+     *
+     * @return номер команды (1-4)
+     */
+    public int getTeam() {
+        return team;
+    }
+
+    /**
+     * Включает или выключает размышление во время чужих ходов.
+     *
+     * @param enabled true - размышлять
+     */
+    public void setPonderEnabled(boolean enabled) {
+        this.ponderEnabled = enabled;
+        if (!enabled) stopPondering();
+    }
+
+    /**
+     * Сообщает игроку новую позицию после любого хода. Если ходит другая команда, игрок начинает
+     * размышлять над этой позицией (предыдущее размышление прерывается).
+     *
+     * @param position позиция (копируется)
+     */
+    public synchronized void positionChanged(BoardState position) {
+        if (!ponderEnabled || position.isGameOver() || position.isTeamEliminated(team)
+                || position.getCurrentTeam() == team) {
+            stopPondering();
+            return;
+        }
+
+        finishPonderTiming();
+        background.start(position, SearchLimits.depth(SearchEngine.MAX_PLY));
+        pondering = true;
+        ponderStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Начинает поиск своего хода с бюджетом времени по часам команды (TimeManager).
+     * Размышление, если оно шло, прерывается.
+     *
+     * @param position позиция, в которой ходит команда игрока (копируется)
+     * @return результат поиска, завершающийся в фоновом потоке
+     */
+    public CompletableFuture<SearchResult> think(BoardState position) {
+        return think(position, TimeManager.allocate(clock, team));
+    }
+
+    /**
+     * Начинает поиск своего хода с заданными ограничениями (например, бюджетом узлов уровня сложности).
+     * Размышление, если оно шло, прерывается.
+     *
+     * @param position позиция, в которой ходит команда игрока (копируется)
+     * @param limits ограничения поиска
+     * @return результат поиска, завершающийся в фоновом потоке
+     */
+    public synchronized CompletableFuture<SearchResult> think(BoardState position, SearchLimits limits) {
+        finishPonderTiming();
+        return background.start(position, limits);
+    }
+
+    /**
+     * Прерывает размышление.
+     */
+    public synchronized void stopPondering() {
+        if (!pondering) return;
+        finishPonderTiming();
+        background.cancel();
+    }
+
+    /**
+     * Прерывает текущий поиск (размышление или поиск хода).
+     */
+    public synchronized void cancel() {
+        finishPonderTiming();
+        background.cancel();
+    }
+
+    /**
+     * Возвращает суммарное время размышлений.
+     *
+     * @return миллисекунды
+     */
+    public synchronized long getPonderMillis() {
+        long nanos = ponderNanos + (pondering ? System.nanoTime() - ponderStartNanos : 0);
+        return nanos / 1_000_000L;
+    }
+
+    /**
+     * Останавливает поиск и завершает фоновый поток.
+     */
+    public synchronized void shutdown() {
+        finishPonderTiming();
+        background.shutdown();
+    }
+
+    /**
+     * Учитывает время идущего размышления.
+     */
+    private void finishPonderTiming() {
+        if (!pondering) return;
+        ponderNanos += System.nanoTime() - ponderStartNanos;
+        pondering = false;
+    }
+}
@@ -0,0 +1,62 @@
+package org.games.chess.src.search;
+
+/**
+ * Скалярная реализация ядра аккумуляторов сети: обычные циклы по массивам.
+ */
+public class ScalarAccumulatorKernel implements AccumulatorKernel {
+
+    /**
+     * Прибавляет к аккумулятору строку весов.
+     *
+     * @param accumulator аккумулятор
+     * @param weights веса всех признаков подряд
+     * @param offset начало строки признака в weights
+     */
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    /**
+     * Вычитает из аккумулятора строку весов.
+     *
+     * @param accumulator аккумулятор
+     * @param weights веса всех признаков подряд
+     * @param offset начало строки признака в weights
+     */
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset) {
+        for (int i = 0; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    /**
+     * Вычисляет выходной слой с ограниченным ReLU.
+     *
+     * @param accumulator аккумулятор
+     * @param outputWeights веса выходного слоя
+     * @param clip верхняя граница активации
+     * @return взвешенная сумма активаций
+     */
+    @Override
+    public int forward(short[] accumulator, short[] outputWeights, int clip) {
+        int sum = 0;
+        for (int i = 0; i < accumulator.length; i++) {
+            sum += Math.min(Math.max(accumulator[i], 0), clip) * outputWeights[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Возвращает название реализации.
+     *
+     * @return "scalar"
+     */
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,68 @@
+package org.games.chess.src.search;
+
+/**
+ * Скалярная реализация ядра свертки признаков: обычные циклы по массивам.
+ * Используется, когда модуль jdk.incubator.vector недоступен.
+ */
+public class ScalarFeatureKernel implements FeatureKernel {
+
+    /**
+     * Вычисляет скалярное произведение.
+     *
+     * @param a первый массив
+     * @param b второй массив той же длины
+     * @return сумма a[i] * b[i]
+     */
+    @Override
+    public int dot(int[] a, int[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Суммирует значения, чей ключ равен заданному.
+     *
+     * @param values значения
+     * @param keys ключи той же длины
+     * @param key ключ
+     * @return сумма values[i] при keys[i] == key
+     */
+    @Override
+    public int sumWhereEqual(int[] values, int[] keys, int key) {
+        int sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (keys[i] == key) sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Суммирует значения, чей ключ не равен заданному.
+     *
+     * @param values значения
+     * @param keys ключи той же длины
+     * @param key ключ
+     * @return сумма values[i] при keys[i] != key
+     */
+    @Override
+    public int sumWhereNotEqual(int[] values, int[] keys, int key) {
+        int sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (keys[i] != key) sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Возвращает название реализации.
+     *
+     * @return "scalar"
+     */
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,39 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+
+/**
+ * Движок поиска лучшего хода для команды, чей ход в позиции.
+ * Поиск выполняется синхронно в вызывающем потоке и не обращается к JavaFX;
+ * для запуска из игры используется BackgroundSearch.
+ */
+public interface SearchEngine {
+
+    /**
+     * Максимальная глубина поиска в полуходах
+     */
+    int MAX_PLY = 64;
+
+    /**
+     * Ищет лучший ход для команды BoardState.getCurrentTeam().
+     * Исходная позиция не изменяется.
+     *
+     * @param position позиция
+     * @param limits ограничения поиска
+     * @return результат последней завершенной итерации
+     */
+    SearchResult search(BoardState position, SearchLimits limits);
+
+    /**
+     * Просит текущий поиск остановиться как можно скорее. Может вызываться из любого потока.
+     * Запрос действует, пока его не снимет resetStop: поиск, начатый после stop(), сразу завершается.
+     */
+    void stop();
+
+    /**
+     * Снимает запрос остановки. Вызывается в потоке, который запускает поиск в другом потоке,
+     * до передачи задачи (BackgroundSearch.start): search сам запрос не снимает, поэтому stop(),
+     * пришедший до того, как фоновый поток начал поиск, не теряется.
+     */
+    void resetStop();
+}
@@ -0,0 +1,160 @@
+package org.games.chess.src.search;
+
+/**
+ * Ограничения поиска: максимальная глубина, бюджет узлов и времени.
+ * Поиск останавливается при достижении любого из ограничений.
+ * Мягкий бюджет времени (для игры по часам, см. TimeManager) не прерывает итерацию,
+ * но запрещает начинать следующую итерацию углубления.
+ */
+public class SearchLimits {
+
+    /**
+     * Значение ограничения "без ограничения"
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * Максимальная глубина итеративного углубления
+     */
+    private final int maxDepth;
+
+    /**
+     * Бюджет узлов
+     */
+    private final long maxNodes;
+
+    /**
+     * Бюджет времени в миллисекундах
+     */
+    private final long maxTimeMillis;
+
+    /**
+     * Мягкий бюджет времени в миллисекундах: после него новая итерация не начинается
+     */
+    private final long softTimeMillis;
+
+    /**
+     * Создает ограничения поиска без мягкого бюджета времени.
+     *
+     * @param maxDepth максимальная глубина (не больше MaxNSearch.MAX_PLY)
+     * @param maxNodes бюджет узлов или UNLIMITED
+     * @param maxTimeMillis бюджет времени в миллисекундах или UNLIMITED
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+        this(maxDepth, maxNodes, maxTimeMillis, UNLIMITED);
+    }
+
+    /**
+     * Создает ограничения поиска.
+     *
+     * @param maxDepth максимальная глубина (не больше MaxNSearch.MAX_PLY)
+     * @param maxNodes бюджет узлов или UNLIMITED
+     * @param maxTimeMillis бюджет времени в миллисекундах или UNLIMITED
+     * @param softTimeMillis мягкий бюджет времени в миллисекундах или UNLIMITED
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis, long softTimeMillis) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxTimeMillis = maxTimeMillis;
+        this.softTimeMillis = softTimeMillis;
+    }
+
+    /**
+     * Создает ограничение только по глубине.
+     *
+     * @param depth максимальная глубина
+     * @return ограничения поиска
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * Создает ограничение только по количеству узлов.
+     *
+     * @param nodes бюджет узлов
+     * @return ограничения поиска
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(SearchEngine.MAX_PLY, nodes, UNLIMITED);
+    }
+
+    /**
+     * Создает ограничение только по времени.
+     *
+     * @param millis бюджет времени в миллисекундах
+     * @return ограничения поиска
+     */
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(SearchEngine.MAX_PLY, UNLIMITED, millis);
+    }
+
+    /**
+     * Создает ограничение для игры по часам.
+     *
+     * @param softMillis время, после которого новая итерация не начинается
+     * @param maxMillis время, после которого поиск прерывается
+     * @return ограничения поиска
+     */
+    public static SearchLimits clock(long softMillis, long maxMillis) {
+        return new SearchLimits(SearchEngine.MAX_PLY, UNLIMITED, maxMillis, softMillis);
+    }
+
+    /**
+     * Возвращает максимальную глубину.
+     *
+     * @return глубина в полуходах
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Возвращает бюджет узлов.
+     *
+     * @return количество узлов или UNLIMITED
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Возвращает бюджет времени.
+     *
+     * @return миллисекунды или UNLIMITED
+     */
+    public long getMaxTimeMillis() {
+        return maxTimeMillis;
+    }
+
+    /**
+     * Возвращает мягкий бюджет времени.
+     *
+     * @return миллисекунды или UNLIMITED
+     */
+    public long getSoftTimeMillis() {
+        return softTimeMillis;
+    }
+
+    /**
+     * Вычисляет момент, после которого не начинается новая итерация.
+     *
+     * @param startNanos момент начала поиска (System.nanoTime)
+     * @return момент в наносекундах или Long.MAX_VALUE, если мягкого бюджета нет
+     */
+    public long softDeadlineNanos(long startNanos) {
+        if (softTimeMillis == UNLIMITED) return Long.MAX_VALUE;
+        return startNanos + softTimeMillis * 1_000_000L;
+    }
+
+    /**
+     * Вычисляет момент окончания поиска по бюджету времени.
+     *
+     * @param startNanos момент начала поиска (System.nanoTime)
+     * @return момент окончания в наносекундах или Long.MAX_VALUE
+     */
+    public long deadlineNanos(long startNanos) {
+        if (maxTimeMillis == UNLIMITED) return Long.MAX_VALUE;
+        return startNanos + maxTimeMillis * 1_000_000L;
+    }
+}
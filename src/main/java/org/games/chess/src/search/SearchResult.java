@@ -0,0 +1,160 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.Move;
+
+/**
+ * Результат поиска: лучший ход для команды, чей ход в исходной позиции, вектор оценок,
+ * главный вариант и статистика.
+ */
+public class SearchResult {
+
+    /**
+     * Лучший ход или Move.NONE, если ходов нет
+     */
+    private final int bestMove;
+
+    /**
+     * Оценки команд, индекс - номер команды
+     */
+    private final int[] scores;
+
+    /**
+     * Главный вариант (начинается с лучшего хода)
+     */
+    private final int[] principalVariation;
+
+    /**
+     * Глубина последней завершенной итерации
+     */
+    private final int depth;
+
+    /**
+     * Количество просмотренных узлов
+     */
+    private final long nodes;
+
+    /**
+     * Время поиска в наносекундах
+     */
+    private final long timeNanos;
+
+    /**
+     * Создает результат поиска.
+     *
+     * @param bestMove лучший ход
+     * @param scores оценки команд (копируются)
+     * @param principalVariation главный вариант (копируется)
+     * @param depth глубина последней завершенной итерации
+     * @param nodes количество узлов
+     * @param timeNanos время поиска в наносекундах
+     */
+    public SearchResult(int bestMove, int[] scores, int[] principalVariation, int depth, long nodes, long timeNanos) {
+        this.bestMove = bestMove;
+        this.scores = scores.clone();
+        this.principalVariation = principalVariation.clone();
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeNanos = timeNanos;
+    }
+
+    /**
+     * Возвращает лучший ход.
+     *
+     * @return упакованный ход (см. Move) или Move.NONE
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Возвращает оценку команды.
+     *
+     * @param team номер команды (1-4)
+     * @return оценка в сантипешках
+     */
+    public int getScore(int team) {
+        return scores[team];
+    }
+
+    /**
+     * Возвращает главный вариант.
+     *
+     * @return копия массива ходов
+     */
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    /**
+     * Возвращает глубину последней завершенной итерации.
+     *
+     * @return глубина в полуходах
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Возвращает количество просмотренных узлов.
+     *
+     * @return количество узлов
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Возвращает время поиска.
+     *
+     * @return время в наносекундах
+     */
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    /**
+     * Возвращает скорость поиска.
+     *
+     * @return узлов в секунду
+     */
+    public long getNodesPerSecond() {
+        return (long) (nodes * 1e9 / Math.max(timeNanos, 1));
+    }
+
+    /**
+     * Возвращает главный вариант в виде строки ходов через пробел.
+     *
+     * @return строка ходов в формате Move.toString
+     */
+    public String principalVariationToString() {
+        StringBuilder builder = new StringBuilder();
+        for (int move : principalVariation) {
+            if (builder.length() > 0) builder.append(' ');
+            builder.append(Move.toString(move));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Создает копию результата с другой статистикой (например, суммой узлов всех потоков поиска).
+     *
+     * @param nodes количество узлов
+     * @param timeNanos время поиска в наносекундах
+     * @return новый результат с тем же ходом, оценками и главным вариантом
+     */
+    public SearchResult withStatistics(long nodes, long timeNanos) {
+        return new SearchResult(bestMove, scores, principalVariation, depth, nodes, timeNanos);
+    }
+
+    /**
+     * Возвращает краткое описание результата для вывода в консоль.
+     *
+     * @return строка с глубиной, ходом, оценками, скоростью и главным вариантом
+     */
+    @Override
+    public String toString() {
+        return String.format("depth %d, move %s, scores [%d %d %d %d], nodes %d, %d nodes/s, pv %s",
+                depth, bestMove == Move.NONE ? "-" : Move.toString(bestMove),
+                scores[1], scores[2], scores[3], scores[4], nodes, getNodesPerSecond(), principalVariationToString());
+    }
+}
@@ -0,0 +1,186 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.AttackTables;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
+
+/**
+ * Статическая оценка размена (SEE): разрешает серию взятий на одной клетке без перебора ходов.
+ * Стороны размена - коалиции: после взятия клетку отбивает самая дешевая фигура противоположной
+ * четности, затем снова первая коалиция и т.д.; каждая сторона может прекратить размен.
+ * Нападающие ищутся по таблицам AttackTables, поэтому стены и неактивные клетки учитываются так же,
+ * как в генераторе ходов, а дальнобойные фигуры за снятыми нападающими (рентген) вступают в размен.
+ * Очередность ходов союзников внутри коалиции не учитывается. Объект принадлежит одному потоку поиска.
+ */
+public class StaticExchange {
+
+    /**
+     * Ценность фигур в размене, индекс - тип фигуры (взятие короля выводит команду)
+     */
+    private static final int[] EXCHANGE_VALUES = {0, 100, 300, 325, 500, 900, 20000};
+
+    /**
+     * Максимальная длина серии взятий на одной клетке
+     */
+    private static final int MAX_EXCHANGES = 64;
+
+    /**
+     * Генератор ходов, хранящий таблицы текущего набора стен
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * Клетки фигур, уже участвовавших в размене
+     */
+    private final boolean[] removed = new boolean[BoardState.SQUARES];
+
+    /**
+     * Список клеток removed для быстрого сброса
+     */
+    private final int[] removedSquares = new int[MAX_EXCHANGES + 1];
+
+    /**
+     * Баланс размена после каждого взятия
+     */
+    private final int[] gains = new int[MAX_EXCHANGES + 1];
+
+    /**
+     * Количество клеток в removedSquares
+     */
+    private int removedCount;
+
+    /**
+     * Создает оценку размена.
+     *
+     * @param generator генератор ходов
+     */
+    public StaticExchange(MoveGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Возвращает ценность фигуры в размене.
+     *
+     * @param code код фигуры
+     * @return ценность (0 для пустой клетки)
+     */
+    public static int valueOf(int code) {
+        return EXCHANGE_VALUES[Piece.typeOf(code)];
+    }
+
+    /**
+     * Оценивает взятие: материальный баланс для коалиции взявшей фигуры при наилучшей игре обеих сторон.
+     *
+     * @param state позиция до хода
+     * @param move взятие
+     * @return баланс размена; отрицательное значение означает проигрывающее взятие
+     */
+    public int evaluate(BoardState state, int move) {
+        int to = Move.to(move);
+        int attacker = state.getPiece(Move.from(move));
+        AttackTables tables = generator.getAttackTables();
+
+        gains[0] = valueOf(Move.captured(move));
+        int onSquare = valueOf(attacker);
+        markRemoved(Move.from(move));
+        int side = (Piece.teamOf(attacker) + 1) & 1;
+
+        int depth = 0;
+        while (depth < MAX_EXCHANGES) {
+            int from = leastAttacker(state, tables, to, side);
+            if (from < 0) break;
+
+            depth++;
+            gains[depth] = onSquare - gains[depth - 1];
+            // ни продолжение, ни отказ от него не улучшат результат стороны
+            if (Math.max(-gains[depth - 1], gains[depth]) < 0) break;
+
+            onSquare = valueOf(state.getPiece(from));
+            markRemoved(from);
+            side ^= 1;
+        }
+
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+
+        resetRemoved();
+        return gains[0];
+    }
+
+    /**
+     * Ищет самую дешевую фигуру коалиции, бьющую клетку и еще не участвовавшую в размене.
+     *
+     * @param side четность команд коалиции (0 - четные, 1 - нечетные)
+     * @return клетка нападающего или -1
+     */
+    private int leastAttacker(BoardState state, AttackTables tables, int to, int side) {
+        for (int team = 2 - side; team <= BoardState.TEAMS; team += 2) {
+            for (int from : tables.getPawnAttackers(team, to)) {
+                int code = state.getPiece(from);
+                if (!removed[from] && Piece.typeOf(code) == Piece.PAWN && Piece.teamOf(code) == team) return from;
+            }
+        }
+
+        int found = findJump(state, tables.getKnightTargets(to), Piece.KNIGHT, side);
+        if (found >= 0) return found;
+
+        int bestSq = -1, bestValue = Integer.MAX_VALUE;
+        for (int dir = 0; dir < MoveGenerator.DIRECTION_DX.length; dir++) {
+            int from = firstPiece(state, tables.getRay(dir, to));
+            if (from < 0) continue;
+
+            int code = state.getPiece(from);
+            int type = Piece.typeOf(code);
+            boolean slides = type == Piece.QUEEN || type == ((dir & 1) == 0 ? Piece.ROOK : Piece.BISHOP);
+            if (slides && (Piece.teamOf(code) & 1) == side && valueOf(code) < bestValue) {
+                bestSq = from;
+                bestValue = valueOf(code);
+            }
+        }
+        if (bestSq >= 0) return bestSq;
+
+        return findJump(state, tables.getKingTargets(to), Piece.KING, side);
+    }
+
+    /**
+     * Ищет среди клеток фигуру заданного типа и коалиции, еще не участвовавшую в размене.
+     */
+    private int findJump(BoardState state, int[] squares, int type, int side) {
+        for (int from : squares) {
+            int code = state.getPiece(from);
+            if (!removed[from] && Piece.typeOf(code) == type && (Piece.teamOf(code) & 1) == side) return from;
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает первую фигуру на луче, пропуская фигуры, уже участвовавшие в размене.
+     */
+    private int firstPiece(BoardState state, int[] ray) {
+        for (int sq : ray) {
+            if (!removed[sq] && state.getPiece(sq) != Piece.EMPTY) return sq;
+        }
+        return -1;
+    }
+
+    /**
+     * Отмечает клетку фигуры, участвовавшей в размене.
+     */
+    private void markRemoved(int sq) {
+        removed[sq] = true;
+        removedSquares[removedCount++] = sq;
+    }
+
+    /**
+     * Сбрасывает отметки после оценки размена.
+     */
+    private void resetRemoved() {
+        while (removedCount > 0) {
+            removed[removedSquares[--removedCount]] = false;
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Piece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Таблица эндшпиля для позиций, где остались две команды разных коалиций (две другие выбыли)
+ * с заданным набором фигур. Для каждой расстановки и команды, чей ход, хранится расстояние до взятия
+ * короля в полуходах при лучшей игре сторон: нечетное - команда, чей ход, берет короля противника,
+ * четное - ее король будет взят, 0 - ничья. Четность расстояния сама кодирует результат,
+ * поэтому значение занимает getBits() бит.
+ * <p>
+ * Позиция индексируется номерами клеток фигур среди активных клеток доски (ACTIVE_SQUARES)
+ * в порядке фигур таблицы и битом команды, чей ход; одинаковые фигуры стоят по возрастанию клеток.
+ * Коды фигур идут в каноническом порядке canonical: король первой команды (с меньшим номером),
+ * ее фигуры, затем фигуры второй команды. Таблица не учитывает первый ход: позиции с пешкой, которая может пойти на две клетки,
+ * или с не ходившим королем при ладье на доске (рокировка) в таблице не представлены.
+ * <p>
+ * Формат файла (little-endian): заголовок из int - MAGIC, VERSION, количество фигур, коды фигур
+ * (MAX_PIECES значений, лишние - 0), разрядность значения, наибольшее расстояние; затем long -
+ * значения, упакованные подряд по getBits() бит начиная с младших разрядов. Файл отображается в память
+ * и читается абсолютными чтениями без выделения памяти, поэтому одну таблицу могут читать несколько
+ * потоков поиска. Таблицы строит TablebaseGenerator.
+ */
+public class Tablebase {
+
+    /**
+     * Сигнатура файла таблицы ("TBLE")
+     */
+    public static final int MAGIC = 0x454C4254;
+
+    /**
+     * Версия формата
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Наибольшее количество фигур в таблице: индекс четырех фигур (192^4 * 2) не помещается в int (sizeOf)
+     */
+    public static final int MAX_PIECES = 3;
+
+    /**
+     * Результат пробы позиции, которой нет в таблице
+     */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /**
+     * Размер заголовка в байтах
+     */
+    private static final int HEADER_BYTES = (5 + MAX_PIECES) * Integer.BYTES;
+
+    /**
+     * Активные клетки доски по возрастанию индекса
+     */
+    static final int[] ACTIVE_SQUARES = buildActiveSquares();
+
+    /**
+     * Количество активных клеток
+     */
+    static final int ACTIVE_COUNT = ACTIVE_SQUARES.length;
+
+    /**
+     * Номер клетки среди активных по индексу клетки доски (-1 для неактивной)
+     */
+    static final int[] ACTIVE_INDEX = buildActiveIndex();
+
+    /**
+     * Коды фигур таблицы в каноническом порядке (без флага первого хода)
+     */
+    private final int[] codes;
+
+    /**
+     * Две команды таблицы: команда первого короля и команда противника
+     */
+    private final int[] teams;
+
+    /**
+     * Маска выбывших команд позиций таблицы (BoardState.getEliminatedMask)
+     */
+    private final int eliminatedMask;
+
+    /**
+     * Сигнатура набора фигур (signature)
+     */
+    private final long signature;
+
+    /**
+     * Разрядность значения
+     */
+    private final int bits;
+
+    /**
+     * Наибольшее расстояние в таблице
+     */
+    private final int maxDistance;
+
+    /**
+     * Количество позиций (индексов)
+     */
+    private final int size;
+
+    /**
+     * Значения, упакованные по bits бит (отображенный файл или буфер в памяти)
+     */
+    private final ByteBuffer data;
+
+    /**
+     * Создает таблицу над буфером значений.
+     *
+     * @param codes коды фигур в каноническом порядке
+     * @param bits разрядность значения
+     * @param maxDistance наибольшее расстояние
+     * @param data упакованные значения (little-endian, с позиции 0)
+     */
+    private Tablebase(int[] codes, int bits, int maxDistance, ByteBuffer data) {
+        this.codes = codes.clone();
+        this.teams = teamsOf(codes);
+        this.signature = signature(codes, codes.length);
+        this.bits = bits;
+        this.maxDistance = maxDistance;
+        this.data = data;
+        this.size = sizeOf(codes.length);
+
+        int mask = 0;
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            if (team != teams[0] && team != teams[1]) mask |= 1 << team;
+        }
+        this.eliminatedMask = mask;
+    }
+
+    /**
+     * Упаковывает значения, построенные генератором.
+     *
+     * @param codes коды фигур в каноническом порядке
+     * @param values расстояния по индексам позиций (0 - ничья или недопустимая расстановка)
+     * @return таблица в памяти
+     */
+    static Tablebase pack(int[] codes, byte[] values) {
+        int maxDistance = 0;
+        for (byte value : values) {
+            maxDistance = Math.max(maxDistance, value & 0xFF);
+        }
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxDistance));
+
+        long[] words = new long[(int) (dataBytes(values.length, bits) / Long.BYTES)];
+        for (int index = 0; index < values.length; index++) {
+            long bit = (long) index * bits;
+            int word = (int) (bit >>> 6), shift = (int) (bit & 63);
+            long value = values[index] & 0xFF;
+            words[word] |= value << shift;
+            if (shift + bits > 64) words[word + 1] |= value >>> (64 - shift);
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(words.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        data.asLongBuffer().put(words);
+        return new Tablebase(codes, bits, maxDistance, data);
+    }
+
+    /**
+     * Отображает файл таблицы в память.
+     *
+     * @param path путь к файлу
+     * @return таблица
+     * @throws IOException при ошибке чтения или неверном формате
+     */
+    public static Tablebase load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) throw new IOException("Не файл таблицы эндшпиля: " + path);
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) throw new IOException("Не файл таблицы эндшпиля: " + path);
+            int version = header.getInt();
+            int pieceCount = header.getInt();
+            if (version != VERSION || pieceCount < 2 || pieceCount > MAX_PIECES) {
+                throw new IOException("Неподдерживаемая таблица эндшпиля: версия " + version + ", фигур " + pieceCount);
+            }
+            int[] codes = new int[pieceCount];
+            for (int i = 0; i < MAX_PIECES; i++) {
+                int code = header.getInt();
+                if (i < pieceCount) codes[i] = code;
+            }
+            int bits = header.getInt();
+            int maxDistance = header.getInt();
+            if (!Arrays.equals(codes, canonical(codes)) || bits < 1 || bits > 8) {
+                throw new IOException("Неверный заголовок таблицы эндшпиля: " + path);
+            }
+
+            long expected = HEADER_BYTES + dataBytes(sizeOf(pieceCount), bits);
+            if (channel.size() != expected) {
+                throw new IOException("Неверный размер таблицы: " + channel.size() + " вместо " + expected);
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, channel.size() - HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            return new Tablebase(codes, bits, maxDistance, data);
+        }
+    }
+
+    /**
+     * Записывает таблицу в файл.
+     *
+     * @param path путь к файлу
+     * @throws IOException при ошибке записи
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(codes.length);
+        for (int i = 0; i < MAX_PIECES; i++) {
+            header.putInt(i < codes.length ? codes[i] : 0);
+        }
+        header.putInt(bits).putInt(maxDistance).flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer body = data.duplicate().position(0).limit((int) dataBytes(size, bits));
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    /**
+     * Возвращает название набора фигур, например "KQ1vK2".
+     *
+     * @return название таблицы
+     */
+    public String getName() {
+        return nameOf(codes);
+    }
+
+    /**
+     * Возвращает копию кодов фигур таблицы в каноническом порядке.
+     *
+     * @return коды фигур
+     */
+    public int[] getCodes() {
+        return codes.clone();
+    }
+
+    /**
+     * Возвращает сигнатуру набора фигур для быстрого выбора таблицы.
+     *
+     * @return сигнатура (см. signature)
+     */
+    public long getSignature() {
+        return signature;
+    }
+
+    /**
+     * Возвращает разрядность значения.
+     *
+     * @return бит на позицию
+     */
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     * Возвращает наибольшее расстояние до взятия короля в таблице.
+     *
+     * @return полуходы
+     */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Возвращает количество позиций (индексов) таблицы.
+     *
+     * @return количество индексов
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Возвращает значение позиции по индексу.
+     *
+     * @param index индекс позиции
+     * @return расстояние в полуходах (0 - ничья или недопустимая расстановка)
+     */
+    public int getValue(int index) {
+        long bit = (long) index * bits;
+        int word = (int) (bit >>> 6), shift = (int) (bit & 63);
+        long value = data.getLong(word * Long.BYTES) >>> shift;
+        if (shift + bits > 64) value |= data.getLong((word + 1) * Long.BYTES) << (64 - shift);
+        return (int) (value & ((1L << bits) - 1));
+    }
+
+    /**
+     * Ищет позицию доски в таблице.
+     *
+     * @param state позиция
+     * @return полуходов до взятия короля (больше нуля - выигрыш команды, чей ход, меньше нуля - проигрыш),
+     *         0 - ничья, UNKNOWN - позиции нет в таблице
+     */
+    public int probe(BoardState state) {
+        int[] pieces = new int[MAX_PIECES], squares = new int[MAX_PIECES];
+        int count = collect(state, pieces, squares);
+        return count < 0 ? UNKNOWN : probe(state, pieces, squares, count);
+    }
+
+    /**
+     * Ищет позицию в таблице по уже собранным фигурам (см. collect).
+     *
+     * @param state позиция (команда, чей ход, и выбывшие команды)
+     * @param pieces коды фигур по возрастанию клеток
+     * @param squares клетки фигур по возрастанию
+     * @param count количество фигур
+     * @return результат как у probe(BoardState)
+     */
+    int probe(BoardState state, int[] pieces, int[] squares, int count) {
+        int team = state.getCurrentTeam();
+        int side = team == teams[0] ? 0 : team == teams[1] ? 1 : -1;
+        if (side < 0 || count != codes.length || state.getEliminatedMask() != eliminatedMask) return UNKNOWN;
+
+        int index = 0, used = 0;
+        for (int code : codes) {
+            int slot = 0;
+            while (slot < count && ((used & 1 << slot) != 0 || Piece.withoutFirstStep(pieces[slot]) != code)) {
+                slot++;
+            }
+            if (slot == count || Piece.isFirstStep(pieces[slot]) && firstStepMatters(pieces[slot])) return UNKNOWN;
+
+            used |= 1 << slot;
+            index = index * ACTIVE_COUNT + ACTIVE_INDEX[squares[slot]];
+        }
+
+        int value = getValue(index * 2 + side);
+        return value == 0 ? 0 : (value & 1) != 0 ? value : -value;
+    }
+
+    /**
+     * Проверяет, влияет ли флаг первого хода фигуры на ее ходы: пешка может пойти на две клетки,
+     * король - рокироваться, если на доске есть ладья.
+     */
+    private boolean firstStepMatters(int piece) {
+        int type = Piece.typeOf(piece);
+        if (type == Piece.PAWN) return true;
+        if (type != Piece.KING) return false;
+        for (int code : codes) {
+            if (Piece.typeOf(code) == Piece.ROOK) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Собирает фигуры доски по возрастанию клеток.
+     *
+     * @param state позиция
+     * @param pieces массив для кодов фигур (MAX_PIECES элементов)
+     * @param squares массив для клеток (MAX_PIECES элементов)
+     * @return количество фигур или -1, если их больше MAX_PIECES
+     */
+    static int collect(BoardState state, int[] pieces, int[] squares) {
+        int count = 0;
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int piece = state.getPiece(sq);
+            if (piece == Piece.EMPTY) continue;
+            if (count == MAX_PIECES) return -1;
+            pieces[count] = piece;
+            squares[count++] = sq;
+        }
+        return count;
+    }
+
+    /**
+     * Вычисляет сигнатуру набора фигур: коды без флага первого хода, упорядоченные по возрастанию,
+     * по 8 бит. Сигнатура не зависит от порядка фигур и совпадает у таблицы и позиций ее набора.
+     *
+     * @param pieces коды фигур
+     * @param count количество фигур
+     * @return сигнатура
+     */
+    static long signature(int[] pieces, int count) {
+        return signature(pieces, count, new int[MAX_PIECES]);
+    }
+
+    /**
+     * Вычисляет сигнатуру набора фигур, сортируя коды в переданном буфере (без выделения памяти).
+     *
+     * @param pieces коды фигур
+     * @param count количество фигур
+     * @param sorted буфер для сортировки (MAX_PIECES элементов)
+     * @return сигнатура
+     */
+    static long signature(int[] pieces, int count, int[] sorted) {
+        for (int i = 0; i < count; i++) {
+            int code = Piece.withoutFirstStep(pieces[i]);
+            int j = i;
+            for (; j > 0 && sorted[j - 1] > code; j--) {
+                sorted[j] = sorted[j - 1];
+            }
+            sorted[j] = code;
+        }
+        long signature = count;
+        for (int i = 0; i < count; i++) {
+            signature = signature << 8 | sorted[i];
+        }
+        return signature;
+    }
+
+    /**
+     * Упорядочивает коды фигур канонически: король первой команды, ее остальные фигуры по убыванию
+     * типа, затем так же фигуры второй команды. Первая команда - команда с меньшим номером,
+     * поэтому результат не зависит от порядка фигур.
+     *
+     * @param pieces коды фигур (по одному королю у каждой из двух команд разных коалиций)
+     * @return коды без флага первого хода в каноническом порядке
+     * @throws IllegalArgumentException если набор фигур не подходит для таблицы
+     */
+    public static int[] canonical(int[] pieces) {
+        if (pieces.length < 2 || pieces.length > MAX_PIECES) {
+            throw new IllegalArgumentException("В таблице эндшпиля от 2 до " + MAX_PIECES + " фигур");
+        }
+        int first = 0;
+        for (int piece : pieces) {
+            if (Piece.typeOf(piece) == Piece.KING && (first == 0 || Piece.teamOf(piece) < first)) {
+                first = Piece.teamOf(piece);
+            }
+        }
+
+        Integer[] order = new Integer[pieces.length];
+        for (int i = 0; i < pieces.length; i++) {
+            order[i] = Piece.withoutFirstStep(pieces[i]);
+        }
+        int firstTeam = first;
+        Arrays.sort(order, (a, b) -> {
+            boolean aFirst = Piece.teamOf(a) == firstTeam, bFirst = Piece.teamOf(b) == firstTeam;
+            if (aFirst != bFirst) return aFirst ? -1 : 1;
+            return Integer.compare(Piece.typeOf(b), Piece.typeOf(a));
+        });
+
+        int[] codes = new int[pieces.length];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = order[i];
+        }
+        int[] teams = teamsOf(codes);
+        if (teams[1] == 0 || !Piece.isEnemy(codes[0], Piece.make(Piece.KING, teams[1], false))) {
+            throw new IllegalArgumentException("Таблица эндшпиля строится для двух команд разных коалиций");
+        }
+        int kings = 0;
+        for (int code : codes) {
+            if (Piece.teamOf(code) != teams[0] && Piece.teamOf(code) != teams[1]) {
+                throw new IllegalArgumentException("Таблица эндшпиля строится для двух команд");
+            }
+            if (Piece.typeOf(code) == Piece.KING) kings++;
+        }
+        if (kings != 2 || Piece.typeOf(codes[0]) != Piece.KING) {
+            throw new IllegalArgumentException("У каждой команды таблицы должен быть один король");
+        }
+        return codes;
+    }
+
+    /**
+     * Возвращает две команды набора: команду первой фигуры и команду противника (0, если ее нет).
+     */
+    private static int[] teamsOf(int[] codes) {
+        int[] teams = {Piece.teamOf(codes[0]), 0};
+        for (int code : codes) {
+            if (Piece.teamOf(code) != teams[0]) teams[1] = Piece.teamOf(code);
+        }
+        return teams;
+    }
+
+    /**
+     * Возвращает количество индексов таблицы с заданным числом фигур.
+     *
+     * @param pieceCount количество фигур
+     * @return количество индексов
+     * @throws IllegalArgumentException если индексы не помещаются в int
+     */
+    static int sizeOf(int pieceCount) {
+        long size = 2;
+        for (int i = 0; i < pieceCount; i++) {
+            size *= ACTIVE_COUNT;
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Слишком большая таблица: " + pieceCount + " фигур, " + size + " позиций");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Возвращает размер упакованных значений в байтах.
+     */
+    private static long dataBytes(int size, int bits) {
+        return (((long) size * bits + 63) >>> 6) * Long.BYTES;
+    }
+
+    /**
+     * Возвращает название набора фигур в каноническом порядке, например "KQ1vK2":
+     * фигуры и номер команды каждой стороны.
+     *
+     * @param codes коды фигур в каноническом порядке
+     * @return название
+     */
+    public static String nameOf(int[] codes) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < codes.length; i++) {
+            builder.append(Piece.typeToChar(Piece.typeOf(codes[i])));
+            if (i + 1 == codes.length || Piece.teamOf(codes[i + 1]) != Piece.teamOf(codes[i])) {
+                builder.append(Piece.teamOf(codes[i]));
+                if (i + 1 < codes.length) builder.append('v');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Строит список активных клеток.
+     */
+    private static int[] buildActiveSquares() {
+        int count = 0;
+        int[] squares = new int[BoardState.SQUARES];
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            if (BoardState.isActive(sq)) squares[count++] = sq;
+        }
+        return Arrays.copyOf(squares, count);
+    }
+
+    /**
+     * Строит номера активных клеток по индексу клетки доски.
+     */
+    private static int[] buildActiveIndex() {
+        int[] index = new int[BoardState.SQUARES];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < ACTIVE_SQUARES.length; i++) {
+            index[ACTIVE_SQUARES[i]] = i;
+        }
+        return index;
+    }
+}
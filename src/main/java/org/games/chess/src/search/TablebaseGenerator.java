@@ -0,0 +1,447 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
+
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Построение таблиц эндшпиля Tablebase ретроградным анализом по проходам.
+ * Проход p находит позиции с расстоянием p до взятия короля: на нечетном проходе - позиции,
+ * где команда, чей ход, берет короля (p = 1) или может перейти в позицию с расстоянием p - 1,
+ * на четном - позиции, где все ходы (или пропуск хода, если ходов нет) ведут в позиции с нечетным
+ * расстоянием не больше p - 1. Взятие фигуры, кроме короля, ведет в таблицу меньшего набора,
+ * которая строится раньше (рекурсивно) или берется из набора известных таблиц.
+ * Позиции, не получившие расстояния, когда проходы перестают что-либо находить, - ничьи.
+ * <p>
+ * Проход разбивается на диапазоны индексов, которые задачи ForkJoinPool обрабатывают параллельно
+ * с общим массивом значений без блокировок: проход p записывает только значение p, а читает
+ * на нечетном проходе значение p - 1, на четном - нечетные значения, поэтому результат прохода
+ * не зависит от порядка обработки позиций. Ходы берутся из MoveGenerator с настоящими стенами,
+ * у каждого потока своя рабочая позиция BoardState.
+ */
+public class TablebaseGenerator {
+
+    /**
+     * Размер диапазона индексов, который задача обрабатывает без разбиения
+     */
+    private static final int SPLIT_SIZE = 1 << 14;
+
+    /**
+     * Значение недопустимой расстановки во время построения (две фигуры на клетке, неканонический порядок)
+     */
+    private static final byte INVALID = (byte) 0xFF;
+
+    /**
+     * Наибольшее расстояние, которое можно записать в байт значения
+     */
+    private static final int MAX_DISTANCE = 0xFE;
+
+    /**
+     * Генератор ходов (общий для потоков)
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * Пул потоков построения
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Известные таблицы: сюда же добавляются построенные
+     */
+    private final Tablebases known;
+
+    /**
+     * Рабочие данные потоков пула
+     */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Поток для сообщений о ходе построения или null
+     */
+    private PrintStream log;
+
+    /**
+     * Создает генератор таблиц.
+     *
+     * @param generator генератор ходов со стенами доски
+     * @param pool пул потоков построения
+     * @param known известные таблицы (меньшие наборы берутся отсюда, построенные таблицы добавляются сюда)
+     */
+    public TablebaseGenerator(MoveGenerator generator, ForkJoinPool pool, Tablebases known) {
+        this.generator = generator;
+        this.pool = pool;
+        this.known = known;
+    }
+
+    /**
+     * Включает сообщения о ходе построения.
+     *
+     * @param log поток для сообщений или null
+     */
+    public void setLog(PrintStream log) {
+        this.log = log;
+    }
+
+    /**
+     * Строит таблицу набора фигур и все недостающие таблицы меньших наборов.
+     * Если таблица уже есть среди известных, она возвращается без построения.
+     *
+     * @param pieces коды фигур (по одному королю у двух команд разных коалиций)
+     * @return таблица
+     */
+    public Tablebase generate(int[] pieces) {
+        int[] codes = Tablebase.canonical(pieces);
+        Tablebase existing = known.find(codes);
+        if (existing != null) return existing;
+
+        Job job = new Job(codes);
+        for (int slot = 0; slot < codes.length; slot++) {
+            if (Piece.typeOf(codes[slot]) == Piece.KING) continue;
+            int[] rest = new int[codes.length - 1];
+            for (int i = 0, j = 0; i < codes.length; i++) {
+                if (i != slot) rest[j++] = codes[i];
+            }
+            job.subtables[slot] = generate(rest);
+            job.subtableCodes[slot] = rest;
+            job.subtableDistance = Math.max(job.subtableDistance, job.subtables[slot].getMaxDistance());
+        }
+
+        long start = System.nanoTime();
+        long valid = pool.invoke(new PassTask(job, 0, 0, job.values.length));
+        int emptyPasses = 0;
+        int pass = 1;
+        for (; emptyPasses < 2 || pass <= job.subtableDistance + 1; pass++) {
+            if (pass > MAX_DISTANCE) {
+                throw new IllegalStateException("Расстояние в таблице " + Tablebase.nameOf(codes) + " больше " + MAX_DISTANCE);
+            }
+            long found = pool.invoke(new PassTask(job, pass, 0, job.values.length));
+            emptyPasses = found == 0 ? emptyPasses + 1 : 0;
+            if (log != null && found > 0) log.printf("  %s: проход %d, позиций %d%n", Tablebase.nameOf(codes), pass, found);
+        }
+
+        for (int index = 0; index < job.values.length; index++) {
+            if (job.values[index] == INVALID) job.values[index] = 0;
+        }
+        Tablebase table = Tablebase.pack(codes, job.values);
+        known.add(table);
+        if (log != null) {
+            log.printf("%s: позиций %d, проходов %d, наибольшее расстояние %d, %d бит, %.1f с%n",
+                    table.getName(), valid, pass - 1, table.getMaxDistance(), table.getBits(),
+                    (System.nanoTime() - start) / 1e9);
+        }
+        return table;
+    }
+
+    /**
+     * Обрабатывает одну позицию на проходе.
+     *
+     * @param job строящаяся таблица
+     * @param index индекс позиции
+     * @param pass номер прохода (0 - отметка недопустимых расстановок)
+     * @return true если позиция получила значение (на проходе 0 - если расстановка допустима)
+     */
+    private boolean process(Job job, int index, int pass) {
+        Scratch work = scratch.get();
+        int[] actives = work.actives;
+        int count = job.codes.length;
+        int rest = index >>> 1;
+        for (int i = count - 1; i >= 0; i--) {
+            actives[i] = rest % Tablebase.ACTIVE_COUNT;
+            rest /= Tablebase.ACTIVE_COUNT;
+        }
+
+        if (pass == 0) {
+            boolean valid = isValid(job.codes, actives, count);
+            if (!valid) job.values[index] = INVALID;
+            return valid;
+        }
+        if (job.values[index] != 0) return false;
+
+        int side = index & 1;
+        BoardState state = work.prepare(job);
+        for (int i = 0; i < count; i++) {
+            state.setPiece(Tablebase.ACTIVE_SQUARES[actives[i]], job.codes[i]);
+        }
+        state.setCurrentTeam(job.teams[side]);
+
+        int moveCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (Piece.teamOf(job.codes[i]) == job.teams[side]) {
+                moveCount = generator.generatePieceMoves(state, Tablebase.ACTIVE_SQUARES[actives[i]], work.moves, moveCount);
+            }
+        }
+
+        boolean resolved = (pass & 1) != 0
+                ? isWin(job, work, actives, side, moveCount, pass)
+                : isLoss(job, work, actives, side, moveCount, pass);
+
+        for (int i = 0; i < count; i++) {
+            state.setPiece(Tablebase.ACTIVE_SQUARES[actives[i]], Piece.EMPTY);
+        }
+        if (resolved) job.values[index] = (byte) pass;
+        return resolved;
+    }
+
+    /**
+     * Проверяет выигрыш за pass полуходов: взятие короля (pass = 1) или ход в позицию с проигрышем
+     * противника за pass - 1 полуход.
+     */
+    private boolean isWin(Job job, Scratch work, int[] actives, int side, int moveCount, int pass) {
+        BoardState state = work.state;
+        for (int i = 0; i < moveCount; i++) {
+            int move = work.moves[i];
+            boolean kingCapture = Piece.typeOf(state.getPiece(Move.to(move))) == Piece.KING;
+            if (kingCapture) {
+                if (pass == 1) return true;
+                continue;
+            }
+            if (pass > 1 && childValue(job, work, actives, side, move) == pass - 1) return true;
+        }
+        return moveCount == 0 && pass > 1 && childValue(job, work, actives, side, Move.NONE) == pass - 1;
+    }
+
+    /**
+     * Проверяет проигрыш за pass полуходов: все ходы (или пропуск хода, если ходов нет) ведут
+     * в позиции с выигрышем противника не дольше чем за pass - 1 полуход.
+     */
+    private boolean isLoss(Job job, Scratch work, int[] actives, int side, int moveCount, int pass) {
+        BoardState state = work.state;
+        if (moveCount == 0) return isOpponentWin(childValue(job, work, actives, side, Move.NONE), pass);
+
+        for (int i = 0; i < moveCount; i++) {
+            int move = work.moves[i];
+            if (Piece.typeOf(state.getPiece(Move.to(move))) == Piece.KING) return false;
+            if (!isOpponentWin(childValue(job, work, actives, side, move), pass)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет, что значение позиции противника - выигрыш не дольше чем за pass - 1 полуход.
+     */
+    private static boolean isOpponentWin(int value, int pass) {
+        return (value & 1) != 0 && value < pass;
+    }
+
+    /**
+     * Возвращает значение позиции после хода: из этой таблицы или, после взятия, из таблицы меньшего набора.
+     *
+     * @param move ход или Move.NONE для пропуска хода
+     */
+    private int childValue(Job job, Scratch work, int[] actives, int side, int move) {
+        int count = job.codes.length;
+        int[] child = work.child;
+        System.arraycopy(actives, 0, child, 0, count);
+
+        Tablebase subtable = null;
+        int[] codes = job.codes;
+        if (move != Move.NONE) {
+            int from = Tablebase.ACTIVE_INDEX[Move.from(move)], to = Tablebase.ACTIVE_INDEX[Move.to(move)];
+            int captured = -1;
+            for (int i = 0; i < count; i++) {
+                if (child[i] == to) captured = i;
+            }
+            for (int i = 0; i < count; i++) {
+                if (child[i] == from) child[i] = to;
+            }
+            if (captured >= 0) {
+                subtable = job.subtables[captured];
+                codes = job.subtableCodes[captured];
+                System.arraycopy(child, captured + 1, child, captured, count - captured - 1);
+                count--;
+            }
+        }
+
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            // одинаковые фигуры хранятся по возрастанию клеток
+            for (int j = i; j > 0 && codes[j - 1] == codes[j] && child[j - 1] > child[j]; j--) {
+                int swap = child[j];
+                child[j] = child[j - 1];
+                child[j - 1] = swap;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            index = index * Tablebase.ACTIVE_COUNT + child[i];
+        }
+        index = index * 2 + (side ^ 1);
+        return subtable != null ? subtable.getValue(index) : job.values[index] & 0xFF;
+    }
+
+    /**
+     * Проверяет расстановку: фигуры на разных клетках, одинаковые фигуры по возрастанию клеток.
+     */
+    private static boolean isValid(int[] codes, int[] actives, int count) {
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                if (actives[i] == actives[j]) return false;
+                if (codes[i] == codes[j] && actives[i] > actives[j]) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Строящаяся таблица.
+     */
+    private static class Job {
+
+        /**
+         * Коды фигур в каноническом порядке
+         */
+        final int[] codes;
+
+        /**
+         * Команды сторон: индекс - бит команды, чей ход, в индексе позиции
+         */
+        final int[] teams = new int[2];
+
+        /**
+         * Маска выбывших команд позиций таблицы
+         */
+        final int eliminatedMask;
+
+        /**
+         * Значения позиций во время построения
+         */
+        final byte[] values;
+
+        /**
+         * Таблицы после взятия фигуры по номеру фигуры (null для королей)
+         */
+        final Tablebase[] subtables;
+
+        /**
+         * Коды фигур таблиц после взятия по номеру фигуры
+         */
+        final int[][] subtableCodes;
+
+        /**
+         * Наибольшее расстояние в таблицах меньших наборов
+         */
+        int subtableDistance;
+
+        /**
+         * Создает задание построения.
+         */
+        Job(int[] codes) {
+            this.codes = codes;
+            this.values = new byte[Tablebase.sizeOf(codes.length)];
+            this.subtables = new Tablebase[codes.length];
+            this.subtableCodes = new int[codes.length][];
+            teams[0] = Piece.teamOf(codes[0]);
+            for (int code : codes) {
+                if (Piece.teamOf(code) != teams[0]) teams[1] = Piece.teamOf(code);
+            }
+            int mask = 0;
+            for (int team = 1; team <= BoardState.TEAMS; team++) {
+                if (team != teams[0] && team != teams[1]) mask |= 1 << team;
+            }
+            this.eliminatedMask = mask;
+        }
+    }
+
+    /**
+     * Рабочие данные одного потока.
+     */
+    private static class Scratch {
+
+        /**
+         * Рабочая позиция (между позициями доска пуста)
+         */
+        final BoardState state = new BoardState();
+
+        /**
+         * Буфер ходов
+         */
+        final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        /**
+         * Номера активных клеток фигур позиции
+         */
+        final int[] actives = new int[Tablebase.MAX_PIECES];
+
+        /**
+         * Номера активных клеток фигур позиции после хода
+         */
+        final int[] child = new int[Tablebase.MAX_PIECES];
+
+        /**
+         * Возвращает рабочую позицию с выбывшими командами задания.
+         */
+        BoardState prepare(Job job) {
+            if (state.getEliminatedMask() != job.eliminatedMask) {
+                for (int team = 1; team <= BoardState.TEAMS; team++) {
+                    state.setTeamEliminated(team, (job.eliminatedMask & 1 << team) != 0);
+                }
+            }
+            return state;
+        }
+    }
+
+    /**
+     * Проход по диапазону индексов: делится пополам, пока диапазон больше SPLIT_SIZE.
+     */
+    private class PassTask extends RecursiveTask<Long> {
+
+        /**
+         * Версия сериализации (задания не сериализуются, поле нужно только RecursiveTask)
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Строящаяся таблица
+         */
+        private final transient Job job;
+
+        /**
+         * Номер прохода
+         */
+        private final int pass;
+
+        /**
+         * Первый индекс диапазона
+         */
+        private final int from;
+
+        /**
+         * Индекс после последнего индекса диапазона
+         */
+        private final int to;
+
+        /**
+         * Создает задачу прохода.
+         */
+        PassTask(Job job, int pass, int from, int to) {
+            this.job = job;
+            this.pass = pass;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Обрабатывает диапазон и возвращает количество позиций, получивших значение.
+         */
+        @Override
+        protected Long compute() {
+            if (to - from <= SPLIT_SIZE) {
+                long found = 0;
+                for (int index = from; index < to; index++) {
+                    if (process(job, index, pass)) found++;
+                }
+                return found;
+            }
+            int middle = (from + to) >>> 1;
+            PassTask left = new PassTask(job, pass, from, middle);
+            left.fork();
+            long right = new PassTask(job, pass, middle, to).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Piece;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Набор таблиц эндшпиля Tablebase, к которому обращается поиск (AbstractSearch.setTablebases).
+ * Проба сначала дешево отсекает позиции, где выбыло не две команды или фигур больше, чем в самой
+ * большой таблице, затем выбирает таблицу по сигнатуре набора фигур линейным перебором (таблиц немного).
+ * Таблицы добавляются заменой массива, поэтому проба из нескольких потоков поиска не блокируется.
+ */
+public class Tablebases {
+
+    /**
+     * Расширение файлов таблиц
+     */
+    public static final String EXTENSION = ".tbl";
+
+    /**
+     * Таблицы набора
+     */
+    private volatile Tablebase[] tables = new Tablebase[0];
+
+    /**
+     * Наибольшее количество фигур в таблицах набора
+     */
+    private volatile int maxPieces;
+
+    /**
+     * Буферы пробы потоков поиска
+     */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Загружает все файлы таблиц из каталога.
+     *
+     * @param directory каталог с файлами *.tbl
+     * @return набор таблиц
+     * @throws IOException при ошибке чтения
+     */
+    public static Tablebases load(Path directory) throws IOException {
+        Tablebases tablebases = new Tablebases();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                tablebases.add(Tablebase.load(file));
+            }
+        }
+        return tablebases;
+    }
+
+    /**
+     * Добавляет таблицу в набор. Таблица с тем же набором фигур и командами заменяет прежнюю.
+     *
+     * @param table таблица
+     */
+    public synchronized void add(Tablebase table) {
+        int index = indexOf(table.getCodes());
+        Tablebase[] updated = Arrays.copyOf(tables, index < 0 ? tables.length + 1 : tables.length);
+        updated[index < 0 ? tables.length : index] = table;
+        tables = updated;
+        maxPieces = Math.max(maxPieces, table.getCodes().length);
+    }
+
+    /**
+     * Ищет таблицу набора фигур.
+     *
+     * @param codes коды фигур в любом порядке
+     * @return таблица или null
+     */
+    public synchronized Tablebase find(int[] codes) {
+        int index = indexOf(codes);
+        return index >= 0 ? tables[index] : null;
+    }
+
+    /**
+     * Возвращает таблицы набора.
+     *
+     * @return список таблиц
+     */
+    public synchronized List<Tablebase> getTables() {
+        return new ArrayList<>(Arrays.asList(tables));
+    }
+
+    /**
+     * Ищет позицию в таблицах набора.
+     *
+     * @param state позиция
+     * @return полуходов до взятия короля (больше нуля - выигрыш команды, чей ход, меньше нуля - проигрыш),
+     *         0 - ничья, Tablebase.UNKNOWN - позиции нет в таблицах
+     */
+    public int probe(BoardState state) {
+        Tablebase[] tables = this.tables;
+        if (tables.length == 0 || Integer.bitCount(state.getEliminatedMask()) != 2) return Tablebase.UNKNOWN;
+
+        int count = 0;
+        for (int sq = 0; sq < BoardState.SQUARES && count <= maxPieces; sq++) {
+            if (state.getPiece(sq) != Piece.EMPTY) count++;
+        }
+        if (count > maxPieces) return Tablebase.UNKNOWN;
+
+        Scratch buffers = scratch.get();
+        int[] pieces = buffers.pieces, squares = buffers.squares;
+        Tablebase.collect(state, pieces, squares);
+        long signature = Tablebase.signature(pieces, count, buffers.sorted);
+        for (Tablebase table : tables) {
+            if (table.getSignature() != signature) continue;
+            int result = table.probe(state, pieces, squares, count);
+            if (result != Tablebase.UNKNOWN) return result;
+        }
+        return Tablebase.UNKNOWN;
+    }
+
+    /**
+     * Ищет номер таблицы с тем же набором фигур (с учетом команд).
+     */
+    private int indexOf(int[] codes) {
+        int[] canonical = Tablebase.canonical(codes);
+        for (int i = 0; i < tables.length; i++) {
+            if (Arrays.equals(tables[i].getCodes(), canonical)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Буферы пробы одного потока: проба вызывается в узлах поиска и не выделяет память.
+     */
+    private static class Scratch {
+
+        /**
+         * Коды фигур позиции
+         */
+        final int[] pieces = new int[Tablebase.MAX_PIECES];
+
+        /**
+         * Клетки фигур позиции
+         */
+        final int[] squares = new int[Tablebase.MAX_PIECES];
+
+        /**
+         * Буфер сортировки кодов для сигнатуры
+         */
+        final int[] sorted = new int[Tablebase.MAX_PIECES];
+    }
+}
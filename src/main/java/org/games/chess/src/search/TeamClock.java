@@ -0,0 +1,164 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.GameConfig;
+import org.games.chess.src.rules.BoardState;
+
+/**
+ * Шахматные часы четырех команд: у каждой команды свой остаток времени, который уменьшается только
+ * во время ее хода, и добавка после каждого сделанного хода. Одновременно идут часы не более одной команды.
+ * Методы синхронизированы: часы переключает игровой поток, а читает и поток поиска.
+ */
+public class TeamClock {
+
+    /**
+     * Остаток времени по командам в миллисекундах (без учета идущего хода)
+     */
+    private final long[] remainingMillis = new long[BoardState.TEAMS + 1];
+
+    /**
+     * Количество сделанных ходов по командам
+     */
+    private final int[] movesMade = new int[BoardState.TEAMS + 1];
+
+    /**
+     * Время на партию для каждой команды в миллисекундах
+     */
+    private final long initialMillis;
+
+    /**
+     * Добавка после хода в миллисекундах
+     */
+    private final long incrementMillis;
+
+    /**
+     * Команда, чьи часы идут (0 - часы остановлены)
+     */
+    private int runningTeam;
+
+    /**
+     * Момент запуска часов команды (System.nanoTime)
+     */
+    private long startNanos;
+
+    /**
+     * Создает часы с настройками по умолчанию (GameConfig.TEAM_CLOCK_MS, GameConfig.TEAM_CLOCK_INCREMENT_MS).
+     */
+    public TeamClock() {
+        this(GameConfig.TEAM_CLOCK_MS, GameConfig.TEAM_CLOCK_INCREMENT_MS);
+    }
+
+    /**
+     * Создает часы.
+     *
+     * @param initialMillis время на партию для каждой команды
+     * @param incrementMillis добавка после каждого хода
+     */
+    public TeamClock(long initialMillis, long incrementMillis) {
+        this.initialMillis = initialMillis;
+        this.incrementMillis = incrementMillis;
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            remainingMillis[team] = initialMillis;
+        }
+    }
+
+    /**
+     * Останавливает часы и возвращает всем командам начальный запас времени (новая партия).
+     */
+    public synchronized void reset() {
+        runningTeam = 0;
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            remainingMillis[team] = initialMillis;
+            movesMade[team] = 0;
+        }
+    }
+
+    /**
+     * Запускает часы команды, останавливая часы команды, чьи часы шли (без добавки).
+     *
+     * @param team номер команды (1-4)
+     */
+    public synchronized void start(int team) {
+        pause();
+        runningTeam = team;
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Завершает ход команды, чьи часы идут: списывает затраченное время и начисляет добавку.
+     *
+     * @return затраченное на ход время в миллисекундах (0, если часы не шли)
+     */
+    public synchronized long finishMove() {
+        if (runningTeam == 0) return 0;
+
+        int team = runningTeam;
+        long spent = pause();
+        remainingMillis[team] += incrementMillis;
+        movesMade[team]++;
+        return spent;
+    }
+
+    /**
+     * Останавливает часы без добавки (например, при отмене хода или паузе игры).
+     *
+     * @return затраченное время в миллисекундах
+     */
+    public synchronized long pause() {
+        if (runningTeam == 0) return 0;
+
+        long spent = (System.nanoTime() - startNanos) / 1_000_000L;
+        remainingMillis[runningTeam] -= spent;
+        runningTeam = 0;
+        return spent;
+    }
+
+    /**
+     * Возвращает остаток времени команды с учетом идущего хода.
+     *
+     * @param team номер команды (1-4)
+     * @return миллисекунды (отрицательное значение - время вышло)
+     */
+    public synchronized long getRemainingMillis(int team) {
+        long remaining = remainingMillis[team];
+        if (team == runningTeam) remaining -= (System.nanoTime() - startNanos) / 1_000_000L;
+        return remaining;
+    }
+
+    /**
+     * Возвращает время на партию для каждой команды.
+     *
+     * @return миллисекунды
+     */
+    public long getInitialMillis() {
+        return initialMillis;
+    }
+
+    /**
+     * Возвращает добавку после хода.
+     *
+     * @return миллисекунды
+     */
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    /**
+     * Возвращает количество сделанных командой ходов.
+     *
+     * @param team номер команды (1-4)
+     * @return количество ходов
+     */
+    public synchronized int getMovesMade(int team) {
+        return movesMade[team];
+    }
+
+    /**
+     * Проверяет, вышло ли время команды.
+     *
+     * @param team номер команды (1-4)
+     * @return true если остаток не положителен
+     */
+    public boolean isFlagged(int team) {
+        return getRemainingMillis(team) <= 0;
+    }
+}
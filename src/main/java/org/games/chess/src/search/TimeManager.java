@@ -0,0 +1,61 @@
+package org.games.chess.src.search;
+
+/**
+ * Распределение времени на ход по часам команды.
+ * Остаток времени делится на ожидаемое число оставшихся ходов команды и дополняется большей частью добавки;
+ * это мягкий бюджет (новая итерация после него не начинается). Жесткий бюджет в несколько раз больше,
+ * но не превышает доли остатка, чтобы один ход не мог исчерпать часы. Запас на задержки вычитается всегда.
+ */
+public class TimeManager {
+
+    /**
+     * Ожидаемое число оставшихся ходов команды в начале партии
+     */
+    private static final int MOVES_TO_GO = 40;
+
+    /**
+     * Нижняя граница ожидаемого числа оставшихся ходов
+     */
+    private static final int MIN_MOVES_TO_GO = 15;
+
+    /**
+     * Во сколько раз жесткий бюджет больше мягкого
+     */
+    private static final int HARD_FACTOR = 4;
+
+    /**
+     * Наибольшая доля остатка на один ход (делитель)
+     */
+    private static final int MAX_SHARE_DIVISOR = 5;
+
+    /**
+     * Запас на задержки передачи хода в миллисекундах
+     */
+    private static final long SAFETY_MILLIS = 50;
+
+    /**
+     * Наименьший бюджет хода в миллисекундах
+     */
+    private static final long MIN_MILLIS = 10;
+
+    private TimeManager() {
+    }
+
+    /**
+     * Вычисляет ограничения поиска для хода команды.
+     *
+     * @param clock часы команд
+     * @param team номер команды (1-4)
+     * @return ограничения с мягким и жестким бюджетами времени
+     */
+    public static SearchLimits allocate(TeamClock clock, int team) {
+        long remaining = Math.max(0, clock.getRemainingMillis(team) - SAFETY_MILLIS);
+        int movesToGo = Math.max(MIN_MOVES_TO_GO, MOVES_TO_GO - clock.getMovesMade(team) / 2);
+
+        long hardCap = Math.max(MIN_MILLIS, remaining / MAX_SHARE_DIVISOR);
+        long soft = Math.min(hardCap, remaining / movesToGo + clock.getIncrementMillis() * 3 / 4);
+        soft = Math.max(MIN_MILLIS, soft);
+        long hard = Math.max(soft, Math.min(hardCap, soft * HARD_FACTOR));
+        return SearchLimits.clock(soft, hard);
+    }
+}
@@ -0,0 +1,215 @@
+package org.games.chess.src.search;
+
+import org.games.chess.src.rules.BoardState;
+
+import java.util.Arrays;
+
+/**
+ * Таблица транспозиций фиксированного размера, общая для нескольких потоков поиска.
+ * Записи хранятся в одном массиве long по три слова: проверочное слово, слово данных
+ * (ход, глубина, тип оценки, поколение поиска) и слово оценок четырех команд по 16 бит.
+ * Блокировок нет: проверочное слово равно XOR ключа позиции и обоих слов данных, поэтому
+ * запись, наполовину перезаписанная другим потоком, при чтении просто не совпадает с ключом.
+ */
+public class TranspositionTable {
+
+    /**
+     * Точная оценка
+     */
+    public static final int BOUND_EXACT = 0;
+
+    /**
+     * Нижняя граница оценки (отсечение по beta)
+     */
+    public static final int BOUND_LOWER = 1;
+
+    /**
+     * Верхняя граница оценки (ни один ход не улучшил alpha)
+     */
+    public static final int BOUND_UPPER = 2;
+
+    /**
+     * Количество слов long в одной записи
+     */
+    private static final int ENTRY_WORDS = 3;
+
+    /**
+     * Размер записи в байтах
+     */
+    public static final int ENTRY_BYTES = ENTRY_WORDS * Long.BYTES;
+
+    /**
+     * Максимальная хранимая глубина
+     */
+    public static final int MAX_DEPTH = 0xFF;
+
+    private static final int MOVE_BITS = 27;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int GENERATION_SHIFT = 42;
+    private static final int GENERATION_MASK = 0x3F;
+
+    /**
+     * Записи таблицы
+     */
+    private final long[] table;
+
+    /**
+     * Маска индекса записи (количество записей - степень двойки)
+     */
+    private final long indexMask;
+
+    /**
+     * Текущее поколение поиска (для вытеснения устаревших записей)
+     */
+    private volatile int generation;
+
+    /**
+     * Создает таблицу заданного размера.
+     * Количество записей округляется вниз до степени двойки.
+     *
+     * @param sizeMb размер в мегабайтах (не меньше 1)
+     */
+    public TranspositionTable(int sizeMb) {
+        long entries = Long.highestOneBit(Math.max(1L, sizeMb) * 1024 * 1024 / ENTRY_BYTES);
+        long words = entries * ENTRY_WORDS;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Слишком большой размер таблицы транспозиций: " + sizeMb + " МБ");
+        }
+
+        table = new long[(int) words];
+        indexMask = entries - 1;
+    }
+
+    /**
+     * Ищет запись позиции.
+     *
+     * @param key ключ Зобриста позиции
+     * @param entry объект, в который копируется найденная запись (переиспользуется вызывающим)
+     * @return true если запись найдена
+     */
+    public boolean probe(long key, Entry entry) {
+        int index = indexOf(key);
+        long check = table[index];
+        long data = table[index + 1];
+        long scores = table[index + 2];
+        if ((check ^ data ^ scores) != key || (data == 0 && scores == 0 && check == 0)) return false;
+
+        entry.move = (int) (data & (1L << MOVE_BITS) - 1);
+        entry.depth = (int) (data >>> DEPTH_SHIFT & MAX_DEPTH);
+        entry.bound = (int) (data >>> BOUND_SHIFT & 3);
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            entry.scores[team] = (short) (scores >>> (team - 1) * 16);
+        }
+        return true;
+    }
+
+    /**
+     * Сохраняет запись позиции.
+     * Запись другой позиции вытесняется, если она из прошлого поиска или не глубже новой;
+     * запись той же позиции обновляется всегда, но лучший ход сохраняется, если новый не задан.
+     *
+     * @param key ключ Зобриста позиции
+     * @param move лучший ход или Move.NONE
+     * @param depth глубина поиска (обрезается до MAX_DEPTH)
+     * @param bound тип оценки (BOUND_EXACT, BOUND_LOWER, BOUND_UPPER)
+     * @param scores оценки команд, индекс - номер команды (обрезаются до 16 бит)
+     */
+    public void store(long key, int move, int depth, int bound, int[] scores) {
+        int index = indexOf(key);
+        long oldData = table[index + 1];
+        boolean sameKey = (table[index] ^ oldData ^ table[index + 2]) == key;
+        int oldGeneration = (int) (oldData >>> GENERATION_SHIFT & GENERATION_MASK);
+        int oldDepth = (int) (oldData >>> DEPTH_SHIFT & MAX_DEPTH);
+
+        int currentGeneration = generation;
+        if (!sameKey && oldGeneration == currentGeneration && oldDepth > depth) return;
+        if (sameKey && move == 0) move = (int) (oldData & (1L << MOVE_BITS) - 1);
+
+        long data = (move & (1L << MOVE_BITS) - 1)
+                | (long) Math.min(Math.max(depth, 0), MAX_DEPTH) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) currentGeneration << GENERATION_SHIFT;
+        long packedScores = 0;
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            int score = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scores[team]));
+            packedScores |= (score & 0xFFFFL) << (team - 1) * 16;
+        }
+
+        table[index] = key ^ data ^ packedScores;
+        table[index + 1] = data;
+        table[index + 2] = packedScores;
+    }
+
+    /**
+     * Начинает новое поколение поиска: записи прошлых поисков вытесняются в первую очередь.
+     */
+    public void newSearch() {
+        generation = generation + 1 & GENERATION_MASK;
+    }
+
+    /**
+     * Очищает таблицу.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+    }
+
+    /**
+     * Возвращает количество записей таблицы.
+     *
+     * @return количество записей
+     */
+    public long getEntryCount() {
+        return indexMask + 1;
+    }
+
+    /**
+     * Оценивает заполненность таблицы текущим поколением по первым записям.
+     *
+     * @return заполненность в промилле (0-1000)
+     */
+    public int getHashFull() {
+        int sample = (int) Math.min(1000, getEntryCount());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * ENTRY_WORDS + 1];
+            if (data != 0 && (data >>> GENERATION_SHIFT & GENERATION_MASK) == generation) used++;
+        }
+        return used * 1000 / sample;
+    }
+
+    /**
+     * Возвращает индекс первого слова записи для ключа.
+     */
+    private int indexOf(long key) {
+        return (int) ((key >>> 20 & indexMask) * ENTRY_WORDS);
+    }
+
+    /**
+     * Прочитанная запись таблицы транспозиций. Один объект переиспользуется потоком поиска.
+     */
+    public static class Entry {
+
+        /**
+         * Лучший ход или Move.NONE
+         */
+        public int move;
+
+        /**
+         * Глубина поиска
+         */
+        public int depth;
+
+        /**
+         * Тип оценки (BOUND_EXACT, BOUND_LOWER, BOUND_UPPER)
+         */
+        public int bound;
+
+        /**
+         * Оценки команд, индекс - номер команды
+         */
+        public final int[] scores = new int[BoardState.TEAMS + 1];
+    }
+}
@@ -0,0 +1,111 @@
+package org.games.chess.src.search;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Реализация ядра аккумуляторов сети на Vector API. Обновление аккумулятора выполняется
+ * 16-битными векторами предпочтительной ширины; в выходном слое активации и веса расширяются
+ * до 32 бит (по частям вектора), чтобы произведения не переполнялись.
+ * Требует --add-modules jdk.incubator.vector; создается только через AccumulatorKernel.create().
+ */
+public class VectorAccumulatorKernel implements AccumulatorKernel {
+
+    /**
+     * Форма 16-битного вектора
+     */
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+    /**
+     * Форма 32-битного вектора той же ширины
+     */
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Количество 32-битных частей в 16-битном векторе
+     */
+    private static final int PARTS = SHORTS.length() / INTS.length();
+
+    /**
+     * Прибавляет к аккумулятору строку весов.
+     *
+     * @param accumulator аккумулятор
+     * @param weights веса всех признаков подряд
+     * @param offset начало строки признака в weights
+     */
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset) {
+        int bound = SHORTS.loopBound(accumulator.length);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    /**
+     * Вычитает из аккумулятора строку весов.
+     *
+     * @param accumulator аккумулятор
+     * @param weights веса всех признаков подряд
+     * @param offset начало строки признака в weights
+     */
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset) {
+        int bound = SHORTS.loopBound(accumulator.length);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    /**
+     * Вычисляет выходной слой с ограниченным ReLU.
+     *
+     * @param accumulator аккумулятор
+     * @param outputWeights веса выходного слоя
+     * @param clip верхняя граница активации
+     * @return взвешенная сумма активаций
+     */
+    @Override
+    public int forward(short[] accumulator, short[] outputWeights, int clip) {
+        int bound = SHORTS.loopBound(accumulator.length);
+        IntVector sum = IntVector.zero(INTS);
+        int i = 0;
+        for (; i < bound; i += SHORTS.length()) {
+            ShortVector activations = ShortVector.fromArray(SHORTS, accumulator, i);
+            ShortVector weights = ShortVector.fromArray(SHORTS, outputWeights, i);
+            for (int part = 0; part < PARTS; part++) {
+                IntVector a = (IntVector) activations.convertShape(VectorOperators.S2I, INTS, part);
+                IntVector w = (IntVector) weights.convertShape(VectorOperators.S2I, INTS, part);
+                sum = sum.add(a.max(0).min(clip).mul(w));
+            }
+        }
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < accumulator.length; i++) {
+            result += Math.min(Math.max(accumulator[i], 0), clip) * outputWeights[i];
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает название реализации.
+     *
+     * @return "vector" и количество 16-битных чисел в регистре
+     */
+    @Override
+    public String getName() {
+        return "vector x" + SHORTS.length();
+    }
+}
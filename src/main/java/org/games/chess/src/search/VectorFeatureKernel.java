@@ -0,0 +1,97 @@
+package org.games.chess.src.search;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Реализация ядра свертки признаков на Vector API: массивы обрабатываются блоками
+ * по ширине предпочтительного регистра процессора (8 чисел для AVX2, 16 для AVX-512),
+ * остаток - скалярно. Требует --add-modules jdk.incubator.vector при компиляции и запуске;
+ * создается только через FeatureKernel.create().
+ */
+public class VectorFeatureKernel implements FeatureKernel {
+
+    /**
+     * Форма вектора: предпочтительная ширина регистра
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Вычисляет скалярное произведение.
+     *
+     * @param a первый массив
+     * @param b второй массив той же длины
+     * @return сумма a[i] * b[i]
+     */
+    @Override
+    public int dot(int[] a, int[] b) {
+        int bound = SPECIES.loopBound(a.length);
+        IntVector acc = IntVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = acc.add(IntVector.fromArray(SPECIES, a, i).mul(IntVector.fromArray(SPECIES, b, i)));
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Суммирует значения, чей ключ равен заданному.
+     *
+     * @param values значения
+     * @param keys ключи той же длины
+     * @param key ключ
+     * @return сумма values[i] при keys[i] == key
+     */
+    @Override
+    public int sumWhereEqual(int[] values, int[] keys, int key) {
+        return sumWhere(values, keys, key, true);
+    }
+
+    /**
+     * Суммирует значения, чей ключ не равен заданному.
+     *
+     * @param values значения
+     * @param keys ключи той же длины
+     * @param key ключ
+     * @return сумма values[i] при keys[i] != key
+     */
+    @Override
+    public int sumWhereNotEqual(int[] values, int[] keys, int key) {
+        return sumWhere(values, keys, key, false);
+    }
+
+    /**
+     * Суммирует значения по маске сравнения ключей.
+     */
+    private static int sumWhere(int[] values, int[] keys, int key, boolean equal) {
+        int bound = SPECIES.loopBound(values.length);
+        IntVector acc = IntVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            VectorMask<Integer> mask = IntVector.fromArray(SPECIES, keys, i).compare(VectorOperators.EQ, key);
+            if (!equal) mask = mask.not();
+            acc = acc.add(IntVector.fromArray(SPECIES, values, i), mask);
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++) {
+            if ((keys[i] == key) == equal) sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Возвращает название реализации.
+     *
+     * @return "vector" и количество чисел в регистре
+     */
+    @Override
+    public String getName() {
+        return "vector x" + SPECIES.length();
+    }
+}
@@ -0,0 +1,134 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.PositionReader;
+import org.games.chess.src.search.AbstractSearch;
+import org.games.chess.src.search.BatchAnalyzer;
+import org.games.chess.src.search.NnueNetwork;
+import org.games.chess.src.search.PieceSquareEvaluator;
+import org.games.chess.src.search.SearchEngine;
+import org.games.chess.src.search.SearchLimits;
+import org.games.chess.src.search.SearchResult;
+import org.games.chess.src.search.Tablebases;
+import org.games.chess.src.search.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+
+/**
+ * Пакетный анализ позиций из файла в формате доски (PositionReader): позиции читаются по одной,
+ * анализируются параллельно (BatchAnalyzer) с бюджетом на каждую позицию, а результаты сразу
+ * дописываются строками с разделителями-табуляциями в порядке готовности: номер позиции в файле,
+ * название, команда, чей ход, лучший ход, оценки команд 1-4, глубина, узлы, время в мс и главный вариант.
+ * Память не растет с размером файла. Итог (позиции, время, позиций в секунду) печатается в stderr.
+ * <p>
+ * Запуск:
+ * <pre>
+ * BatchAnalysis файл позиций [--mode режим] [--eval оценка] [--nnue файл весов] [--threads N]
+ *               [--nodes N] [--depth N] [--time мс] [--hash МБ] [--tablebases папка] [--out файл]
+ * </pre>
+ * Режимы и оценки - как в SearchBench. По умолчанию coalition с pst, 100000 узлов на позицию,
+ * потоков по числу ядер, результаты в stdout.
+ */
+public class BatchAnalysis {
+
+    /**
+     * Размер таблицы транспозиций одного потока по умолчанию в мегабайтах
+     */
+    private static final int DEFAULT_HASH_MB = 16;
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws Exception при ошибке чтения позиций, записи результатов или в поиске
+     */
+    public static void main(String[] args) throws Exception {
+        String file = null;
+        String mode = "coalition", evalName = "pst", weights = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int depth = SearchEngine.MAX_PLY;
+        long nodes = 100_000, time = SearchLimits.UNLIMITED;
+        int hashMb = DEFAULT_HASH_MB;
+        String tablebaseDir = null;
+        String out = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode" -> mode = args[++i];
+                case "--eval" -> evalName = args[++i];
+                case "--nnue" -> weights = args[++i];
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--nodes" -> nodes = Long.parseLong(args[++i]);
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--time" -> time = Long.parseLong(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                case "--tablebases" -> tablebaseDir = args[++i];
+                case "--out" -> out = args[++i];
+                default -> file = args[i];
+            }
+        }
+        if (file == null) throw new IllegalArgumentException("Не задан файл позиций");
+
+        WallController walls = new WallController();
+        MoveGenerator generator = new MoveGenerator(walls);
+        NnueNetwork network = !"nnue".equals(evalName) ? null : weights != null ? NnueNetwork.load(Path.of(weights))
+                : NnueNetwork.fromPieceSquare(new PieceSquareEvaluator(walls), NnueBootstrap.DEFAULT_HIDDEN);
+        Tablebases tablebases = tablebaseDir != null ? Tablebases.load(Path.of(tablebaseDir)) : null;
+
+        String searchMode = mode, eval = evalName;
+        int tableMb = hashMb;
+        BatchAnalyzer analyzer = new BatchAnalyzer(threads, () -> {
+            SearchEngine engine = SearchBench.createSearch(searchMode, generator,
+                    SearchBench.createEvaluator(eval, walls, generator, network), new TranspositionTable(tableMb));
+            if (engine instanceof AbstractSearch search) search.setTablebases(tablebases);
+            return engine;
+        }, new SearchLimits(depth, nodes, time));
+
+        long start = System.nanoTime();
+        long count;
+        try (PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)));
+             PrintWriter writer = new PrintWriter(new BufferedWriter(out != null ? new FileWriter(out)
+                     : new OutputStreamWriter(System.out)))) {
+            writer.println("index\tname\tteam\tmove\tscore1\tscore2\tscore3\tscore4\tdepth\tnodes\tms\tpv");
+            count = analyzer.run(reader, analysis -> {
+                writer.println(format(analysis));
+                writer.flush();
+            });
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("Позиций: %d, %.1f с, %.1f позиций/с, потоков %d%n", count, seconds, count / seconds, threads);
+    }
+
+    /**
+     * Записывает результат анализа строкой с разделителями-табуляциями.
+     *
+     * @param analysis результат анализа позиции
+     * @return строка результата
+     */
+    private static String format(BatchAnalyzer.Analysis analysis) {
+        SearchResult result = analysis.getResult();
+        StringBuilder builder = new StringBuilder();
+        builder.append(analysis.getIndex()).append('\t')
+                .append(analysis.getName() != null ? analysis.getName() : "").append('\t')
+                .append(analysis.getTeam()).append('\t')
+                .append(result.getBestMove() == Move.NONE ? "-" : Move.toString(result.getBestMove()));
+        for (int team = 1; team <= BoardState.TEAMS; team++) {
+            builder.append('\t').append(result.getScore(team));
+        }
+        builder.append('\t').append(result.getDepth())
+                .append('\t').append(result.getNodes())
+                .append('\t').append(result.getTimeNanos() / 1_000_000)
+                .append('\t').append(result.principalVariationToString());
+        return builder.toString();
+    }
+}
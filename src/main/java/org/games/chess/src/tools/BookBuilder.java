@@ -0,0 +1,163 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.GameConfig;
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.PositionReader;
+import org.games.chess.src.search.HeadlessGame;
+import org.games.chess.src.search.OpeningBook;
+import org.games.chess.src.search.OpeningBookBuilder;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Строит дебютную книгу OpeningBook из сохраненных партий.
+ * Партии - текстовый файл, одна партия в строке: победившая коалиция (1 - команды 1 и 3,
+ * 2 - команды 2 и 4, 0 - ничья) и ходы через пробел в формате Move.toString ("x,y-x,y", "--" - пропуск хода).
+ * Такой файл пишет Tournament с параметром --games-out. Строки, начинающиеся с '#', пропускаются.
+ * Все партии начинаются с одной позиции (по умолчанию стартовая расстановка).
+ * После записи книга открывается снова и печатается число ходов стартовой позиции в ней.
+ * <p>
+ * Запуск:
+ * <pre>
+ * BookBuilder файл партий [--out файл книги] [--start файл позиции] [--plies N] [--min-games N]
+ * </pre>
+ * По умолчанию книга пишется в res/opening_book.bin, учитываются первые 12 полуходов,
+ * ход попадает в книгу, если сыгран хотя бы в двух партиях.
+ */
+public class BookBuilder {
+
+    /**
+     * Файл книги по умолчанию (относительно корня проекта)
+     */
+    public static final String DEFAULT_BOOK = GameConfig.OPENING_BOOK;
+
+    /**
+     * Запись пропуска хода в файле партий
+     */
+    private static final String PASS = "--";
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке чтения партий или записи книги
+     */
+    public static void main(String[] args) throws IOException {
+        String games = null;
+        String out = Resources.projectPath(DEFAULT_BOOK);
+        String startFile = Resources.projectPath(Resources.DEFAULT_BOARD);
+        int plies = 12;
+        int minGames = 2;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = args[++i];
+                case "--start" -> startFile = args[++i];
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--min-games" -> minGames = Integer.parseInt(args[++i]);
+                default -> games = args[i];
+            }
+        }
+        if (games == null) throw new IllegalArgumentException("Не задан файл партий");
+
+        BoardState start = readStart(startFile);
+        MoveGenerator generator = new MoveGenerator(new WallController());
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(games))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] tokens = line.split("\\s+");
+                int winner = Integer.parseInt(tokens[0]);
+                int[] moves = parseMoves(start, tokens, plies, generator, lineNumber);
+                builder.addGame(start, moves, winner);
+            }
+        }
+
+        int entries = builder.write(Path.of(out), minGames);
+        System.out.printf("Партий: %d, позиций: %d, записей в книге: %d -> %s%n",
+                builder.getGameCount(), builder.getPositionCount(), entries, out);
+
+        OpeningBook book = OpeningBook.load(Path.of(out));
+        long key = start.getCanonicalKey();
+        int first = book.find(key);
+        int count = 0;
+        for (int index = first; index >= 0 && index < book.getEntryCount() && book.getKey(index) == key; index++) {
+            int move = OpeningBook.fromCanonical(book.getMove(index), start);
+            System.out.printf("  %s: вес %d, партий %d, побед %d, ничьих %d%n", Move.toString(move),
+                    book.getWeight(index), book.getGames(index), book.getWins(index), book.getDraws(index));
+            count++;
+        }
+        System.out.printf("Ходов стартовой позиции в книге: %d%n", count);
+    }
+
+    /**
+     * Записывает партию строкой файла партий.
+     *
+     * @param outcome итог партии
+     * @return строка: победитель и ходы
+     */
+    public static String formatGame(HeadlessGame.Outcome outcome) {
+        StringBuilder builder = new StringBuilder().append(outcome.getWinner());
+        for (int move : outcome.getMoves()) {
+            builder.append(' ').append(move == Move.NONE ? PASS : Move.toString(move));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Переводит ходы строки файла партий (начиная со второго слова) в упакованные ходы,
+     * проигрывая их от начальной позиции. Читаются только первые plies ходов.
+     *
+     * @throws IOException если ход не найден среди ходов позиции
+     */
+    private static int[] parseMoves(BoardState start, String[] tokens, int plies, MoveGenerator generator,
+                                    int lineNumber) throws IOException {
+        BoardState state = new BoardState(start);
+        int[] candidates = new int[MoveGenerator.MAX_MOVES];
+        int count = Math.min(plies, tokens.length - 1);
+        int[] moves = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            String token = tokens[i + 1];
+            if (PASS.equals(token)) {
+                moves[i] = Move.NONE;
+                state.makeNullMove();
+                continue;
+            }
+
+            int moveCount = generator.generate(state, state.getCurrentTeam(), candidates, 0);
+            int move = Move.NONE;
+            for (int j = 0; j < moveCount && move == Move.NONE; j++) {
+                if (Move.toString(candidates[j]).equals(token)) move = candidates[j];
+            }
+            if (move == Move.NONE) {
+                throw new IOException("Строка " + lineNumber + ": ход " + token + " невозможен в позиции партии");
+            }
+            moves[i] = move;
+            state.makeMove(move);
+        }
+        return moves;
+    }
+
+    /**
+     * Читает начальную позицию партий.
+     */
+    private static BoardState readStart(String file) throws IOException {
+        try (PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)))) {
+            if (!reader.next()) throw new IOException("В файле нет позиции: " + file);
+            return new BoardState(reader.getState());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardListener;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.PositionReader;
+import org.games.chess.src.search.AccumulatorKernel;
+import org.games.chess.src.search.Evaluator;
+import org.games.chess.src.search.FeatureEvaluator;
+import org.games.chess.src.search.FeatureKernel;
+import org.games.chess.src.search.MaterialEvaluator;
+import org.games.chess.src.search.NnueEvaluator;
+import org.games.chess.src.search.NnueNetwork;
+import org.games.chess.src.search.PieceSquareEvaluator;
+import org.games.chess.src.search.ScalarAccumulatorKernel;
+import org.games.chess.src.search.ScalarFeatureKernel;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Замер скорости статических оценок: скалярная и векторная (Vector API) оценка по признакам,
+ * сеть NNUE со скалярным и векторным ядром, таблицы фигура-клетка полным проходом и только материал.
+ * Для сети дополнительно замеряется инкрементальный режим: ход, оценка и отмена хода с подключенными
+ * аккумуляторами. Без --nnue используется начальная сеть NnueNetwork.fromPieceSquare.
+ * Набор позиций - позиции из файла и случайные продолжения из них. Каждая оценка сначала
+ * прогревается (компиляция JIT), затем выполняется несколько замеров; печатается лучшее время на оценку.
+ * Перед замером проверяется, что скалярное и векторное ядра дают одинаковые оценки,
+ * а инкрементальные аккумуляторы совпадают с полным пересчетом.
+ * <p>
+ * Запуск (векторное ядро доступно только с --add-modules jdk.incubator.vector):
+ * <pre>
+ * EvalBench [файл позиций] [--positions N] [--rounds N] [--nnue файл весов]
+ * </pre>
+ */
+public class EvalBench {
+
+    /**
+     * Количество прогревочных проходов по набору позиций
+     */
+    private static final int WARMUP_ROUNDS = 20;
+
+    /**
+     * Длина случайного продолжения при построении набора позиций
+     */
+    private static final int RANDOM_PLIES = 40;
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке чтения позиций
+     */
+    public static void main(String[] args) throws IOException {
+        String file = Resources.projectPath(Perft.DEFAULT_SUITE);
+        int positionCount = 4096;
+        int rounds = 10;
+        String weights = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--positions" -> positionCount = Integer.parseInt(args[++i]);
+                case "--rounds" -> rounds = Integer.parseInt(args[++i]);
+                case "--nnue" -> weights = args[++i];
+                default -> file = args[i];
+            }
+        }
+
+        WallController walls = new WallController();
+        MoveGenerator generator = new MoveGenerator(walls);
+        BoardState[] positions = buildPositions(file, generator, positionCount);
+
+        FeatureKernel best = FeatureKernel.create();
+        FeatureEvaluator scalar = new FeatureEvaluator(generator, new ScalarFeatureKernel());
+        FeatureEvaluator vector = new FeatureEvaluator(generator, best);
+        System.out.printf("Позиций: %d, ядро: %s%n", positions.length, best.getName());
+        checkSameScores(scalar, vector, positions);
+
+        measure("features " + scalar.getKernel().getName(), scalar, positions, rounds);
+        if (!(best instanceof ScalarFeatureKernel)) measure("features " + best.getName(), vector, positions, rounds);
+        PieceSquareEvaluator pieceSquare = new PieceSquareEvaluator(walls);
+        NnueNetwork network = weights != null ? NnueNetwork.load(Path.of(weights))
+                : NnueNetwork.fromPieceSquare(pieceSquare, NnueBootstrap.DEFAULT_HIDDEN);
+        AccumulatorKernel bestAccumulator = AccumulatorKernel.create();
+        NnueEvaluator nnueScalar = new NnueEvaluator(network, new ScalarAccumulatorKernel());
+        NnueEvaluator nnueVector = new NnueEvaluator(network, bestAccumulator);
+        checkSameScores(nnueScalar, nnueVector, positions);
+        checkIncremental(nnueVector, generator, positions);
+
+        measure("nnue " + nnueScalar.getKernel().getName() + " (полный пересчет)", nnueScalar, positions, rounds);
+        if (!(bestAccumulator instanceof ScalarAccumulatorKernel)) {
+            measure("nnue " + bestAccumulator.getName() + " (полный пересчет)", nnueVector, positions, rounds);
+        }
+        measureIncremental("nnue " + nnueScalar.getKernel().getName() + " (ход+оценка+отмена)", nnueScalar, generator, positions, rounds);
+        if (!(bestAccumulator instanceof ScalarAccumulatorKernel)) {
+            measureIncremental("nnue " + bestAccumulator.getName() + " (ход+оценка+отмена)", nnueVector, generator, positions, rounds);
+        }
+        measureIncremental("piece-square (ход+оценка+отмена)", pieceSquare, generator, positions, rounds);
+        measure("piece-square (полный проход)", pieceSquare, positions, rounds);
+        measure("material", new MaterialEvaluator(), positions, rounds);
+    }
+
+    /**
+     * Строит набор позиций: позиции из файла и случайные продолжения из них.
+     */
+    private static BoardState[] buildPositions(String file, MoveGenerator generator, int count) throws IOException {
+        List<BoardState> roots = new ArrayList<>();
+        try (PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)))) {
+            while (reader.next()) {
+                roots.add(new BoardState(reader.getState()));
+            }
+        }
+
+        Random random = new Random(1);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        BoardState[] positions = new BoardState[count];
+        for (int i = 0; i < count; i++) {
+            BoardState state = new BoardState(roots.get(i % roots.size()));
+            int plies = random.nextInt(RANDOM_PLIES);
+            for (int ply = 0; ply < plies && !state.isGameOver(); ply++) {
+                int moveCount = generator.generate(state, state.getCurrentTeam(), moves, 0);
+                if (moveCount == 0) break;
+                state.makeMove(moves[random.nextInt(moveCount)]);
+            }
+            state.clearHistory();
+            positions[i] = state;
+        }
+        return positions;
+    }
+
+    /**
+     * Проверяет, что две оценки дают одинаковые результаты на всех позициях.
+     *
+     * @throws IllegalStateException при расхождении
+     */
+    private static void checkSameScores(Evaluator first, Evaluator second, BoardState[] positions) {
+        int[] a = new int[BoardState.TEAMS + 1], b = new int[BoardState.TEAMS + 1];
+        for (BoardState position : positions) {
+            first.evaluate(position, a);
+            second.evaluate(position, b);
+            if (!Arrays.equals(a, b)) {
+                throw new IllegalStateException("Оценки расходятся: " + Arrays.toString(a) + " и " + Arrays.toString(b));
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что аккумуляторы, обновляемые по ходам, совпадают с полным пересчетом позиции.
+     *
+     * @throws IllegalStateException при расхождении
+     */
+    private static void checkIncremental(NnueEvaluator evaluator, MoveGenerator generator, BoardState[] positions) {
+        BoardState work = new BoardState();
+        work.setListener(evaluator);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] incremental = new int[BoardState.TEAMS + 1], full = new int[BoardState.TEAMS + 1];
+        for (BoardState position : positions) {
+            work.copyFrom(position);
+            int count = generator.generate(work, work.getCurrentTeam(), moves, 0);
+            for (int i = 0; i < count; i++) {
+                work.makeMove(moves[i]);
+                evaluator.evaluate(work, incremental);
+                evaluator.evaluate(new BoardState(work), full);
+                work.unmakeMove();
+                if (!Arrays.equals(incremental, full)) {
+                    throw new IllegalStateException("Аккумуляторы расходятся с пересчетом: "
+                            + Arrays.toString(incremental) + " и " + Arrays.toString(full));
+                }
+            }
+        }
+        work.setListener(null);
+    }
+
+    /**
+     * Замеряет инкрементальную оценку: для каждой позиции набора делает каждый ход, оценивает позицию
+     * и отменяет ход на позиции с подключенной оценкой. Печатает лучшее время одного хода с оценкой.
+     */
+    private static void measureIncremental(String name, Evaluator evaluator, MoveGenerator generator,
+                                           BoardState[] positions, int rounds) {
+        BoardState work = new BoardState();
+        work.setListener((BoardListener) evaluator);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] scores = new int[BoardState.TEAMS + 1];
+
+        long checksum = 0, bestNanos = Long.MAX_VALUE, operations = 0;
+        for (int round = 0; round < WARMUP_ROUNDS / 4 + rounds; round++) {
+            long nanos = 0;
+            operations = 0;
+            for (BoardState position : positions) {
+                work.copyFrom(position);
+                int count = generator.generate(work, work.getCurrentTeam(), moves, 0);
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    work.makeMove(moves[i]);
+                    evaluator.evaluate(work, scores);
+                    checksum += scores[1];
+                    work.unmakeMove();
+                }
+                nanos += System.nanoTime() - start;
+                operations += count;
+            }
+            if (round >= WARMUP_ROUNDS / 4) bestNanos = Math.min(bestNanos, nanos);
+        }
+        work.setListener(null);
+
+        double perEval = (double) bestNanos / Math.max(1, operations);
+        System.out.printf("%-30s %8.1f нс/оценка %12.0f оценок/с (контрольная сумма %d)%n",
+                name, perEval, 1e9 / perEval, checksum);
+    }
+
+    /**
+     * Прогревает оценку и печатает лучшее из нескольких замеров время одной оценки.
+     */
+    private static void measure(String name, Evaluator evaluator, BoardState[] positions, int rounds) {
+        int[] scores = new int[BoardState.TEAMS + 1];
+        long checksum = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            checksum += run(evaluator, positions, scores);
+        }
+
+        long bestNanos = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            checksum += run(evaluator, positions, scores);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        double perEval = (double) bestNanos / positions.length;
+        System.out.printf("%-30s %8.1f нс/оценка %12.0f оценок/с (контрольная сумма %d)%n",
+                name, perEval, 1e9 / perEval, checksum);
+    }
+
+    /**
+     * Оценивает все позиции набора.
+     *
+     * @return сумма оценок (чтобы JIT не удалил вычисления)
+     */
+    private static long run(Evaluator evaluator, BoardState[] positions, int[] scores) {
+        long sum = 0;
+        for (BoardState position : positions) {
+            evaluator.evaluate(position, scores);
+            sum += scores[1];
+        }
+        return sum;
+    }
+}
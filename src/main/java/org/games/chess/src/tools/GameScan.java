@@ -0,0 +1,119 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.GameConfig;
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.GameRecord;
+import org.games.chess.src.rules.GameRecordReader;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Просматривает файл партий GameRecord потоковым чтением GameRecordReader и печатает сводку:
+ * партии по результатам, полуходы, среднее время хода (если записано) и скорость чтения в партиях в минуту.
+ * С --replay каждая партия проигрывается на BoardState от своей начальной позиции, и каждый ход
+ * проверяется по ходам генератора; печатается количество партий с невозможными ходами.
+ * <p>
+ * Запуск:
+ * <pre>
+ * GameScan [файл партий] [--replay]
+ * </pre>
+ * По умолчанию читается файл партий игры res/games.rec.
+ */
+public class GameScan {
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке чтения или поврежденном файле партий
+     */
+    public static void main(String[] args) throws IOException {
+        String file = Resources.projectPath(GameConfig.GAME_RECORDS);
+        boolean replay = false;
+
+        for (String arg : args) {
+            switch (arg) {
+                case "--replay" -> replay = true;
+                default -> file = arg;
+            }
+        }
+
+        MoveGenerator generator = replay ? new MoveGenerator(new WallController()) : null;
+        BoardState state = new BoardState();
+        int[] candidates = new int[MoveGenerator.MAX_MOVES];
+        long[] results = new long[GameRecord.RESULT_UNFINISHED + 1];
+        long plies = 0, timedPlies = 0, millis = 0, illegalGames = 0;
+        int maxPlies = 0;
+
+        long start = System.nanoTime();
+        try (GameRecordReader reader = GameRecordReader.open(Path.of(file))) {
+            while (reader.next()) {
+                int count = reader.getMoveCount();
+                results[Math.min(reader.getResult(), GameRecord.RESULT_UNFINISHED)]++;
+                plies += count;
+                maxPlies = Math.max(maxPlies, count);
+                if (reader.hasClocks()) {
+                    for (int i = 0; i < count; i++) {
+                        millis += reader.getMillis(i);
+                    }
+                    timedPlies += count;
+                }
+
+                if (replay && !replay(reader, state, generator, candidates)) {
+                    if (++illegalGames <= 10) {
+                        System.out.printf("  партия %d: невозможный ход%n", reader.getGameCount() - 1);
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long games = 0;
+        for (long result : results) {
+            games += result;
+        }
+        System.out.printf("Партий: %d (коалиция 1-3: %d, коалиция 2-4: %d, ничьих: %d, не доиграно: %d)%n", games,
+                results[GameRecord.RESULT_ODD], results[GameRecord.RESULT_EVEN], results[GameRecord.RESULT_DRAW],
+                results[GameRecord.RESULT_UNFINISHED]);
+        System.out.printf("Полуходов: %d, в среднем %.1f, максимум %d; %.2f байт на полуход%n", plies,
+                games > 0 ? (double) plies / games : 0.0, maxPlies, plies > 0 ? (double) Files.size(Path.of(file)) / plies : 0.0);
+        if (timedPlies > 0) {
+            System.out.printf("Среднее время хода: %.1f с%n", millis / 1000.0 / timedPlies);
+        }
+        if (replay) {
+            System.out.printf("Партий с невозможными ходами: %d%n", illegalGames);
+        }
+        System.out.printf("Время: %.2f с, %.0f партий в минуту%n", seconds, games / seconds * 60);
+    }
+
+    /**
+     * Проигрывает текущую партию читателя и проверяет, что каждый ход есть среди ходов позиции.
+     *
+     * @return false если встретился невозможный ход
+     */
+    private static boolean replay(GameRecordReader reader, BoardState state, MoveGenerator generator,
+                                  int[] candidates) {
+        reader.getStartState(state);
+        for (int i = 0; i < reader.getMoveCount(); i++) {
+            int move = reader.getMove(i);
+            if (move == Move.NONE) {
+                state.makeNullMove();
+                continue;
+            }
+
+            int count = generator.generate(state, state.getCurrentTeam(), candidates, 0);
+            boolean legal = false;
+            for (int j = 0; j < count && !legal; j++) {
+                legal = Move.from(candidates[j]) == Move.from(move) && Move.to(candidates[j]) == Move.to(move);
+            }
+            if (!legal) return false;
+            state.makeMove(move);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,54 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.search.NnueNetwork;
+import org.games.chess.src.search.PieceSquareEvaluator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Создает начальный файл весов сети NnueNetwork, повторяющей оценку PieceSquareEvaluator
+ * (см. NnueNetwork.fromPieceSquare). Файл служит отправной точкой для обучения и для проверки
+ * загрузки и скорости сети.
+ * <p>
+ * Запуск:
+ * <pre>
+ * NnueBootstrap [файл] [--hidden N]
+ * </pre>
+ * По умолчанию - res/nnue_bootstrap.bin, скрытый слой из 32 нейронов.
+ */
+public class NnueBootstrap {
+
+    /**
+     * Файл весов по умолчанию (относительно корня проекта)
+     */
+    public static final String DEFAULT_WEIGHTS = "res\\nnue_bootstrap.bin";
+
+    /**
+     * Размер скрытого слоя по умолчанию
+     */
+    public static final int DEFAULT_HIDDEN = 32;
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке записи
+     */
+    public static void main(String[] args) throws IOException {
+        String file = Resources.projectPath(DEFAULT_WEIGHTS);
+        int hidden = DEFAULT_HIDDEN;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--hidden" -> hidden = Integer.parseInt(args[++i]);
+                default -> file = args[i];
+            }
+        }
+
+        NnueNetwork network = NnueNetwork.fromPieceSquare(new PieceSquareEvaluator(new WallController()), hidden);
+        network.write(Path.of(file));
+        System.out.printf("Записано: %s (%d признаков, %d нейронов)%n", file, NnueNetwork.INPUTS, hidden);
+    }
+}
@@ -0,0 +1,78 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.PositionReader;
+import org.games.chess.src.search.AbstractSearch;
+import org.games.chess.src.search.CoalitionSearch;
+import org.games.chess.src.search.MaterialEvaluator;
+import org.games.chess.src.search.MaxNSearch;
+import org.games.chess.src.search.SearchLimits;
+import org.games.chess.src.search.SearchResult;
+import org.games.chess.src.search.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Замер эффекта упорядочивания ходов: для каждой позиции из файла выполняет поиск на фиксированную
+ * глубину без упорядочивания (только хеш-ход первым) и с ним, и печатает количество узлов и их сокращение.
+ * <p>
+ * Запуск:
+ * <pre>
+ * OrderingBench [файл позиций] [--depth N] [--mode coalition|paranoid] [--hash МБ]
+ * </pre>
+ * По умолчанию - эталонный набор res/perft_suite.txt, коалиционный поиск, глубина 5.
+ */
+public class OrderingBench {
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке чтения позиций
+     */
+    public static void main(String[] args) throws IOException {
+        String file = Resources.projectPath(Perft.DEFAULT_SUITE);
+        int depth = 5;
+        String mode = "coalition";
+        int hashMb = 16;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--mode" -> mode = args[++i];
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                default -> file = args[i];
+            }
+        }
+
+        MoveGenerator generator = new MoveGenerator(new WallController());
+        TranspositionTable table = new TranspositionTable(hashMb);
+        SearchLimits limits = SearchLimits.depth(depth);
+
+        System.out.printf("%-24s %14s %14s %8s%n", "позиция", "без порядка", "с порядком", "узлов");
+        long totalPlain = 0, totalOrdered = 0;
+        try (PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)))) {
+            while (reader.next()) {
+                long[] counts = new long[2];
+                for (int pass = 0; pass < 2; pass++) {
+                    table.clear();
+                    AbstractSearch search = "paranoid".equals(mode)
+                            ? new MaxNSearch(generator, new MaterialEvaluator(), table, MaxNSearch.Mode.PARANOID)
+                            : new CoalitionSearch(generator, new MaterialEvaluator(), table);
+                    search.setMoveOrdering(pass == 1);
+                    SearchResult result = search.search(reader.getState(), limits);
+                    counts[pass] = result.getNodes();
+                }
+                totalPlain += counts[0];
+                totalOrdered += counts[1];
+                System.out.printf("%-24s %14d %14d %7.1f%%%n", reader.getName(), counts[0], counts[1],
+                        100.0 * counts[1] / Math.max(1, counts[0]));
+            }
+        }
+        System.out.printf("%-24s %14d %14d %7.1f%%%n", "Итого", totalPlain, totalOrdered,
+                100.0 * totalOrdered / Math.max(1, totalPlain));
+    }
+}
@@ -0,0 +1,204 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.Move;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.PositionReader;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Подсчет листовых узлов дерева ходов (perft) для проверки генератора ходов.
+ * Работает без JavaFX по позициям в формате res/chess_board.txt и выводит скорость в узлах в секунду,
+ * поэтому служит и эталоном корректности, и тестом производительности.
+ * <p>
+ * Запуск:
+ * <pre>
+ * Perft [файл позиции] [глубина] [--divide]   - подсчет для позиции (по умолчанию стартовая, глубина 3)
+ * Perft --suite [файл набора]                 - проверка эталонного набора res/perft_suite.txt
+ * </pre>
+ */
+public class Perft {
+
+    /**
+     * Файл эталонного набора позиций относительно папки проекта
+     */
+    public static final String DEFAULT_SUITE = "res\\perft_suite.txt";
+
+    /**
+     * Генератор ходов
+     */
+    private final MoveGenerator generator;
+
+    /**
+     * Позиция, по которой идет обход (ходы делаются и отменяются на месте)
+     */
+    private final BoardState state = new BoardState();
+
+    /**
+     * Буферы ходов по глубине
+     */
+    private final int[][] moves;
+
+    /**
+     * Создает счетчик perft.
+     *
+     * @param generator генератор ходов
+     * @param maxDepth максимальная глубина подсчета
+     */
+    public Perft(MoveGenerator generator, int maxDepth) {
+        this.generator = generator;
+        this.moves = new int[maxDepth + 1][MoveGenerator.MAX_MOVES];
+    }
+
+    /**
+     * Считает листовые узлы на заданной глубине.
+     *
+     * @param root исходная позиция
+     * @param depth глубина
+     * @return количество листовых узлов
+     */
+    public long perft(BoardState root, int depth) {
+        state.copyFrom(root);
+        return count(depth);
+    }
+
+    /**
+     * Считает листовые узлы для каждого хода из исходной позиции и печатает их.
+     *
+     * @param root исходная позиция
+     * @param depth глубина (не меньше 1)
+     * @param out поток вывода
+     * @return суммарное количество листовых узлов
+     */
+    public long divide(BoardState root, int depth, PrintStream out) {
+        state.copyFrom(root);
+        int[] list = moves[depth];
+        int count = generator.generate(state, state.getCurrentTeam(), list, 0);
+
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            state.makeMove(list[i]);
+            long nodes = count(depth - 1);
+            state.unmakeMove();
+            out.println(Move.toString(list[i]) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    /**
+     * Рекурсивно считает листовые узлы из текущей позиции.
+     */
+    private long count(int depth) {
+        if (depth == 0) return 1;
+
+        if (state.isGameOver()) return 0;
+
+        int[] list = moves[depth];
+        int count = generator.generate(state, state.getCurrentTeam(), list, 0);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            state.makeMove(list[i]);
+            nodes += count(depth - 1);
+            state.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Проверяет все позиции эталонного набора.
+     *
+     * @param generator генератор ходов
+     * @param file файл набора
+     * @param out поток вывода
+     * @return true если все значения совпали с ожидаемыми
+     * @throws IOException при ошибке чтения
+     */
+    public static boolean runSuite(MoveGenerator generator, String file, PrintStream out) throws IOException {
+        boolean ok = true;
+        long totalNodes = 0, totalNanos = 0;
+
+        try (PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)))) {
+            while (reader.next()) {
+                List<long[]> expected = reader.getExpectedPerft();
+                int maxDepth = 0;
+                for (long[] entry : expected) maxDepth = Math.max(maxDepth, (int) entry[0]);
+
+                Perft perft = new Perft(generator, maxDepth);
+                for (long[] entry : expected) {
+                    long start = System.nanoTime();
+                    long nodes = perft.perft(reader.getState(), (int) entry[0]);
+                    long nanos = System.nanoTime() - start;
+                    totalNodes += nodes;
+                    totalNanos += nanos;
+
+                    boolean match = nodes == entry[1];
+                    ok &= match;
+                    out.printf("%-28s depth %d: %12d %s%n", reader.getName(), entry[0], nodes,
+                            match ? "ok" : "FAIL (ожидалось " + entry[1] + ")");
+                }
+            }
+        }
+
+        out.printf("Итого: %d узлов, %s%n", totalNodes, formatSpeed(totalNodes, totalNanos));
+        return ok;
+    }
+
+    /**
+     * Форматирует скорость в узлах в секунду.
+     */
+    private static String formatSpeed(long nodes, long nanos) {
+        return String.format("%.0f узлов/с", nodes * 1e9 / Math.max(nanos, 1));
+    }
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке чтения позиции
+     */
+    public static void main(String[] args) throws IOException {
+        MoveGenerator generator = new MoveGenerator(new WallController());
+
+        if (args.length > 0 && "--suite".equals(args[0])) {
+            String file = args.length > 1 ? args[1] : Resources.projectPath(DEFAULT_SUITE);
+            if (!runSuite(generator, file, System.out)) System.exit(1);
+            return;
+        }
+
+        String file = Resources.projectPath(Resources.DEFAULT_BOARD);
+        int depth = 3;
+        boolean divide = false;
+        for (String arg : args) {
+            if ("--divide".equals(arg)) divide = true;
+            else if (arg.matches("\\d+")) depth = Integer.parseInt(arg);
+            else file = arg;
+        }
+
+        try (PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)))) {
+            if (!reader.next()) throw new IOException("В файле нет позиции: " + file);
+
+            Perft perft = new Perft(generator, depth);
+            if (divide) {
+                long start = System.nanoTime();
+                long nodes = perft.divide(reader.getState(), depth, System.out);
+                System.out.printf("depth %d: %d, %s%n", depth, nodes, formatSpeed(nodes, System.nanoTime() - start));
+                return;
+            }
+
+            for (int d = 1; d <= depth; d++) {
+                long start = System.nanoTime();
+                long nodes = perft.perft(reader.getState(), d);
+                System.out.printf("depth %d: %d, %s%n", d, nodes, formatSpeed(nodes, System.nanoTime() - start));
+            }
+        }
+    }
+}
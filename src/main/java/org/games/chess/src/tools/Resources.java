@@ -0,0 +1,31 @@
+package org.games.chess.src.tools;
+
+import GDK.engine.Config;
+
+import java.io.File;
+
+/**
+ * Пути к ресурсам проекта для консольных утилит, запускаемых без JavaFX.
+ * Пути в Config записаны с разделителем Windows, здесь они приводятся к разделителю текущей системы.
+ */
+public final class Resources {
+
+    /**
+     * Файл стандартной расстановки фигур относительно папки проекта
+     */
+    public static final String DEFAULT_BOARD = "res\\chess_board.txt";
+
+    private Resources() {
+    }
+
+    /**
+     * Возвращает абсолютный путь к файлу внутри папки проекта (Config.PATH_PROJECT).
+     *
+     * @param relative путь относительно папки проекта
+     * @return абсолютный путь с разделителями текущей системы
+     */
+    public static String projectPath(String relative) {
+        String path = (Config.PATH_PROJECT + relative).replace('\\', File.separatorChar);
+        return System.getProperty("user.dir") + File.separator + path;
+    }
+}
@@ -0,0 +1,165 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.GameConfig;
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.PositionReader;
+import org.games.chess.src.search.AbstractSearch;
+import org.games.chess.src.search.CoalitionSearch;
+import org.games.chess.src.search.Evaluator;
+import org.games.chess.src.search.FeatureEvaluator;
+import org.games.chess.src.search.MaterialEvaluator;
+import org.games.chess.src.search.MaxNSearch;
+import org.games.chess.src.search.MctsSearch;
+import org.games.chess.src.search.NnueEvaluator;
+import org.games.chess.src.search.NnueNetwork;
+import org.games.chess.src.search.PieceSquareEvaluator;
+import org.games.chess.src.search.SearchEngine;
+import org.games.chess.src.search.SearchLimits;
+import org.games.chess.src.search.SearchResult;
+import org.games.chess.src.search.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Замер скорости поиска в узлах в секунду на позициях из файла.
+ * Для каждой позиции запускает поиск в каждом выбранном режиме с одинаковыми ограничениями
+ * и печатает глубину, лучший ход, оценки, количество узлов и скорость.
+ * <p>
+ * Запуск:
+ * <pre>
+ * SearchBench [файл позиций] [--mode maxn|paranoid|coalition|mcts|all] [--depth N] [--nodes N] [--time мс] [--hash МБ]
+ *             [--eval material|pst|features|nnue] [--nnue файл весов] [--no-quiescence]
+ * </pre>
+ * По умолчанию - стартовая позиция, все режимы, глубина 4.
+ * Сравнение режимов при одинаковом бюджете узлов (--nodes) показывает, насколько глубже
+ * проходит коалиционный поиск. Для MCTS бюджет узлов - количество партий
+ * (по умолчанию MCTS_DEFAULT_PLAYOUTS, если не заданы ни узлы, ни время); глубина для него - глубина дерева.
+ * Оценка по умолчанию - инкрементальная PieceSquareEvaluator; --eval material включает только материал,
+ * --eval features - оценку по признакам на Vector API (FeatureEvaluator), --eval nnue - сеть NnueEvaluator
+ * с весами из --nnue (по умолчанию начальная сеть NnueNetwork.fromPieceSquare).
+ * Флаг --no-quiescence отключает поиск взятий в листьях для сравнения количества узлов.
+ */
+public class SearchBench {
+
+    /**
+     * Названия режимов поиска
+     */
+    private static final String[] MODES = {"maxn", "paranoid", "coalition", "mcts"};
+
+    /**
+     * Количество партий MCTS, если бюджет не задан
+     */
+    private static final long MCTS_DEFAULT_PLAYOUTS = 100_000;
+
+    /**
+     * Размер дерева MCTS в узлах
+     */
+    private static final int MCTS_CAPACITY = 1 << 21;
+
+    /**
+     * Длина случайной партии MCTS в полуходах
+     */
+    private static final int MCTS_ROLLOUT_PLIES = 16;
+
+    /**
+     * Создает поиск по названию режима.
+     *
+     * @param mode название режима из MODES
+     * @param generator генератор ходов
+     * @param evaluator статическая оценка (не используется MCTS)
+     * @param table таблица транспозиций
+     * @return поиск
+     */
+    static SearchEngine createSearch(String mode, MoveGenerator generator, Evaluator evaluator,
+                                             TranspositionTable table) {
+        return switch (mode) {
+            case "mcts" -> new MctsSearch(generator, 1, MCTS_CAPACITY, MCTS_ROLLOUT_PLIES, 1);
+            case "maxn" -> new MaxNSearch(generator, evaluator, table, MaxNSearch.Mode.MAX_N);
+            case "paranoid" -> new MaxNSearch(generator, evaluator, table, MaxNSearch.Mode.PARANOID);
+            default -> new CoalitionSearch(generator, evaluator, table);
+        };
+    }
+
+    /**
+     * Создает статическую оценку по названию.
+     *
+     * @param name material, pst, features или nnue
+     * @param walls контроллер стен
+     * @param generator генератор ходов
+     * @param network сеть для nnue
+     * @return оценка
+     */
+    static Evaluator createEvaluator(String name, WallController walls, MoveGenerator generator,
+                                             NnueNetwork network) {
+        return switch (name) {
+            case "material" -> new MaterialEvaluator();
+            case "features" -> new FeatureEvaluator(generator);
+            case "nnue" -> new NnueEvaluator(network);
+            default -> new PieceSquareEvaluator(walls);
+        };
+    }
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке чтения позиций
+     */
+    public static void main(String[] args) throws IOException {
+        String file = Resources.projectPath(Resources.DEFAULT_BOARD);
+        String modeName = "all";
+        int depth = 4;
+        long nodes = SearchLimits.UNLIMITED, time = SearchLimits.UNLIMITED;
+        int hashMb = GameConfig.TT_SIZE_MB;
+        boolean quiescence = true;
+        String evalName = "pst";
+        String weights = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode" -> modeName = args[++i];
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--nodes" -> nodes = Long.parseLong(args[++i]);
+                case "--time" -> time = Long.parseLong(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                case "--eval" -> evalName = args[++i];
+                case "--nnue" -> weights = args[++i];
+                case "--no-quiescence" -> quiescence = false;
+                default -> file = args[i];
+            }
+        }
+
+        WallController walls = new WallController();
+        MoveGenerator generator = new MoveGenerator(walls);
+        NnueNetwork network = !"nnue".equals(evalName) ? null : weights != null ? NnueNetwork.load(Path.of(weights))
+                : NnueNetwork.fromPieceSquare(new PieceSquareEvaluator(walls), NnueBootstrap.DEFAULT_HIDDEN);
+        SearchLimits limits = new SearchLimits(depth, nodes, time);
+        TranspositionTable table = new TranspositionTable(hashMb);
+
+        long totalNodes = 0, totalNanos = 0;
+        try (PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)))) {
+            while (reader.next()) {
+                for (String mode : MODES) {
+                    if (!"all".equals(modeName) && !mode.equals(modeName)) continue;
+
+                    table.clear();
+                    SearchEngine search = createSearch(mode, generator, createEvaluator(evalName, walls, generator, network), table);
+                    if (search instanceof AbstractSearch tree) tree.setQuiescence(quiescence);
+                    SearchLimits modeLimits = "mcts".equals(mode) && nodes == SearchLimits.UNLIMITED
+                            && time == SearchLimits.UNLIMITED ? SearchLimits.nodes(MCTS_DEFAULT_PLAYOUTS) : limits;
+                    SearchResult result = search.search(reader.getState(), modeLimits);
+                    totalNodes += result.getNodes();
+                    totalNanos += result.getTimeNanos();
+                    System.out.printf("%-20s %-9s team %d: %s%n", reader.getName(), mode,
+                            reader.getState().getCurrentTeam(), result);
+                }
+            }
+        }
+
+        System.out.printf("Итого: %d узлов, %.0f узлов/с%n", totalNodes, totalNodes * 1e9 / Math.max(totalNanos, 1));
+    }
+}
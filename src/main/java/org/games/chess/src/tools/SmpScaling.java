@@ -0,0 +1,91 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.GameConfig;
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.PositionReader;
+import org.games.chess.src.search.CoalitionSearch;
+import org.games.chess.src.search.LazySmpSearch;
+import org.games.chess.src.search.MaterialEvaluator;
+import org.games.chess.src.search.SearchEngine;
+import org.games.chess.src.search.SearchLimits;
+import org.games.chess.src.search.SearchResult;
+import org.games.chess.src.search.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Отчет о масштабировании параллельного поиска Lazy SMP.
+ * Для каждого количества потоков ищет ход в позиции с одинаковым бюджетом времени и печатает
+ * достигнутую глубину, количество узлов, скорость и ускорение по узлам относительно одного потока.
+ * <p>
+ * Запуск:
+ * <pre>
+ * SmpScaling [файл позиции] [--threads 1,2,4,8,16] [--time мс] [--nodes N] [--hash МБ] [--deterministic]
+ * </pre>
+ * По умолчанию - стартовая позиция res/chess_board.txt, 5 секунд на каждое количество потоков.
+ * Детерминированный режим требует бюджета узлов (--nodes): потоки выполняются по очереди.
+ */
+public class SmpScaling {
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке чтения позиции
+     */
+    public static void main(String[] args) throws IOException {
+        String file = Resources.projectPath(Resources.DEFAULT_BOARD);
+        String threadList = "1,2,4,8,16";
+        long time = 5000;
+        long nodes = SearchLimits.UNLIMITED;
+        int hashMb = GameConfig.TT_SIZE_MB;
+        boolean deterministic = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threadList = args[++i];
+                case "--time" -> time = Long.parseLong(args[++i]);
+                case "--nodes" -> nodes = Long.parseLong(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                case "--deterministic" -> deterministic = true;
+                default -> file = args[i];
+            }
+        }
+
+        PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)));
+        if (!reader.next()) throw new IOException("В файле нет позиции: " + file);
+        reader.close();
+
+        MoveGenerator generator = new MoveGenerator(new WallController());
+        TranspositionTable table = new TranspositionTable(hashMb);
+        SearchLimits limits = nodes == SearchLimits.UNLIMITED ? SearchLimits.time(time)
+                : new SearchLimits(SearchEngine.MAX_PLY, nodes, SearchLimits.UNLIMITED);
+
+        System.out.printf("Ядер: %d, бюджет замера: %s%n", Runtime.getRuntime().availableProcessors(),
+                nodes == SearchLimits.UNLIMITED ? time + " мс" : nodes + " узлов");
+        System.out.printf("%8s %6s %14s %14s %8s  %s%n", "потоков", "глуб.", "узлов", "узлов/с", "ускор.", "ход");
+
+        long baseNps = 0;
+        int baseDepth = 0;
+        for (String token : threadList.split(",")) {
+            int threads = Integer.parseInt(token.trim());
+            table.clear();
+            LazySmpSearch search = new LazySmpSearch(threads,
+                    () -> new CoalitionSearch(generator, new MaterialEvaluator(), table), deterministic);
+            SearchResult result = search.search(reader.getState(), limits);
+            search.shutdown();
+
+            if (baseNps == 0) {
+                baseNps = Math.max(1, result.getNodesPerSecond());
+                baseDepth = result.getDepth();
+            }
+            System.out.printf("%8d %6s %14d %14d %7.2fx  %s%n", threads,
+                    result.getDepth() + (result.getDepth() > baseDepth ? " (+" + (result.getDepth() - baseDepth) + ")" : ""),
+                    result.getNodes(), result.getNodesPerSecond(), (double) result.getNodesPerSecond() / baseNps,
+                    result.principalVariationToString());
+        }
+    }
+}
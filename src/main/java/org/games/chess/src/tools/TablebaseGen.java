@@ -0,0 +1,211 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.GameConfig;
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.Piece;
+import org.games.chess.src.search.Tablebase;
+import org.games.chess.src.search.TablebaseGenerator;
+import org.games.chess.src.search.Tablebases;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Строит таблицы эндшпиля (TablebaseGenerator) для набора фигур двух команд и записывает их
+ * в папку таблиц вместе с таблицами меньших наборов. Таблицы, уже лежащие в папке, не перестраиваются.
+ * С --verify проверяет случайные позиции построенной таблицы: значение позиции должно следовать
+ * из значений позиций после всех ходов, полученных настоящим BoardState.makeMove.
+ * <p>
+ * Запуск:
+ * <pre>
+ * TablebaseGen набор [--teams A,B] [--out папка] [--threads N] [--verify N] [--seed N]
+ * </pre>
+ * Набор - фигуры первой и второй команды через 'v', например KRvK или KQvKN. По умолчанию команды 1 и 2,
+ * таблицы пишутся в res/tablebases, потоков - по числу ядер. Индекс таблицы - 32-битный,
+ * поэтому наборы ограничены тремя фигурами (208^3 * 2 позиций).
+ */
+public class TablebaseGen {
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws IOException при ошибке чтения или записи таблиц
+     */
+    public static void main(String[] args) throws IOException {
+        String spec = null;
+        int firstTeam = 1, secondTeam = 2;
+        String out = Resources.projectPath(GameConfig.TABLEBASES);
+        int threads = Runtime.getRuntime().availableProcessors();
+        int verify = 0;
+        long seed = 1;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--teams" -> {
+                    String[] teams = args[++i].split(",");
+                    firstTeam = Integer.parseInt(teams[0]);
+                    secondTeam = Integer.parseInt(teams[1]);
+                }
+                case "--out" -> out = args[++i];
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--verify" -> verify = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                default -> spec = args[i];
+            }
+        }
+        if (spec == null) throw new IllegalArgumentException("Не задан набор фигур, например KRvK");
+
+        int[] pieces = parseSpec(spec, firstTeam, secondTeam);
+        Path directory = Path.of(out);
+        Files.createDirectories(directory);
+        Tablebases tablebases = Tablebases.load(directory);
+
+        MoveGenerator generator = new MoveGenerator(new WallController());
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Tablebase table;
+        try {
+            TablebaseGenerator tablebaseGenerator = new TablebaseGenerator(generator, pool, tablebases);
+            tablebaseGenerator.setLog(System.out);
+            table = tablebaseGenerator.generate(pieces);
+        } finally {
+            pool.shutdown();
+        }
+
+        for (Tablebase built : tablebases.getTables()) {
+            Path file = directory.resolve(built.getName() + Tablebases.EXTENSION);
+            if (Files.exists(file)) continue;
+            built.write(file);
+            System.out.printf("%s -> %s (%d КБ)%n", built.getName(), file, Files.size(file) / 1024);
+        }
+
+        if (verify > 0) {
+            int errors = verify(table, tablebases, generator, verify, new Random(seed));
+            System.out.printf("Проверено позиций: %d, ошибок: %d%n", verify, errors);
+            if (errors > 0) System.exit(1);
+        }
+    }
+
+    /**
+     * Разбирает набор фигур вида KRvK.
+     *
+     * @param spec набор фигур
+     * @param firstTeam команда фигур до 'v'
+     * @param secondTeam команда фигур после 'v'
+     * @return коды фигур
+     */
+    private static int[] parseSpec(String spec, int firstTeam, int secondTeam) {
+        String[] sides = spec.toUpperCase().split("V");
+        if (sides.length != 2) throw new IllegalArgumentException("Неверный набор фигур: " + spec);
+
+        int[] pieces = new int[sides[0].length() + sides[1].length()];
+        int count = 0;
+        for (int side = 0; side < 2; side++) {
+            for (char c : sides[side].toCharArray()) {
+                int type = Piece.typeFromChar(c);
+                if (type == Piece.EMPTY) throw new IllegalArgumentException("Неизвестная фигура " + c + " в наборе " + spec);
+                pieces[count++] = Piece.make(type, side == 0 ? firstTeam : secondTeam, false);
+            }
+        }
+        return pieces;
+    }
+
+    /**
+     * Проверяет случайные позиции таблицы по позициям после ходов.
+     *
+     * @return количество позиций, значение которых не согласуется с ходами
+     */
+    private static int verify(Tablebase table, Tablebases tablebases, MoveGenerator generator, int positions,
+                              Random random) {
+        int[] codes = table.getCodes();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] teams = {Piece.teamOf(codes[0]), Piece.teamOf(codes[codes.length - 1])};
+        BoardState state = new BoardState();
+        int errors = 0;
+
+        for (int checked = 0; checked < positions; ) {
+            state.clear();
+            for (int team = 1; team <= BoardState.TEAMS; team++) {
+                state.setTeamEliminated(team, team != teams[0] && team != teams[1]);
+            }
+            if (!placeRandom(state, codes, random)) continue;
+            state.setCurrentTeam(teams[random.nextInt(2)]);
+            checked++;
+
+            int value = tablebases.probe(state);
+            int expected = expectedValue(state, tablebases, generator, moves);
+            if (value != expected) {
+                errors++;
+                if (errors <= 10) {
+                    System.out.printf("  %s: ход команды %d, таблица %d, по ходам %d%n",
+                            describe(state), state.getCurrentTeam(), value, expected);
+                }
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Расставляет фигуры на случайные свободные активные клетки.
+     *
+     * @return false если случайная клетка оказалась занята
+     */
+    private static boolean placeRandom(BoardState state, int[] codes, Random random) {
+        for (int code : codes) {
+            int sq;
+            do {
+                sq = random.nextInt(BoardState.SQUARES);
+            } while (!BoardState.isActive(sq));
+            if (state.getPiece(sq) != Piece.EMPTY) return false;
+            state.setPiece(sq, code);
+        }
+        return true;
+    }
+
+    /**
+     * Вычисляет значение позиции по значениям позиций после ходов: самый быстрый выигрыш,
+     * иначе ничья, если хоть один ход ее сохраняет, иначе самый долгий проигрыш.
+     *
+     * @return значение в формате Tablebase.probe или Tablebase.UNKNOWN, если позиции после хода нет в таблицах
+     */
+    private static int expectedValue(BoardState state, Tablebases tablebases, MoveGenerator generator, int[] moves) {
+        int count = generator.generate(state, state.getCurrentTeam(), moves, 0);
+        int fastestWin = Integer.MAX_VALUE, slowestLoss = 0;
+        boolean draw = false;
+
+        for (int i = 0; i < Math.max(count, 1); i++) {
+            if (count == 0) state.makeNullMove();
+            else state.makeMove(moves[i]);
+            boolean kingCaptured = state.isGameOver();
+            int child = kingCaptured ? 0 : tablebases.probe(state);
+            state.unmakeMove();
+
+            if (child == Tablebase.UNKNOWN) return Tablebase.UNKNOWN;
+            if (kingCaptured) fastestWin = 1;
+            else if (child < 0) fastestWin = Math.min(fastestWin, 1 - child);
+            else if (child == 0) draw = true;
+            else slowestLoss = Math.max(slowestLoss, child + 1);
+        }
+        if (fastestWin != Integer.MAX_VALUE) return fastestWin;
+        return draw ? 0 : -slowestLoss;
+    }
+
+    /**
+     * Описывает расстановку фигур для сообщения об ошибке.
+     */
+    private static String describe(BoardState state) {
+        StringBuilder builder = new StringBuilder();
+        for (int sq = 0; sq < BoardState.SQUARES; sq++) {
+            int piece = state.getPiece(sq);
+            if (piece == Piece.EMPTY) continue;
+            builder.append(Piece.typeToChar(Piece.typeOf(piece))).append(Piece.teamOf(piece))
+                    .append('@').append(BoardState.fileOf(sq)).append(',').append(BoardState.rankOf(sq)).append(' ');
+        }
+        return builder.toString().trim();
+    }
+}
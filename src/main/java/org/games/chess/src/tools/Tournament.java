@@ -0,0 +1,382 @@
+package org.games.chess.src.tools;
+
+import org.games.chess.src.board.WallController;
+import org.games.chess.src.rules.BoardState;
+import org.games.chess.src.rules.GameRecord;
+import org.games.chess.src.rules.GameRecordWriter;
+import org.games.chess.src.rules.MoveGenerator;
+import org.games.chess.src.rules.PositionReader;
+import org.games.chess.src.search.HeadlessGame;
+import org.games.chess.src.search.NnueNetwork;
+import org.games.chess.src.search.OpeningBook;
+import org.games.chess.src.search.PieceSquareEvaluator;
+import org.games.chess.src.search.SearchEngine;
+import org.games.chess.src.search.SearchLimits;
+import org.games.chess.src.search.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Турнир двух движков без JavaFX: партии на четверых (HeadlessGame) играются параллельно в пуле потоков
+ * по числу ядер. Движок A играет за одну коалицию, движок B - за другую; в соседних партиях коалиции
+ * меняются, а случайное начало пары партий одинаково, поэтому преимущество стороны взаимно гасится.
+ * У каждого потока свои движки и таблицы транспозиций, таблицы очищаются перед каждой партией.
+ * <p>
+ * Результат каждой партии сразу дописывается в файл строкой с разделителями-табуляциями:
+ * номер партии, движки коалиций 1-3 и 2-4, победитель, причина окончания, полуходы, порядок выбывания
+ * команд, узлы и время. Периодически и в конце печатаются счет и скорость в партиях в минуту.
+ * С --games-out ходы партий дописываются в файл партий для BookBuilder; с --book движки берут
+ * дебютные ходы из книги OpeningBook (одна отображенная в память книга на все потоки).
+ * С --records партии вместе с начальной позицией дописываются в двоичный файл партий GameRecord.
+ * С --clock партии играются по часам команд (TeamClock): бюджет каждого хода вычисляет TimeManager
+ * по остатку времени команды, --nodes, --depth и --time не используются.
+ * <p>
+ * Запуск:
+ * <pre>
+ * Tournament [файл позиции] [--engines режим[:оценка],режим[:оценка]] [--games N] [--threads N]
+ *            [--nodes N] [--depth N] [--time мс] [--hash МБ] [--max-plies N] [--random-plies N]
+ *            [--seed N] [--nnue файл весов] [--out файл] [--report N] [--games-out файл] [--book файл]
+ *            [--records файл] [--clock мс[+мс]]
+ * </pre>
+ * Режимы и оценки - как в SearchBench (coalition, paranoid, maxn, mcts; material, pst, features, nnue).
+ * По умолчанию - стартовая позиция, coalition:pst против paranoid:pst, 100 партий,
+ * 20000 узлов на ход, результаты в tournament.tsv.
+ */
+public class Tournament {
+
+    /**
+     * Размер таблицы транспозиций одного движка по умолчанию в мегабайтах
+     */
+    private static final int DEFAULT_HASH_MB = 16;
+
+    /**
+     * Точка входа консольной утилиты.
+     *
+     * @param args аргументы командной строки (см. описание класса)
+     * @throws Exception при ошибке чтения позиции, записи результатов или в партии
+     */
+    public static void main(String[] args) throws Exception {
+        String file = Resources.projectPath(Resources.DEFAULT_BOARD);
+        String engineList = "coalition:pst,paranoid:pst";
+        int games = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int depth = SearchEngine.MAX_PLY;
+        long nodes = 20_000, time = SearchLimits.UNLIMITED;
+        int hashMb = DEFAULT_HASH_MB;
+        int maxPlies = HeadlessGame.DEFAULT_MAX_PLIES;
+        int randomPlies = 4;
+        long seed = 1;
+        String weights = null;
+        String out = "tournament.tsv";
+        int report = 10;
+        String gamesOut = null;
+        String bookFile = null;
+        String records = null;
+        long clockMillis = 0, clockIncrement = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engines" -> engineList = args[++i];
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--nodes" -> nodes = Long.parseLong(args[++i]);
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--time" -> time = Long.parseLong(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                case "--max-plies" -> maxPlies = Integer.parseInt(args[++i]);
+                case "--random-plies" -> randomPlies = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--nnue" -> weights = args[++i];
+                case "--out" -> out = args[++i];
+                case "--report" -> report = Integer.parseInt(args[++i]);
+                case "--games-out" -> gamesOut = args[++i];
+                case "--book" -> bookFile = args[++i];
+                case "--records" -> records = args[++i];
+                case "--clock" -> {
+                    String[] clock = args[++i].split("\\+");
+                    clockMillis = Long.parseLong(clock[0]);
+                    clockIncrement = clock.length > 1 ? Long.parseLong(clock[1]) : 0;
+                }
+                default -> file = args[i];
+            }
+        }
+
+        String[] engines = engineList.split(",");
+        if (engines.length != 2) throw new IllegalArgumentException("Нужно два движка: " + engineList);
+
+        BoardState start;
+        try (PositionReader reader = new PositionReader(new BufferedReader(new FileReader(file)))) {
+            if (!reader.next()) throw new IOException("В файле нет позиции: " + file);
+            start = new BoardState(reader.getState());
+        }
+
+        WallController walls = new WallController();
+        MoveGenerator generator = new MoveGenerator(walls);
+        NnueNetwork network = weights != null ? NnueNetwork.load(Path.of(weights))
+                : NnueNetwork.fromPieceSquare(new PieceSquareEvaluator(walls), NnueBootstrap.DEFAULT_HIDDEN);
+        SearchLimits limits = new SearchLimits(depth, nodes, time);
+        OpeningBook book = bookFile != null ? OpeningBook.load(Path.of(bookFile)) : null;
+
+        System.out.printf("%s против %s: %d партий, %d потоков, результаты в %s%n",
+                engines[0], engines[1], games, threads, out);
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(out)));
+             PrintWriter gamesWriter = gamesOut != null ? new PrintWriter(new BufferedWriter(new FileWriter(gamesOut))) : null;
+             GameRecordWriter recordWriter = records != null ? GameRecordWriter.create(Path.of(records), false) : null) {
+            Standings standings = new Standings(engines, writer, gamesWriter, recordWriter, start, report);
+            AtomicInteger nextGame = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int gameCount = games, plies = maxPlies, opening = randomPlies, tableMb = hashMb;
+                long baseSeed = seed, initialMillis = clockMillis, incrementMillis = clockIncrement;
+                workers.add(pool.submit(() -> {
+                    Worker worker = new Worker(engines, walls, generator, network, book, limits, tableMb, plies);
+                    worker.setClock(initialMillis, incrementMillis);
+                    for (int game; (game = nextGame.getAndIncrement()) < gameCount; ) {
+                        // пара партий 2k, 2k+1 начинается одинаково, коалиции меняются местами
+                        Random random = new Random(baseSeed * 1_000_003L + game / 2);
+                        boolean swapped = game % 2 == 1;
+                        standings.record(game, swapped, worker.play(start, swapped, random, opening));
+                    }
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            standings.finish();
+        }
+    }
+
+    /**
+     * Движки одного потока турнира.
+     */
+    private static class Worker {
+
+        /**
+         * Таблицы транспозиций движков A и B
+         */
+        private final TranspositionTable[] tables = new TranspositionTable[2];
+
+        /**
+         * Партия, где A играет за команды 1 и 3
+         */
+        private final HeadlessGame direct;
+
+        /**
+         * Партия, где B играет за команды 1 и 3
+         */
+        private final HeadlessGame swapped;
+
+        /**
+         * Создает движки потока.
+         */
+        Worker(String[] specs, WallController walls, MoveGenerator generator, NnueNetwork network, OpeningBook book,
+               SearchLimits limits, int hashMb, int maxPlies) {
+            SearchEngine[] engines = new SearchEngine[2];
+            for (int i = 0; i < 2; i++) {
+                String[] parts = specs[i].split(":");
+                String eval = parts.length > 1 ? parts[1] : "pst";
+                tables[i] = new TranspositionTable(hashMb);
+                engines[i] = SearchBench.createSearch(parts[0], generator,
+                        SearchBench.createEvaluator(eval, walls, generator, network), tables[i]);
+            }
+            direct = new HeadlessGame(generator, engines[0], engines[1], limits, maxPlies);
+            swapped = new HeadlessGame(generator, engines[1], engines[0], limits, maxPlies);
+            direct.setBook(book);
+            swapped.setBook(book);
+        }
+
+        /**
+         * Включает игру по часам команд в партиях потока.
+         */
+        void setClock(long initialMillis, long incrementMillis) {
+            direct.setClock(initialMillis, incrementMillis);
+            swapped.setClock(initialMillis, incrementMillis);
+        }
+
+        /**
+         * Играет партию с очищенными таблицами.
+         */
+        HeadlessGame.Outcome play(BoardState start, boolean swap, Random random, int randomPlies) {
+            for (TranspositionTable table : tables) {
+                table.clear();
+            }
+            return (swap ? swapped : direct).play(start, random, randomPlies);
+        }
+    }
+
+    /**
+     * Счет турнира и запись результатов (вызывается из потоков пула).
+     */
+    private static class Standings {
+
+        /**
+         * Названия движков A и B
+         */
+        private final String[] engines;
+
+        /**
+         * Файл результатов
+         */
+        private final PrintWriter writer;
+
+        /**
+         * Файл партий для BookBuilder или null
+         */
+        private final PrintWriter gamesWriter;
+
+        /**
+         * Двоичный файл партий или null
+         */
+        private final GameRecordWriter recordWriter;
+
+        /**
+         * Начальная позиция партий
+         */
+        private final BoardState start;
+
+        /**
+         * Через сколько партий печатать промежуточный счет
+         */
+        private final int report;
+
+        /**
+         * Момент начала турнира (System.nanoTime)
+         */
+        private final long startNanos = System.nanoTime();
+
+        /**
+         * Победы движков A и B
+         */
+        private final int[] wins = new int[2];
+
+        /**
+         * Ничьи
+         */
+        private int draws;
+
+        /**
+         * Сыграно партий
+         */
+        private int played;
+
+        /**
+         * Суммарное количество полуходов
+         */
+        private long plies;
+
+        /**
+         * Суммарное количество узлов
+         */
+        private long nodes;
+
+        /**
+         * Создает счет и записывает заголовок файла результатов.
+         */
+        Standings(String[] engines, PrintWriter writer, PrintWriter gamesWriter, GameRecordWriter recordWriter,
+                  BoardState start, int report) {
+            this.engines = engines;
+            this.writer = writer;
+            this.gamesWriter = gamesWriter;
+            this.recordWriter = recordWriter;
+            this.start = start;
+            this.report = report;
+            writer.println("# game\tteams13\tteams24\twinner\ttermination\tplies\teliminated\tnodes\tms");
+            writer.flush();
+        }
+
+        /**
+         * Учитывает партию и дописывает строку в файл результатов.
+         *
+         * @param game номер партии
+         * @param swapped true если движок B играл за команды 1 и 3
+         * @param outcome итог партии
+         * @throws IOException при ошибке записи в двоичный файл партий
+         */
+        synchronized void record(int game, boolean swapped, HeadlessGame.Outcome outcome) throws IOException {
+            String odd = engines[swapped ? 1 : 0], even = engines[swapped ? 0 : 1];
+            String winner = "draw";
+            if (outcome.getWinner() != 0) {
+                boolean oddWon = outcome.getWinner() == 1;
+                int engine = oddWon != swapped ? 0 : 1;
+                wins[engine]++;
+                winner = engines[engine];
+            } else {
+                draws++;
+            }
+            played++;
+            plies += outcome.getPlies();
+            nodes += outcome.getNodes();
+
+            writer.printf("%d\t%s\t%s\t%s\t%s\t%d\t%s\t%d\t%d%n", game, odd, even, winner,
+                    outcome.getTermination(), outcome.getPlies(), eliminationString(outcome.getEliminationOrder()),
+                    outcome.getNodes(), outcome.getTimeNanos() / 1_000_000L);
+            writer.flush();
+            if (gamesWriter != null) {
+                gamesWriter.println(BookBuilder.formatGame(outcome));
+                gamesWriter.flush();
+            }
+            if (recordWriter != null) {
+                recordWriter.writeGame(start, System.currentTimeMillis(), outcome.getMoves(),
+                        GameRecord.resultOf(outcome.getWinner()));
+            }
+
+            if (report > 0 && played % report == 0) {
+                System.out.println(summary());
+            }
+        }
+
+        /**
+         * Записывает итоговый счет в конец файла и печатает его.
+         */
+        synchronized void finish() {
+            String summary = summary();
+            writer.println("# " + summary);
+            System.out.println(summary);
+        }
+
+        /**
+         * Формирует строку счета и скорости турнира.
+         */
+        private String summary() {
+            double minutes = (System.nanoTime() - startNanos) / 60e9;
+            double score = wins[0] + draws / 2.0;
+            return String.format("партий %d: %s %d, %s %d, ничьих %d (очки A %.1f%%), %.1f полуходов/партию, "
+                            + "%.1f партий/мин, %.0f узлов/с",
+                    played, engines[0], wins[0], engines[1], wins[1], draws, 100.0 * score / Math.max(1, played),
+                    (double) plies / Math.max(1, played), played / minutes, nodes / (minutes * 60));
+        }
+
+        /**
+         * Записывает порядок выбывания команд через дефис ("-", если никто не выбыл).
+         */
+        private static String eliminationString(int[] order) {
+            if (order.length == 0) return "-";
+            StringBuilder builder = new StringBuilder();
+            for (int team : order) {
+                if (!builder.isEmpty()) builder.append('-');
+                builder.append(team);
+            }
+            return builder.toString();
+        }
+    }
+}